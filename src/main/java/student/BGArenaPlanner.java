@@ -1,5 +1,14 @@
 package student;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import student.catalog.CatalogFile;
+import student.catalog.GameCatalog;
+import student.metrics.PlannerMetrics;
+import student.persist.ListJournal;
 
 /**
  * Main entry point for the program.
@@ -16,15 +25,108 @@ public final class BGArenaPlanner {
     /**
      * Main entry point for the program.
      * 
-     * @param args command line arguments - not used at this time.
+     * Setting the system property {@code planner.metrics=true} turns on the planner metrics
+     * (published over JMX), and {@code planner.metrics.dump=<seconds>} also prints them
+     * periodically.
+     *
+     * Collections to load can be given as arguments, resources or files, oldest first; they are
+     * merged on BGG id, keeping the game from the latest one unless
+     * {@code planner.merge=max-rating} or {@code planner.merge=first-wins} is set (see
+     * {@link ConflictPolicy}). A single collection is loaded as it is, as the bundled one is with
+     * no arguments, so games that share an id but not a name are all kept.
+     *
+     * {@code planner.deltas=<file>,<file>} applies delta files of upserts and deletes to the
+     * loaded catalog, in order (see {@link GamesLoader#loadDelta(String)}).
+     *
+     * {@code planner.index.write=<file>} writes the catalog to an index file once it is loaded,
+     * and {@code planner.index=<file>} opens one instead of loading the bundled collection, so a
+     * large catalog is mapped from disk rather than held on the heap (see {@link CatalogFile}).
+     * It cannot be combined with collections given as arguments, which are loaded instead.
+     * {@code planner.offheap=true} moves a loaded catalog's columns into direct memory instead.
+     *
+     * {@code planner.journal=<dir>} keeps the game list in a journal in that directory, restoring
+     * it at startup and appending every change to it (see {@link ListJournal}).
+     *
+     * @param args the collections to load, if any
      */
     public static void main(String[] args) {
-        IPlanner planner = new Planner(GamesLoader.loadGamesFile(DEFAULT_COLLECTION));
-        IGameList list = new GameList();
+        PlannerMetrics.register();
+        long dumpSeconds = Long.getLong("planner.metrics.dump", 0L);
+        if (dumpSeconds > 0) {
+            PlannerMetrics.startDump(Duration.ofSeconds(dumpSeconds), System.err);
+        }
+        GameCatalog catalog;
+        String index = System.getProperty("planner.index");
+        if (args.length > 0 && index != null) {
+            System.err.println("Ignoring planner.index " + index
+                    + ": collections were given as arguments");
+        }
+        if (args.length == 0 && index != null) {
+            catalog = openIndex(index);
+        } else if (args.length <= 1) {
+            catalog = GamesLoader.loadCatalog(args.length == 0 ? DEFAULT_COLLECTION : args[0]);
+        } else {
+            ConflictPolicy policy = ConflictPolicy.fromName(
+                    System.getProperty("planner.merge", "latest"));
+            catalog = GamesLoader.loadCatalog(List.of(args), policy);
+        }
+        for (String delta : System.getProperty("planner.deltas", "").split(",")) {
+            if (!delta.isBlank()) {
+                catalog = catalog.apply(GamesLoader.loadDelta(delta.trim()));
+            }
+        }
+        String indexOut = System.getProperty("planner.index.write");
+        if (indexOut != null) {
+            try {
+                CatalogFile.write(catalog, Path.of(indexOut));
+            } catch (IOException e) {
+                System.err.println("Error writing index: " + e.getMessage());
+            }
+        }
+        if (Boolean.getBoolean("planner.offheap")) {
+            catalog = CatalogFile.offHeap(catalog);
+        }
+        IPlanner planner = new Planner(catalog);
+        String journalDir = System.getProperty("planner.journal");
+        IGameList list = journalDir == null ? new GameList() : restoreList(catalog, journalDir);
         ConsoleApp app = new ConsoleApp(list, planner);
         app.start();
     }
 
+    /**
+     * Restores the game list from its journal, looking its games up in the catalog by id.
+     *
+     * @param catalog the catalog
+     * @param dir the directory of the journal
+     * @return the list
+     * @throws UncheckedIOException if the journal cannot be opened
+     */
+    private static GameList restoreList(GameCatalog catalog, String dir) {
+        try {
+            return GameList.restore(ListJournal.open(Path.of(dir)), id -> {
+                int row = catalog.rowOf(id);
+                return row < 0 ? null : catalog.get(row);
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opens a catalog index file.
+     *
+     * @param filename the file
+     * @return the catalog
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    private static GameCatalog openIndex(String filename) {
+        try {
+            return CatalogFile.open(Path.of(filename));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 
 
 }
@@ -0,0 +1,46 @@
+package student;
+
+/**
+ * Which game to keep when two collections being merged have a game with the same BGG id (see
+ * {@link GamesLoader#loadCatalog(java.util.List, ConflictPolicy)}).
+ */
+public enum ConflictPolicy {
+    /** The game from the collection listed last, as later exports are newer. */
+    LATEST,
+    /** The game with the higher average rating; the earlier one if they are equal. */
+    MAX_RATING,
+    /** The game from the collection listed first. */
+    FIRST_WINS;
+
+    /**
+     * Decides whether a game from a later collection replaces the one kept so far.
+     *
+     * @param kept the game kept so far
+     * @param incoming the game with the same id from a later collection
+     * @return true to keep the incoming game instead
+     */
+    public boolean replaces(BoardGame kept, BoardGame incoming) {
+        return switch (this) {
+            case LATEST -> true;
+            case MAX_RATING -> incoming.getRating() > kept.getRating();
+            case FIRST_WINS -> false;
+        };
+    }
+
+    /**
+     * Gets a policy from its name, ignoring case and - or _, such as max-rating.
+     *
+     * @param name the name
+     * @return the policy
+     * @throws IllegalArgumentException if no policy has that name
+     */
+    public static ConflictPolicy fromName(String name) {
+        String wanted = name.replaceAll("[-_\\s]", "");
+        for (ConflictPolicy policy : values()) {
+            if (policy.name().replace("_", "").equalsIgnoreCase(wanted)) {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException("No conflict policy named " + name);
+    }
+}
@@ -1,11 +1,15 @@
 package student;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
 import java.util.Scanner;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.Random;
+import student.catalog.EditDistance;
+import student.catalog.NameKey;
 
 
 /**
@@ -21,6 +25,8 @@ public class ConsoleApp {
     private static final Scanner IN = new Scanner(System.in);
     /** Default name to save the game list to. */
     private static final String DEFAULT_FILENAME = "games_list.txt";
+    /** Number of names the complete command shows. */
+    private static final int COMPLETIONS = 10;
     /** random number generator only needs to be built once. */
     private static final Random RND = new Random();
     /** scanner to help with processing the command string. */
@@ -58,6 +64,12 @@ public class ConsoleApp {
                 case CMD_FILTER:
                     processFilter();
                     break;
+                case CMD_EXPLAIN:
+                    processExplain();
+                    break;
+                case CMD_COMPLETE:
+                    processComplete();
+                    break;
                 case CMD_LIST:
                     processListCommands();
                     break;
@@ -101,6 +113,7 @@ public class ConsoleApp {
         }
         switch (ct) {
             case CMD_FILTER:
+            case CMD_EXPLAIN:
                 printOutput("%s%n", ConsoleText.FILTER_HELP);
                 break;
             case CMD_LIST:
@@ -132,34 +145,22 @@ public class ConsoleApp {
                 printOutput("%s%n", ConsoleText.FILTERED_CLEAR);
                 return; // leave early.
             }
-            if (filter.contains(ConsoleText.CMD_SORT_OPTION.toString())) {
-                // break it up, figure out sort
-                boolean ascending = true; // default
-                String[] parts = filter.split(ConsoleText.CMD_SORT_OPTION.toString());
-                if (parts.length == 2) {
-                    String sort = parts[1];
-                    if (sort.contains(ConsoleText.CMD_SORT_OPTION_DIRECTION_ASC.toString())) {
-                        ascending = true;
-                        sort = sort.substring(0,
-                                sort.indexOf(ConsoleText.CMD_SORT_OPTION_DIRECTION_ASC.toString()));
-                    } else if (sort
-                            .contains(ConsoleText.CMD_SORT_OPTION_DIRECTION_DESC.toString())) {
-                        ascending = false;
-                        sort = sort.substring(0, sort
-                                .indexOf(ConsoleText.CMD_SORT_OPTION_DIRECTION_DESC.toString()));
-                    }
+            SortOption sort = SortOption.parse(filter);
+            if (sort.column() != null) {
+                try {
+                    sortON = GameData.fromString(sort.column());
+                } catch (IllegalArgumentException e) {
+                    // not a GameData column, may be an extra column of the catalog
                     try {
-                        sortON = GameData.fromString(sort);
-                    } catch (IllegalArgumentException e) {
+                        printFilterStream(planner.filter(sort.filter(), sort.column(),
+                                sort.ascending()), GameData.NAME);
+                    } catch (IllegalArgumentException noColumn) {
                         printOutput("%s%n", ConsoleText.INVALID);
-                        return; // leave early.
                     }
+                    return; // leave early.
                 }
-
-                result = planner.filter(parts[0], sortON, ascending);  // NOTICE: sortON and ascending are used here.
-            } else {
-                result = planner.filter(filter); // default sort
             }
+            result = planner.filter(sort.filter(), sortON, sort.ascending());
         } else {
             printOutput("%s%n", ConsoleText.NO_FILTER);
             result = planner.filter("");
@@ -167,6 +168,70 @@ public class ConsoleApp {
         printFilterStream(result, sortON);
     }
 
+    /**
+     * Process the explain command, which takes the same arguments as filter.
+     */
+    private void processExplain() {
+        SortOption sort = SortOption.parse(remainder().replaceAll("\\s", "").toLowerCase());
+        try {
+            String column = sort.column() == null ? GameData.NAME.name() : sort.column();
+            printOutput("%s%n", planner.explain(sort.filter(), column, sort.ascending()));
+        } catch (IllegalArgumentException e) {
+            printOutput("%s%n", ConsoleText.INVALID);
+        }
+    }
+
+    /**
+     * Process the complete command: the best ranked games whose name starts with the text typed.
+     */
+    private void processComplete() {
+        String prefix = remainder();
+        if (prefix.isEmpty()) {
+            printOutput("%s%n", ConsoleText.INVALID);
+            return;
+        }
+        printFilterStream(planner.complete(prefix, GameData.RANK, COMPLETIONS).stream(),
+                GameData.RANK);
+    }
+
+    /**
+     * The sort option of a filter or explain command, such as name~=go sort:rating desc, split
+     * from the filter.
+     *
+     * @param filter the filter, without the sort option
+     * @param column the column to sort on, as written, or null to sort by name
+     * @param ascending whether to sort ascending
+     */
+    private record SortOption(String filter, String column, boolean ascending) {
+        /**
+         * Splits the sort option from the command text, spaces already removed.
+         *
+         * @param text the command text
+         * @return the filter and how to sort it
+         */
+        static SortOption parse(String text) {
+            String option = ConsoleText.CMD_SORT_OPTION.toString();
+            if (!text.contains(option)) {
+                return new SortOption(text, null, true);
+            }
+            String[] parts = text.split(option);
+            String filter = parts.length > 0 ? parts[0] : "";
+            if (parts.length != 2) {
+                return new SortOption(filter, null, true);
+            }
+            String sort = parts[1];
+            String asc = ConsoleText.CMD_SORT_OPTION_DIRECTION_ASC.toString();
+            String desc = ConsoleText.CMD_SORT_OPTION_DIRECTION_DESC.toString();
+            if (sort.contains(asc)) {
+                return new SortOption(filter, sort.substring(0, sort.indexOf(asc)), true);
+            }
+            if (sort.contains(desc)) {
+                return new SortOption(filter, sort.substring(0, sort.indexOf(desc)), false);
+            }
+            return new SortOption(filter, sort, true);
+        }
+    }
+
     /**
      * Print the filtered stream of games.
      * 
@@ -182,6 +247,76 @@ public class ConsoleApp {
         }
     }
 
+    /**
+     * Adds the game whose name is closest to a name that did not match, if only one is.
+     *
+     * Several games equally close are listed instead, and the usual invalid message is printed
+     * when none is close.
+     *
+     * @param toAdd the name typed
+     */
+    private void addClosest(String toAdd) {
+        List<BoardGame> closest = planner.closestNames(toAdd, EditDistance.limitFor(toAdd));
+        if (closest.isEmpty()) {
+            printOutput("%s %s%n", ConsoleText.INVALID_LIST, toAdd);
+        } else if (closest.size() == 1) {
+            String name = closest.get(0).getName();
+            gameList.addToList(name, planner.filter(""));
+            printOutput("%s %s%n", ConsoleText.CLOSEST_MATCH, name);
+        } else {
+            printOutput("%s %s%n", ConsoleText.DID_YOU_MEAN, closest.stream()
+                    .map(BoardGame::getName).collect(Collectors.joining(", ")));
+        }
+    }
+
+    /**
+     * Checks whether a remove selection is all, an index or range, or the name of a listed game.
+     *
+     * @param remove the selection typed
+     * @return false if it is a name no listed game has
+     */
+    private boolean isListedName(String remove) {
+        if (remove.equalsIgnoreCase(IGameList.ADD_ALL) || remove.matches("\\d+(-\\d+)?")) {
+            return true;
+        }
+        String key = NameKey.of(remove);
+        return gameList.getGameNames().stream().anyMatch(name -> NameKey.of(name).equals(key));
+    }
+
+    /**
+     * Removes the listed game whose name is closest to a name that did not match, if only one
+     * is. The list is small, so it is scanned.
+     *
+     * Several games equally close are listed instead, and the usual invalid message is printed
+     * when none is close.
+     *
+     * @param remove the name typed
+     */
+    private void removeClosest(String remove) {
+        int limit = EditDistance.limitFor(remove);
+        String key = NameKey.of(remove);
+        int best = limit + 1;
+        List<String> closest = new ArrayList<>();
+        for (String name : gameList.getGameNames()) {
+            int d = EditDistance.bounded(NameKey.of(name), key, Math.min(limit, best));
+            if (d < best) {
+                best = d;
+                closest.clear();
+            }
+            if (d == best && d <= limit) {
+                closest.add(name);
+            }
+        }
+        if (closest.isEmpty()) {
+            printOutput("%s %s%n", ConsoleText.INVALID_LIST, remove);
+        } else if (closest.size() == 1) {
+            gameList.removeFromList(closest.get(0));
+            printOutput("%s %s%n", ConsoleText.CLOSEST_MATCH, closest.get(0));
+        } else {
+            printOutput("%s %s%n", ConsoleText.DID_YOU_MEAN, String.join(", ", closest));
+        }
+    }
+
     /**
      * Process the list commands.
      */
@@ -205,7 +340,7 @@ public class ConsoleApp {
                     try {
                         gameList.addToList(toAdd, planner.filter(""));
                     } catch (IllegalArgumentException e) {
-                        printOutput("%s %s%n", ConsoleText.INVALID_LIST, toAdd);
+                        addClosest(toAdd);
                     }
                     break;
                 case CMD_REMOVE:
@@ -214,7 +349,11 @@ public class ConsoleApp {
                         break;
                     }
                     try {
-                        gameList.removeFromList(remove);
+                        if (isListedName(remove)) {
+                            gameList.removeFromList(remove);
+                        } else {
+                            removeClosest(remove);
+                        }
                     } catch (IllegalArgumentException e) {
                         printOutput("%s %s%n", ConsoleText.INVALID_LIST, remove);
                     }
@@ -223,9 +362,18 @@ public class ConsoleApp {
                     String filename = remainder().trim();
                     if (filename.isEmpty()) {
                         filename = DEFAULT_FILENAME;
-                        break;
                     }
-                    gameList.saveGame(filename);
+                    save(filename);
+                    break;
+                case CMD_UNDO:
+                    if (!(gameList instanceof GameList list) || !list.undo()) {
+                        printOutput("%s%n", ConsoleText.NOTHING_TO_UNDO);
+                    }
+                    break;
+                case CMD_REDO:
+                    if (!(gameList instanceof GameList list) || !list.redo()) {
+                        printOutput("%s%n", ConsoleText.NOTHING_TO_REDO);
+                    }
                     break;
                 case CMD_QUESTION:
                 case CMD_HELP:
@@ -240,6 +388,24 @@ public class ConsoleApp {
         }
     }
 
+    /**
+     * Saves the game list. A GameList is saved in the background so a large list does not hold
+     * up the next command; a failure is reported when it happens.
+     *
+     * @param filename the file to save to
+     */
+    private void save(String filename) {
+        if (gameList instanceof GameList list) {
+            list.saveGameAsync(filename).exceptionally(error -> {
+                System.err.println("Error saving file: " + filename + ": "
+                        + error.getCause().getMessage());
+                return null;
+            });
+        } else {
+            gameList.saveGame(filename);
+        }
+    }
+
     /**
      * Print the current list of games.
      */
@@ -328,11 +494,12 @@ public class ConsoleApp {
         /** various commands and text. */
         WELCOME, HELP, INVALID, GOODBYE, PROMPT, NO_FILTER, NO_GAMES_LIST, FILTERED_CLEAR, LIST_HELP, FILTER_HELP,
         /** commands continued. */
-        INVALID_LIST, EASTER_EGG, CMD_EASTER_EGG,
+        INVALID_LIST, CLOSEST_MATCH, DID_YOU_MEAN, EASTER_EGG, CMD_EASTER_EGG,
         /** commands general. */
-        CMD_EXIT, CMD_HELP, CMD_QUESTION, CMD_FILTER, CMD_LIST,
+        CMD_EXIT, CMD_HELP, CMD_QUESTION, CMD_FILTER, CMD_EXPLAIN, CMD_COMPLETE, CMD_LIST,
         /** commands specific to lists and filters. */
-        CMD_SHOW, CMD_ADD, CMD_REMOVE, CMD_CLEAR, CMD_SAVE,
+        CMD_SHOW, CMD_ADD, CMD_REMOVE, CMD_CLEAR, CMD_SAVE, CMD_UNDO, CMD_REDO, NOTHING_TO_UNDO,
+        NOTHING_TO_REDO,
         /** more options on commands. */
         CMD_OPTION_ALL, CMD_SORT_OPTION, CMD_SORT_OPTION_DIRECTION_ASC, CMD_SORT_OPTION_DIRECTION_DESC;
 
@@ -1,8 +1,12 @@
 package student;
 
+import student.catalog.NameKey;
+
 public class Game {
     /** The name of the game. */
     private final String name;
+    /** The name folded for sorting and matching, see {@link NameKey}. */
+    private final String nameKey;
     /** The minimum number of players required. */
     private final int minPlayers;
     /** The maximum number of players allowed. */
@@ -27,6 +31,7 @@ public class Game {
      */
     public Game(String name, int minPlayers, int maxPlayers, int playTime, double rating, double difficulty) {
         this.name = name;
+        this.nameKey = NameKey.of(name);
         this.minPlayers = minPlayers;
         this.maxPlayers = maxPlayers;
         this.minPlayTime = playTime;
@@ -44,6 +49,14 @@ public class Game {
         return name;
     }
     
+    /**
+     * Gets the name folded for sorting and matching: no accents, no case.
+     * @return the folded name
+     */
+    public String getNameKey() {
+        return nameKey;
+    }
+
     /**
      * Gets the minimum number of players required.
      * @return the minimum number of players
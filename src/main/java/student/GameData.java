@@ -22,7 +22,13 @@ public enum GameData {
     /** Enums based on whole int values in the csv file. */
     RANK("rank"), MIN_PLAYERS("minplayers"), MAX_PLAYERS("maxplayers"),
     /** More int based columns. */
-    MIN_TIME("minplaytime"), MAX_TIME("maxplaytime"), YEAR("yearpublished");
+    MIN_TIME("minplaytime"), MAX_TIME("maxplaytime"), YEAR("yearpublished"),
+    /**
+     * Pseudo-columns, not in the csv file: the ranges [minplayers, maxplayers] and
+     * [minplaytime, maxplaytime]. players==5 matches games that support 5 players, and
+     * time==45 games whose play time range includes 45 minutes; != matches the other games.
+     */
+    PLAYERS("players"), TIME("time");
 
     /** stores the original csv name in the enum. */
     private final String columnName;
@@ -45,6 +51,43 @@ public enum GameData {
         return columnName;
     }
 
+    /**
+     * Whether the column is a range of two other columns rather than a single value.
+     *
+     * @return true for PLAYERS and TIME
+     */
+    public boolean isInterval() {
+        return this == PLAYERS || this == TIME;
+    }
+
+    /**
+     * Gets the column holding the low end of a range column.
+     *
+     * @return MIN_PLAYERS or MIN_TIME
+     * @throws IllegalStateException if the column is not a range
+     */
+    public GameData lowerColumn() {
+        return switch (this) {
+            case PLAYERS -> MIN_PLAYERS;
+            case TIME -> MIN_TIME;
+            default -> throw new IllegalStateException(this + " is not a range column");
+        };
+    }
+
+    /**
+     * Gets the column holding the high end of a range column.
+     *
+     * @return MAX_PLAYERS or MAX_TIME
+     * @throws IllegalStateException if the column is not a range
+     */
+    public GameData upperColumn() {
+        return switch (this) {
+            case PLAYERS -> MAX_PLAYERS;
+            case TIME -> MAX_TIME;
+            default -> throw new IllegalStateException(this + " is not a range column");
+        };
+    }
+
     /**
      * Get the enum from the column name.
      * 
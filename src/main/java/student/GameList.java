@@ -3,17 +3,42 @@ package student;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
-import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import student.catalog.NameKey;
+import student.metrics.ListSaveEvent;
+import student.metrics.PlannerMetrics;
+import student.metrics.PlannerMetrics.Operation;
+import student.persist.ListJournal;
+import student.persist.ListWriter;
 
 public class GameList implements IGameList {
     /** List of board games stored in this collection. */
     private List<Game> games;
+    /** Writes saved lists in the background, shared by every list. */
+    private static final ListWriter WRITER = new ListWriter();
+
     /** Constant representing the "all" command for adding/removing games. */
     public static final String ADD_ALL = "all";
 
+    /** Most edits kept for undo. */
+    private static final int UNDO_LIMIT = 100;
+
+    /** Edits that can be undone, latest first. */
+    private final Deque<Change> undo = new ArrayDeque<>();
+    /** Edits undone that can be redone, latest first. */
+    private final Deque<Change> redo = new ArrayDeque<>();
+    /** The edit in progress, null between edits. */
+    private Change change;
+    /** Where edits are journaled, null if the list is not kept on disk. */
+    private ListJournal journal;
+
     /**
      * Constructs a new empty GameList.
      */
@@ -21,16 +46,33 @@ public class GameList implements IGameList {
         this.games = new ArrayList<>();
     }
 
+    /**
+     * Restores a list from its journal, and journals every edit made to it from then on. Ids
+     * that are no longer found are left out.
+     *
+     * @param journal the journal, already replayed
+     * @param lookup finds the game with a BGG id, null if there is none
+     * @return the list
+     */
+    public static GameList restore(ListJournal journal, IntFunction<BoardGame> lookup) {
+        GameList list = new GameList();
+        for (int id : journal.ids()) {
+            BoardGame game = lookup.apply(id);
+            if (game != null && !list.games.contains(game)) {
+                list.games.add(game);
+            }
+        }
+        list.journal = journal;
+        return list;
+    }
+
     /**
      * Adds a game to the list if it's a BoardGame and not already present.
      * @param game The game to add
      * @return true if the game was added successfully, false otherwise
      */
     public boolean addGame(Game game) {
-        if (game == null || games.contains(game)) {
-            return false;
-        }
-        return games.add(game);
+        return edit(() -> put(game));
     }
 
     /**
@@ -39,7 +81,7 @@ public class GameList implements IGameList {
      * @return true if the game was removed successfully, false otherwise
      */
     public boolean removeGame(Game game) {
-        return games.remove(game);
+        return edit(() -> drop(game));
     }
 
     /**
@@ -61,17 +103,145 @@ public class GameList implements IGameList {
 
     @Override
     public List<String> getGameNames() {
-        List<String> names = new ArrayList<>();
-        for (Game game : games) {
+        List<Game> sorted = new ArrayList<>(games);
+        sorted.sort(Comparator.comparing(Game::getNameKey));
+        List<String> names = new ArrayList<>(sorted.size());
+        for (Game game : sorted) {
             names.add(game.getName());
         }
-        Collections.sort(names, String.CASE_INSENSITIVE_ORDER);
         return names;
     }
 
     @Override
     public void clear() {
-        games.clear();
+        edit(() -> {
+            for (Game game : new ArrayList<>(games)) {
+                drop(game);
+            }
+            change.cleared = true;
+            return null;
+        });
+    }
+
+    /**
+     * Undoes the latest edit not undone yet.
+     *
+     * @return false if there was nothing to undo
+     */
+    public boolean undo() {
+        Change last = undo.poll();
+        if (last == null) {
+            return false;
+        }
+        Change inverse = last.inverse();
+        inverse.apply(games);
+        record(inverse);
+        redo.push(last);
+        return true;
+    }
+
+    /**
+     * Redoes the latest edit undone, if nothing else was edited since.
+     *
+     * @return false if there was nothing to redo
+     */
+    public boolean redo() {
+        Change next = redo.poll();
+        if (next == null) {
+            return false;
+        }
+        next.apply(games);
+        record(next);
+        undo.push(next);
+        return true;
+    }
+
+    /**
+     * Runs an edit of the list as one change: undone in one step and journaled in one write.
+     * Edits made inside another edit join it.
+     *
+     * @param <T> the result of the edit
+     * @param body the edit, which changes the list through put and drop
+     * @return the result of the edit
+     */
+    private <T> T edit(Supplier<T> body) {
+        if (change != null) {
+            return body.get();
+        }
+        change = new Change();
+        try {
+            return body.get();
+        } finally {
+            Change done = change;
+            change = null;
+            if (!done.steps.isEmpty()) {
+                record(done);
+                undo.push(done);
+                if (undo.size() > UNDO_LIMIT) {
+                    undo.removeLast();
+                }
+                redo.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds a game to the list as part of the edit in progress.
+     *
+     * @param game the game
+     * @return false if it was null or listed already
+     */
+    private boolean put(Game game) {
+        if (game == null || games.contains(game)) {
+            return false;
+        }
+        games.add(game);
+        change.steps.add(new Step(true, game));
+        return true;
+    }
+
+    /**
+     * Removes a game from the list as part of the edit in progress.
+     *
+     * @param game the game
+     * @return false if it was not listed
+     */
+    private boolean drop(Game game) {
+        if (!games.remove(game)) {
+            return false;
+        }
+        change.steps.add(new Step(false, game));
+        return true;
+    }
+
+    /**
+     * Appends a change to the journal, if the list has one. Only board games have an id to
+     * journal. A failed write is reported and the list keeps the change.
+     *
+     * @param done the change
+     */
+    private void record(Change done) {
+        if (journal == null) {
+            return;
+        }
+        if (done.cleared) {
+            journal.clear();
+        } else {
+            for (Step step : done.steps) {
+                if (step.game() instanceof BoardGame game) {
+                    if (step.added()) {
+                        journal.add(game.getId());
+                    } else {
+                        journal.remove(game.getId());
+                    }
+                }
+            }
+        }
+        try {
+            journal.commit();
+        } catch (IOException e) {
+            System.err.println("Error writing list journal: " + e.getMessage());
+        }
     }
 
     @Override
@@ -82,20 +252,59 @@ public class GameList implements IGameList {
     @Override
     public void saveGame(String filename) {
         try {
-            // Create directory if it doesn't exist
-            new File(filename).getParentFile().mkdirs();
-            try (PrintWriter writer = new PrintWriter(filename)) {
-                for (String name : getGameNames()) {
-                    writer.println(name);
-                }
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Error saving file: " + filename + ": " + e.getMessage());
+            saveGameAsync(filename).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Error saving file: " + filename + ": "
+                    + e.getCause().getMessage());
         }
     }
 
+    /**
+     * Saves the list to a file in the background, as {@link #saveGame(String)} does, without
+     * waiting for the write. Saves made in quick succession are written once, with the latest
+     * list (see {@link ListWriter}).
+     *
+     * @param filename the file to save the list to
+     * @return completes with the file once it is written, or exceptionally if it could not be
+     */
+    public CompletableFuture<Path> saveGameAsync(String filename) {
+        long start = PlannerMetrics.start();
+        ListSaveEvent event = new ListSaveEvent();
+        event.begin();
+        int count = games.size();
+        return WRITER.save(Path.of(filename), getGameNames()).whenComplete((file, error) -> {
+            event.end();
+            if (event.shouldCommit()) {
+                event.file = filename;
+                event.games = count;
+                event.commit();
+            }
+            PlannerMetrics.record(Operation.LIST, start);
+        });
+    }
+
     @Override
     public void addToList(String str, Stream<BoardGame> filtered) throws IllegalArgumentException {
+        long start = PlannerMetrics.start();
+        try {
+            edit(() -> {
+                addMatching(str, filtered);
+                return null;
+            });
+        } finally {
+            PlannerMetrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * Adds the games selected by str from the filtered stream.
+     *
+     * @param str the selection (all, a number, a range or a name)
+     * @param filtered the filtered games to select from
+     * @throws IllegalArgumentException if the selection is not valid
+     */
+    private void addMatching(String str, Stream<BoardGame> filtered)
+            throws IllegalArgumentException {
         List<BoardGame> filteredList = filtered.collect(Collectors.toList());
         
         if (filteredList.isEmpty()) {
@@ -103,7 +312,7 @@ public class GameList implements IGameList {
         }
 
         if (str.equalsIgnoreCase(ADD_ALL)) {
-            filteredList.forEach(game -> addGame((Game) game));
+            filteredList.forEach(this::put);
             return;
         }
 
@@ -113,7 +322,7 @@ public class GameList implements IGameList {
                 if (index < 0 || index >= filteredList.size()) {
                     throw new IllegalArgumentException("Invalid index");
                 }
-                addGame((Game) filteredList.get(index));
+                put(filteredList.get(index));
                 return;
             }
 
@@ -124,16 +333,17 @@ public class GameList implements IGameList {
                 if (start < 0 || end >= filteredList.size() || start > end) {
                     throw new IllegalArgumentException("Invalid range");
                 }
-                filteredList.subList(start, end + 1).forEach(game -> addGame((Game) game));
+                filteredList.subList(start, end + 1).forEach(this::put);
                 return;
             }
 
             // Match by game name
+            String key = NameKey.of(str);
             Optional<BoardGame> game = filteredList.stream()
-                    .filter(g -> g.getName().equalsIgnoreCase(str))
+                    .filter(g -> g.getNameKey().equals(key))
                     .findFirst();
             if (game.isPresent()) {
-                addGame((Game) game.get());
+                put(game.get());
             } else {
                 throw new IllegalArgumentException("Game not found");
             }
@@ -144,6 +354,24 @@ public class GameList implements IGameList {
 
     @Override
     public void removeFromList(String str) throws IllegalArgumentException {
+        long start = PlannerMetrics.start();
+        try {
+            edit(() -> {
+                removeMatching(str);
+                return null;
+            });
+        } finally {
+            PlannerMetrics.record(Operation.LIST, start);
+        }
+    }
+
+    /**
+     * Removes the games selected by str from the list.
+     *
+     * @param str the selection (all, a number, a range or a name)
+     * @throws IllegalArgumentException if the selection is not valid
+     */
+    private void removeMatching(String str) throws IllegalArgumentException {
         if (str.equalsIgnoreCase(ADD_ALL)) {
             clear();
             return;
@@ -155,7 +383,7 @@ public class GameList implements IGameList {
             if (index < 0 || index >= sortedGames.size()) {
                 throw new IllegalArgumentException("Invalid index");
             }
-            games.remove(sortedGames.get(index));
+            drop(sortedGames.get(index));
             return;
         }
 
@@ -167,17 +395,18 @@ public class GameList implements IGameList {
             if (start < 0 || end >= sortedGames.size() || start > end) {
                 throw new IllegalArgumentException("Invalid range");
             }
-            games.removeAll(sortedGames.subList(start, end + 1));
+            sortedGames.subList(start, end + 1).forEach(this::drop);
             return;
         }
 
-        games.removeIf(g -> g.getName().equalsIgnoreCase(str));
+        String key = NameKey.of(str);
+        games.stream().filter(g -> g.getNameKey().equals(key)).toList().forEach(this::drop);
     }
 
     private List<BoardGame> getSortedGames() {
         return games.stream()
                 .map(game -> (BoardGame) game)  // Explicitly cast Game to BoardGame
-                .sorted(Comparator.comparing(Game::getName, String.CASE_INSENSITIVE_ORDER))
+                .sorted(Comparator.comparing(Game::getNameKey))
                 .collect(Collectors.toList());
     }
 
@@ -187,8 +416,9 @@ public class GameList implements IGameList {
      * @return A formatted string containing game information, or null if game not found
      */
     public String getGameInfo(String name) {
+        String key = NameKey.of(name);
         return games.stream()
-                .filter(g -> g.getName().equalsIgnoreCase(name))
+                .filter(g -> g.getNameKey().equals(key))
                 .findFirst()
                 .map(g -> String.format("%s (%d-%d players, %d minutes)", 
                     g.getName(), g.getMinPlayers(), g.getMaxPlayers(), g.getMinPlayTime()))
@@ -209,5 +439,53 @@ public class GameList implements IGameList {
         }
         return result;
     }
-}
 
+    /**
+     * One game added to or removed from the list.
+     *
+     * @param added true if the game was added, false if removed
+     * @param game the game
+     */
+    private record Step(boolean added, Game game) {
+    }
+
+    /**
+     * The steps of one edit, in order.
+     */
+    private static final class Change {
+        /** The games added and removed. */
+        private final List<Step> steps = new ArrayList<>();
+        /** Whether the edit cleared the list, so it is journaled as one clear. */
+        private boolean cleared;
+
+        /**
+         * Builds the change that undoes this one: the steps reversed and inverted.
+         *
+         * @return the inverse
+         */
+        Change inverse() {
+            Change inverse = new Change();
+            for (int i = steps.size() - 1; i >= 0; i--) {
+                inverse.steps.add(new Step(!steps.get(i).added(), steps.get(i).game()));
+            }
+            return inverse;
+        }
+
+        /**
+         * Applies the steps to a list.
+         *
+         * @param games the list
+         */
+        void apply(List<Game> games) {
+            for (Step step : steps) {
+                if (step.added()) {
+                    if (!games.contains(step.game())) {
+                        games.add(step.game());
+                    }
+                } else {
+                    games.remove(step.game());
+                }
+            }
+        }
+    }
+}
@@ -1,28 +1,54 @@
 package student;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import student.catalog.CatalogDelta;
+import student.catalog.ColumnRegistry;
+import student.catalog.ColumnSpec;
+import student.catalog.GameCatalog;
+import student.catalog.IdTable;
+import student.metrics.CatalogLoadEvent;
+import student.metrics.PlannerMetrics;
+import student.metrics.PlannerMetrics.Operation;
 
 /**
  * Loads the games from the csv file into a set of BoardGame objects.
  * This file is stored in the resources folder, and while it is
- * passed in - often tends to be more fixed.
+ * passed in - often tends to be more fixed. A name that is not a resource is read from the
+ * file system, and a gzip compressed file (such as an archived .csv.gz export) is inflated as it
+ * is read, so only the parsed games are held in memory, never the whole text.
  * 
- * It assumes there are no comma's in the data (and does not handle errors if
- * there are extra commas like in the name).
+ * Fields holding commas are quoted, as BoardGameGeek quotes its lists of player counts
+ * ("2,3,4"); a quote inside a quoted field is written twice.
  * 
  */
 public final class GamesLoader {
     /** Standard csv delim. */
-    private static final String DELIMITER = ",";
+    private static final char DELIMITER = ',';
+    /** Quotes a field holding the delimiter. */
+    private static final char QUOTE = '"';
+    /** The first two bytes of a gzip stream. */
+    private static final int GZIP_MAGIC = GZIPInputStream.GZIP_MAGIC;
+    /** Buffer size for reading and inflating. */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /** The column of a delta file saying what to do with each row. */
+    private static final String DELTA_OP_COLUMN = "op";
 
     /** private constructor to prevent instantiation. */
     private GamesLoader() {
@@ -35,42 +61,335 @@ public final class GamesLoader {
      * @return a set of BoardGame objects
      */
     public static Set<BoardGame> loadGamesFile(String filename) {
+        Set<BoardGame> games = new LinkedHashSet<>();
+        for (Row row : load(filename, new ColumnRegistry())) {
+            games.add(row.game);
+        }
+        return games;
+    }
 
-        Set<BoardGame> games = new HashSet<>();
+    /**
+     * Loads the games from the csv file into a catalog, keeping the extra BoardGameGeek columns
+     * declared by {@link ColumnRegistry#bgg()} so they can be filtered and sorted on.
+     *
+     * @param filename the name of the file to load
+     * @return the catalog
+     */
+    public static GameCatalog loadCatalog(String filename) {
+        return loadCatalog(filename, ColumnRegistry.bgg());
+    }
 
-        List<String> lines;
-        try {
-            // this is so we can store the files in the resources folder
-            InputStream is = GamesLoader.class.getResourceAsStream(filename);
-            InputStreamReader isr = new InputStreamReader(is, StandardCharsets.UTF_8);
-            BufferedReader reader = new BufferedReader(isr);
-            lines = reader.lines().collect(Collectors.toList());
-        } catch (Exception e) {
+    /**
+     * Loads the games from the csv file into a catalog, keeping the extra columns a registry
+     * declares. A declared column missing from the file has no value for any game.
+     *
+     * Games sharing a BGG id under different names (BGA lists some variants that way) are all
+     * kept; a row repeating both the id and the name of an earlier one is dropped. Repeats are
+     * found by sorting on id and name, so games are never hashed.
+     *
+     * @param filename the name of the file to load
+     * @param registry the extra columns to keep
+     * @return the catalog
+     */
+    public static GameCatalog loadCatalog(String filename, ColumnRegistry registry) {
+        List<Row> rows = new ArrayList<>(load(filename, registry));
+        // stable, so the first of each repeat comes first
+        rows.sort(Comparator.comparingInt((Row row) -> row.game.getId())
+                .thenComparing(row -> row.game.getName()));
+        List<BoardGame> games = new ArrayList<>(rows.size());
+        Map<Integer, String[]> extraCells = new HashMap<>();
+        Row last = null;
+        for (Row row : rows) {
+            if (last != null && last.game.getId() == row.game.getId()
+                    && last.game.getName().equals(row.game.getName())) {
+                continue;
+            }
+            games.add(row.game);
+            if (row.cells != null) {
+                // the catalog keys extra cells by id, so games sharing one share its cells
+                extraCells.putIfAbsent(row.game.getId(), row.cells);
+            }
+            last = row;
+        }
+        return new GameCatalog(games, registry, extraCells);
+    }
+
+    /**
+     * Loads several collections into one catalog, with the extra BoardGameGeek columns of
+     * {@link ColumnRegistry#bgg()}.
+     *
+     * @param filenames the collections, oldest first
+     * @param policy which game to keep when collections share a BGG id
+     * @return the catalog
+     */
+    public static GameCatalog loadCatalog(List<String> filenames, ConflictPolicy policy) {
+        return loadCatalog(filenames, policy, ColumnRegistry.bgg());
+    }
+
+    /**
+     * Loads several collections into one catalog. The collections are parsed in parallel, then
+     * merged on BGG id in the order given: a row whose id was already seen, in the same
+     * collection or an earlier one, replaces the one kept if the policy says so, extra cells and
+     * all. Rows are only ever matched by id, through an {@link IdTable}; games are never hashed
+     * or compared for equality.
+     *
+     * @param filenames the collections, oldest first
+     * @param policy which game to keep when collections share a BGG id
+     * @param registry the extra columns to keep
+     * @return the catalog
+     */
+    public static GameCatalog loadCatalog(List<String> filenames, ConflictPolicy policy,
+            ColumnRegistry registry) {
+        List<List<Row>> sources = filenames.parallelStream()
+                .map(filename -> load(filename, registry)).toList();
+
+        int expected = sources.stream().mapToInt(List::size).max().orElse(0);
+        IdTable slots = new IdTable(expected);
+        List<Row> merged = new ArrayList<>(expected);
+        for (List<Row> source : sources) {
+            for (Row row : source) {
+                int slot = slots.get(row.game.getId());
+                if (slot < 0) {
+                    slots.put(row.game.getId(), merged.size());
+                    merged.add(row);
+                } else if (policy.replaces(merged.get(slot).game, row.game)) {
+                    merged.set(slot, row);
+                }
+            }
+        }
+
+        List<BoardGame> games = new ArrayList<>(merged.size());
+        Map<Integer, String[]> extraCells = new HashMap<>();
+        for (Row row : merged) {
+            games.add(row.game);
+            if (row.cells != null) {
+                extraCells.put(row.game.getId(), row.cells);
+            }
+        }
+        return new GameCatalog(games, registry, extraCells);
+    }
+
+    /**
+     * Loads a delta file with the extra BoardGameGeek columns of {@link ColumnRegistry#bgg()}, to
+     * apply to a catalog loaded with them.
+     *
+     * @param filename the name of the delta file
+     * @return the changes
+     */
+    public static CatalogDelta loadDelta(String filename) {
+        return loadDelta(filename, ColumnRegistry.bgg());
+    }
+
+    /**
+     * Loads a delta file: a collection csv with an extra op column, upsert or delete. An upsert
+     * row (or one with no op) is a full game row that adds or replaces the games with its
+     * objectid; a delete row only needs the objectid. Rows that cannot be read are skipped, as in
+     * a collection.
+     *
+     * @param filename the name of the delta file, read as a collection is
+     * @param registry the extra columns of the catalog the delta is for
+     * @return the changes, in file order
+     */
+    public static CatalogDelta loadDelta(String filename, ColumnRegistry registry) {
+        CatalogDelta delta = new CatalogDelta();
+        try (BufferedReader reader = open(filename)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return delta;
+            }
+            String[] header = split(headerLine);
+            Map<GameData, Integer> columnMap = processHeader(header);
+            if (!columnMap.containsKey(GameData.ID)) {
+                System.err.println("Error reading file: " + filename + " has no "
+                        + GameData.ID.getColumnName() + " column");
+                return delta;
+            }
+            int[] extraColumns = extraColumns(header, registry);
+            int opColumn = -1;
+            for (int i = 0; i < header.length; i++) {
+                if (header[i].trim().equalsIgnoreCase(DELTA_OP_COLUMN)) {
+                    opColumn = i;
+                }
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = split(line);
+                String op = opColumn >= 0 && opColumn < columns.length
+                        ? columns[opColumn].trim() : "";
+                if (op.equalsIgnoreCase("delete")) {
+                    try {
+                        delta.delete(Integer.parseInt(columns[columnMap.get(GameData.ID)].trim()));
+                    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                        // skip if there is an issue
+                    }
+                    continue;
+                }
+                BoardGame game = op.isEmpty() || op.equalsIgnoreCase("upsert")
+                        ? toBoardGame(columns, columnMap) : null;
+                if (game != null) {
+                    delta.upsert(game, extraCells(columns, extraColumns));
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
             System.err.println("Error reading file: " + e.getMessage());
-            return games;
         }
-        if (lines == null || lines.isEmpty()) {
-            return games;
+        return delta;
+    }
+
+    /**
+     * One parsed row of a collection: the game and its own extra cells, before merging.
+     */
+    private static final class Row {
+        /** The game. */
+        private final BoardGame game;
+        /** The extra cells of the row, null if no extra columns are kept. */
+        private final String[] cells;
+
+        /**
+         * Holds a parsed row.
+         *
+         * @param game the game
+         * @param cells the extra cells of the row, null for none
+         */
+        private Row(BoardGame game, String[] cells) {
+            this.game = game;
+            this.cells = cells;
         }
+    }
+
+    /**
+     * Loads the games, recording the load.
+     *
+     * @param filename the name of the file to load
+     * @param registry the extra columns to keep
+     * @return the rows read, in file order
+     */
+    private static List<Row> load(String filename, ColumnRegistry registry) {
+        long start = PlannerMetrics.start();
+        CatalogLoadEvent event = new CatalogLoadEvent();
+        event.begin();
+        List<Row> games = readGames(filename, event, registry);
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = filename;
+            event.gamesLoaded = games.size();
+            event.commit();
+        }
+        PlannerMetrics.record(Operation.LOAD, start);
+        return games;
+    }
+
+    /**
+     * Reads and parses the csv file. Every readable row is kept, repeated ids included, each
+     * with its own extra cells; repeats are resolved when the rows are merged.
+     *
+     * @param filename the name of the file to load
+     * @param event the load event, given the number of lines read
+     * @param registry the extra columns to keep
+     * @return the rows read, in file order
+     */
+    private static List<Row> readGames(String filename, CatalogLoadEvent event,
+            ColumnRegistry registry) {
+        List<Row> games = new ArrayList<>();
 
-        Map<GameData, Integer> columnMap = processHeader(lines.remove(0));
+        try (BufferedReader reader = open(filename)) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return games;
+            }
+            String[] header = split(headerLine);
+            Map<GameData, Integer> columnMap = processHeader(header);
+            int[] extraColumns = extraColumns(header, registry);
 
-        games = lines.stream().map(line -> toBoardGame(line, columnMap))
-                .filter(game -> game != null).collect(Collectors.toSet());
+            // one line at a time, so the text is never held whole
+            String line;
+            while ((line = reader.readLine()) != null) {
+                event.linesRead++;
+                String[] columns = split(line);
+                BoardGame game = toBoardGame(columns, columnMap);
+                if (game != null) {
+                    games.add(new Row(game, extraColumns.length == 0 ? null
+                            : extraCells(columns, extraColumns)));
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+        }
 
         return games;
 
     }
 
+    /**
+     * Opens a collection for reading: a resource if there is one by that name, so the files can
+     * be stored in the resources folder, and otherwise a file. The first bytes are checked for
+     * the gzip magic number rather than trusting the file extension, and a gzip stream is
+     * inflated as it is read.
+     *
+     * @param filename the resource or file name
+     * @return a reader of the text
+     * @throws IOException if there is no such resource or file, or it cannot be read
+     */
+    static BufferedReader open(String filename) throws IOException {
+        InputStream raw = GamesLoader.class.getResourceAsStream(filename);
+        if (raw == null) {
+            Path path = Path.of(filename);
+            if (!Files.isRegularFile(path)) {
+                throw new FileNotFoundException(filename);
+            }
+            raw = Files.newInputStream(path);
+        }
+        InputStream in = new BufferedInputStream(raw, BUFFER_SIZE);
+        try {
+            in.mark(2);
+            int magic = in.read() | (in.read() << 8);
+            in.reset();
+            if (magic == GZIP_MAGIC) {
+                in = new GZIPInputStream(in, BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+
+    /**
+     * Splits a csv line into its fields, keeping the delimiters inside quoted fields.
+     *
+     * @param line the line
+     * @return the fields, unquoted
+     */
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == QUOTE && quoted && i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                field.append(QUOTE);
+                i++;
+            } else if (c == QUOTE) {
+                quoted = !quoted;
+            } else if (c == DELIMITER && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
     /**
      * Converts a line from the csv file into a BoardGame object.
      * 
-     * @param line      the line to convert
+     * @param columns   the fields of the line to convert
      * @param columnMap the map of columns to index
      * @return a BoardGame object
      */
-    private static BoardGame toBoardGame(String line, Map<GameData, Integer> columnMap) {
-        String[] columns = line.split(DELIMITER);
+    private static BoardGame toBoardGame(String[] columns, Map<GameData, Integer> columnMap) {
         if (columns.length < columnMap.values().stream().max(Integer::compareTo).get()) {
             return null;
         }
@@ -93,6 +412,44 @@ public final class GamesLoader {
         }
     }
 
+    /**
+     * Picks the extra cells out of a line.
+     *
+     * @param columns the fields of the line
+     * @param extraColumns where each extra column is in the file, -1 if it is not
+     * @return the cells, in declaration order; null where the line has no such field
+     */
+    private static String[] extraCells(String[] columns, int[] extraColumns) {
+        String[] cells = new String[extraColumns.length];
+        for (int c = 0; c < cells.length; c++) {
+            int at = extraColumns[c];
+            cells[c] = at >= 0 && at < columns.length ? columns[at] : null;
+        }
+        return cells;
+    }
+
+    /**
+     * Finds where the extra columns a registry declares are in the file.
+     *
+     * @param columns the fields of the header line
+     * @param registry the extra columns
+     * @return the index of each declared column, in declaration order; -1 if it is not in the file
+     */
+    private static int[] extraColumns(String[] columns, ColumnRegistry registry) {
+        List<ColumnSpec> specs = registry.specs();
+        int[] found = new int[specs.size()];
+        for (int c = 0; c < found.length; c++) {
+            found[c] = -1;
+            for (int i = 0; i < columns.length; i++) {
+                if (specs.get(c).getCsvName().equalsIgnoreCase(columns[i].trim())) {
+                    found[c] = i;
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
     /**
      * Processes the header line to determine the column mapping.
      * 
@@ -100,12 +457,11 @@ public final class GamesLoader {
      * This makes it order independent by taking a moment to link the columns
      * with their actual index in the file.
      * 
-     * @param header the header line
+     * @param columns the fields of the header line
      * @return a map of column to index
      */
-    private static Map<GameData, Integer> processHeader(String header) {
+    private static Map<GameData, Integer> processHeader(String[] columns) {
         Map<GameData, Integer> columnMap = new HashMap<>();
-        String[] columns = header.split(DELIMITER);
         for (int i = 0; i < columns.length; i++) {
             try {
                 GameData col = GameData.fromColumnName(columns[i]);
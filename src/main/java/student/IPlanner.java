@@ -1,6 +1,13 @@
 package student;
 
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 import java.util.stream.Stream;
+import student.aggregate.ColumnHistogram;
+import student.aggregate.ColumnSummary;
+import student.rank.Dimension;
+import student.rank.ScoredGame;
 
 /**
  * Sets up filters for the board game data.
@@ -115,6 +122,162 @@ public interface IPlanner {
      */
     Stream<BoardGame> filter(String filter, GameData sortOn, boolean ascending);
 
+    /**
+     * Filters the board games, sorting on a column given by name: a {@link GameData} column, or
+     * an extra column the catalog was loaded with (see
+     * {@link GamesLoader#loadCatalog(String)}), such as numowned or bggrecagerange. Games with no
+     * value in an extra column come last; ties are sorted by name.
+     *
+     * @param filter The filter to apply to the board games.
+     * @param sortOn The name of the column to sort the results on.
+     * @param ascending Whether to sort the results in ascending order or descending order.
+     * @return A stream of board games that match the filter.
+     * @throws IllegalArgumentException if there is no column with that name.
+     */
+    Stream<BoardGame> filter(String filter, String sortOn, boolean ascending);
+
+    /**
+     * Explains how a filter would be run, sorted by name ascending.
+     *
+     * @param filter The filter to explain.
+     * @return A text report of the query plan and timings.
+     * @see #explain(String, GameData, boolean)
+     */
+    String explain(String filter);
+
+    /**
+     * Runs a filter and reports how it was run instead of the games it found.
+     *
+     * The report shows the parsed clauses, the access path used for each one (such as a full scan
+     * or an index), the estimated and actual number of rows left after each step, the sort
+     * strategy, and the time spent in every stage.
+     *
+     * @param filter The filter to explain.
+     * @param sortOn The column to sort the results on.
+     * @param ascending Whether to sort the results in ascending order or descending order.
+     * @return A text report of the query plan and timings.
+     */
+    String explain(String filter, GameData sortOn, boolean ascending);
+
+    /**
+     * Explains how a filter would be run, sorting on a column given by name, as
+     * {@link #filter(String, String, boolean)} does.
+     *
+     * @param filter The filter to explain.
+     * @param sortOn The name of the column to sort the results on.
+     * @param ascending Whether to sort the results in ascending order or descending order.
+     * @return A text report of the query plan and timings.
+     * @throws IllegalArgumentException if there is no column with that name.
+     */
+    String explain(String filter, String sortOn, boolean ascending);
+
+    /**
+     * Counts the games matching a filter, without building the list of games.
+     *
+     * @param filter The filter to apply to the board games.
+     * @return The number of matching games.
+     */
+    int count(String filter);
+
+    /**
+     * Counts the games matching a filter into equal width buckets of a column. The buckets span
+     * the column over the whole collection, so histograms of different filters line up.
+     *
+     * For players and time, a game counts in every bucket its range overlaps.
+     *
+     * @param filter The filter to apply to the board games.
+     * @param column The column to bucket, anything but NAME.
+     * @param buckets The number of buckets.
+     * @return The bucket counts.
+     */
+    ColumnHistogram histogram(String filter, GameData column, int buckets);
+
+    /**
+     * Summarizes a column over the games matching a filter: min, max, mean and percentiles.
+     *
+     * @param filter The filter to apply to the board games.
+     * @param column The column to summarize, a single numeric value (not NAME, players or time).
+     * @return The column summary.
+     */
+    ColumnSummary stats(String filter, GameData column);
+
+    /**
+     * Counts the games matching a filter per group of a column, such as per decade
+     * (GameData.YEAR, 10) or per player count (GameData.PLAYERS, 1).
+     *
+     * For players and time, a game counts in every group its range overlaps.
+     *
+     * @param filter The filter to apply to the board games.
+     * @param column The column to group on, anything but NAME.
+     * @param width The group width; each key is the low end of its group.
+     * @return The games per group, in key order, empty groups left out.
+     */
+    SortedMap<Double, Integer> groupBy(String filter, GameData column, double width);
+
+    /**
+     * Finds the K best games matching a filter by a weighted blend of columns, such as
+     * {RATING: 0.6, DIFFICULTY: -0.3, YEAR: 0.1}.
+     *
+     * Every column is scaled to 0..1 over the whole collection before it is weighted, so a weight
+     * says how much the column matters, not how big its numbers are. A negative weight prefers low
+     * values. Only as many games as needed are scored, so this stays fast on large collections.
+     *
+     * @param filter The filter to apply to the board games.
+     * @param weights The weight of each column (not NAME, players or time).
+     * @param k The number of games wanted.
+     * @return Up to k games with their scores, best first.
+     */
+    List<ScoredGame> top(String filter, Map<GameData, Double> weights, int k);
+
+    /**
+     * Finds the games matching a filter that no other matching game beats on every dimension at
+     * once: the best trade-offs. For example, skyline("", Dimension.high(GameData.RATING),
+     * Dimension.low(GameData.DIFFICULTY), Dimension.low(GameData.MAX_TIME)) gives the games for
+     * which no other game is rated higher, lighter and shorter all together.
+     *
+     * @param filter The filter to apply to the board games.
+     * @param dimensions The columns to compare on (not NAME, players or time), and which way is
+     *        better on each.
+     * @return The skyline games, sorted by name.
+     */
+    List<BoardGame> skyline(String filter, Dimension... dimensions);
+
+    /**
+     * Finds the games most like a game: closest on player counts, play times, difficulty, rating
+     * and year, each scaled to the same 0..1 range.
+     *
+     * @param id The BGG id of the game to match.
+     * @param k The number of games wanted.
+     * @param filter A filter the similar games must match, or empty for any game.
+     * @return Up to k games, most similar first, not including the game itself. Empty if no game
+     *         has that id.
+     */
+    List<BoardGame> similarTo(int id, int k, String filter);
+
+    /**
+     * Completes the start of a game name: the best games whose name starts with a prefix,
+     * ignoring case. Only the games with that prefix are looked at.
+     *
+     * @param prefix The start of the name typed so far.
+     * @param rankBy RANK (best rank first) or RATING (highest rating first).
+     * @param n The number of games wanted.
+     * @return Up to n games, best first.
+     * @throws IllegalArgumentException if rankBy is not RANK or RATING.
+     */
+    List<BoardGame> complete(String prefix, GameData rankBy, int n);
+
+    /**
+     * Finds the games whose name is closest to a name that may have typos, ignoring case. A
+     * name of up to seven letters may be one edit (a letter added, removed or changed) away,
+     * longer names up to three.
+     *
+     * @param name The name looked up.
+     * @param limit The largest number of edits allowed, such as
+     *        {@link student.catalog.EditDistance#limitFor(String)}.
+     * @return The games the fewest edits away, sorted by name. Empty if none is within limit.
+     */
+    List<BoardGame> closestNames(String name, int limit);
+
     /**
      * Resets the collection to have no filters applied.
      */
@@ -38,6 +38,12 @@ public enum Operations {
 
     /** Represents equality comparison operation (=). */
     EQUALS("="),
+    /** Represents inequality comparison operation (!=). */
+    NOT_EQUALS("!="),
+    /** Represents the contains text operation (~=), only used for names. */
+    CONTAINS("~="),
+    /** Represents the close to text operation (%=), names within a few typos, only for names. */
+    FUZZY("%="),
     /** Represents greater than comparison operation (>). */
     GREATER_THAN(">"),
     /** Represents less than comparison operation (<). */
@@ -98,6 +104,12 @@ public enum Operations {
             return GREATER_THAN;
         } else if (str.contains("<")) {
             return LESS_THAN;
+        } else if (str.contains("!=")) {
+            return NOT_EQUALS;
+        } else if (str.contains("~=")) {
+            return CONTAINS;
+        } else if (str.contains("%=")) {
+            return FUZZY;
         } else if (str.contains("=")) {
             return EQUALS;
         }
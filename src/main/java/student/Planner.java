@@ -1,15 +1,37 @@
 package student;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.stream.Stream;
-import java.util.stream.Collectors;
+import student.aggregate.Aggregations;
+import student.aggregate.ColumnHistogram;
+import student.aggregate.ColumnSummary;
+import student.catalog.ExtraColumn;
+import student.catalog.GameCatalog;
+import student.filter.ExtraFilter;
+import student.filter.Filter;
+import student.filter.FilterEvaluator;
+import student.filter.FilterExpression;
+import student.filter.FilterFactory;
+import student.filter.QueryProfile;
+import student.metrics.FilterCompileEvent;
+import student.metrics.FilterScanEvent;
+import student.metrics.PlannerMetrics;
+import student.metrics.PlannerMetrics.Operation;
+import student.metrics.SortEvent;
+import student.rank.Dimension;
+import student.rank.ScoredGame;
+import student.rank.Skyline;
+import student.rank.ThresholdTopK;
 
 public class Planner implements IPlanner {
-    /** List containing all board games available for planning. */
-    private final List<BoardGame> allGames;
+    /** All board games available for planning, with their column statistics. */
+    private final GameCatalog catalog;
 
     /**
      * Constructs a new Planner with the given set of board games.
@@ -17,7 +39,16 @@ public class Planner implements IPlanner {
      * @param games Set of board games to be managed by the planner
      */
     public Planner(Set<BoardGame> games) {
-        this.allGames = new ArrayList<>(games);
+        this(new GameCatalog(games));
+    }
+
+    /**
+     * Constructs a new Planner over an already built catalog.
+     *
+     * @param catalog the games to be managed by the planner
+     */
+    public Planner(GameCatalog catalog) {
+        this.catalog = catalog;
     }
 
     @Override
@@ -27,8 +58,145 @@ public class Planner implements IPlanner {
 
     @Override
     public Stream<BoardGame> filter(String filter, GameData sortOn, boolean ascending) {
+        return run(filter, sortOn, ascending, null).stream();
+    }
+
+    @Override
+    public String explain(String filter) {
+        return explain(filter, GameData.NAME, true);
+    }
+
+    @Override
+    public String explain(String filter, GameData sortOn, boolean ascending) {
+        QueryProfile profile = new QueryProfile(filter, catalog.size());
+        run(filter, sortOn, ascending, profile);
+        return profile.toString();
+    }
+
+    @Override
+    public String explain(String filter, String sortOn, boolean ascending) {
+        ExtraColumn extra = extraSortColumn(sortOn);
+        if (extra == null) {
+            return explain(filter, GameData.fromString(sortOn), ascending);
+        }
+        QueryProfile profile = new QueryProfile(filter, catalog.size());
+        runOnExtra(filter, sortOn, extra, ascending, profile);
+        return profile.toString();
+    }
+
+    @Override
+    public Stream<BoardGame> filter(String filter, String sortOn, boolean ascending) {
+        ExtraColumn extra = extraSortColumn(sortOn);
+        if (extra == null) {
+            return filter(filter, GameData.fromString(sortOn), ascending);
+        }
+        return runOnExtra(filter, sortOn, extra, ascending, null).stream();
+    }
+
+    /**
+     * Finds the extra column to sort on by name, when it is not a {@link GameData} column.
+     *
+     * @param sortOn the column name
+     * @return the extra column, or null if the name is a GameData column
+     * @throws IllegalArgumentException if there is no column with that name
+     */
+    private ExtraColumn extraSortColumn(String sortOn) {
+        try {
+            GameData.fromString(sortOn);
+            return null;
+        } catch (IllegalArgumentException e) {
+            ExtraColumn extra = catalog.extraColumn(sortOn);
+            if (extra == null) {
+                throw new IllegalArgumentException("No column with name " + sortOn);
+            }
+            return extra;
+        }
+    }
+
+    /**
+     * Runs a query sorted on an extra column: applies the filter, then sorts by the column's
+     * values, ties by name.
+     *
+     * @param filter the filter string
+     * @param sortOn the column name, for the profile
+     * @param extra the column to sort on
+     * @param ascending whether to sort ascending
+     * @param profile where to record each stage, or null when not explaining
+     * @return the sorted games matching the filter
+     */
+    private List<BoardGame> runOnExtra(String filter, String sortOn, ExtraColumn extra,
+            boolean ascending, QueryProfile profile) {
+        BitSet rows = match(filter, profile);
+        long start = PlannerMetrics.start();
+        long sortStart = profile == null ? 0 : System.nanoTime();
+        List<Integer> order = new ArrayList<>(rows.cardinality());
+        rows.stream().forEach(order::add);
+        order.sort((a, b) -> {
+            int byValue = extra.compare(a, b, ascending);
+            return byValue != 0 ? byValue
+                    : catalog.get(a).getNameKey().compareTo(catalog.get(b).getNameKey());
+        });
+        List<BoardGame> sorted = new ArrayList<>(order.size());
+        order.forEach(row -> sorted.add(catalog.get(row)));
+        if (profile != null) {
+            profile.sorted(String.format("row sort on extra column %s %s", sortOn,
+                    ascending ? "asc" : "desc"), sorted.size(), System.nanoTime() - sortStart);
+        }
+        PlannerMetrics.record(Operation.SORT, start);
+        PlannerMetrics.rowsReturned(sorted.size());
+        return sorted;
+    }
+
+    /**
+     * Runs a query: applies the filter, then sorts.
+     *
+     * @param filter the filter string
+     * @param sortOn the column to sort on
+     * @param ascending whether to sort ascending
+     * @param profile where to record each stage, or null when not explaining
+     * @return the sorted games matching the filter
+     */
+    private List<BoardGame> run(String filter, GameData sortOn, boolean ascending,
+            QueryProfile profile) {
+        long allocationMark = PlannerMetrics.allocationMark();
+        BitSet rows = match(filter, profile);
+        List<BoardGame> sorted = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            sorted.add(catalog.get(row));
+        }
+
+        long start = PlannerMetrics.start();
+        long sortStart = profile == null ? 0 : System.nanoTime();
+        SortEvent event = new SortEvent();
+        event.begin();
+        sorted.sort(comparatorFor(sortOn, ascending));
+        event.end();
+        if (event.shouldCommit()) {
+            event.column = sortOn.name();
+            event.ascending = ascending;
+            event.rows = sorted.size();
+            event.commit();
+        }
+        if (profile != null) {
+            profile.sorted(String.format("comparator sort on %s %s", sortOn,
+                    ascending ? "asc" : "desc"), sorted.size(), System.nanoTime() - sortStart);
+        }
+        PlannerMetrics.record(Operation.SORT, start);
+        PlannerMetrics.rowsReturned(sorted.size());
+        PlannerMetrics.recordAllocation(allocationMark);
+        return sorted;
+    }
+
+    /**
+     * Builds the comparator used to sort on a column.
+     *
+     * @param sortOn the column to sort on
+     * @param ascending whether to sort ascending
+     * @return the comparator
+     */
+    private static Comparator<BoardGame> comparatorFor(GameData sortOn, boolean ascending) {
         Comparator<BoardGame> comparator = switch (sortOn) {
-            case NAME -> Comparator.comparing(BoardGame::getName, String.CASE_INSENSITIVE_ORDER);
+            case NAME -> Comparator.comparing(BoardGame::getNameKey);
             case RATING -> Comparator.comparing(BoardGame::getRating);
             case DIFFICULTY -> Comparator.comparing(BoardGame::getDifficulty);
             case MIN_TIME -> Comparator.comparing(BoardGame::getMinPlayTime);
@@ -38,116 +206,114 @@ public class Planner implements IPlanner {
             case RANK -> Comparator.comparing(BoardGame::getRank);
             case YEAR -> Comparator.comparing(BoardGame::getYearPublished);
             case ID -> Comparator.comparing(BoardGame::getId);
+            case PLAYERS -> Comparator.comparing(BoardGame::getMinPlayers)
+                    .thenComparing(BoardGame::getMaxPlayers);
+            case TIME -> Comparator.comparing(BoardGame::getMinPlayTime)
+                    .thenComparing(BoardGame::getMaxPlayTime);
         };
 
         if (!ascending) {
             comparator = comparator.reversed();
         }
+        return comparator;
+    }
 
-        if (filter == null || filter.trim().isEmpty()) {
-            return allGames.stream().sorted(comparator);
-        }
-
-        String[] filters = filter.split(",");
-        List<BoardGame> filteredList = new ArrayList<>(allGames);
-
-        for (String f : filters) {
-            String filterStr = f.trim();
-            String filterLower = filterStr.toLowerCase();
-            System.out.println("Processing filter: " + filterStr);
-
-            filteredList = filteredList.stream().filter(game -> {
-                if (filterLower.startsWith("name")) {
-                    String gameName = game.getName();
-                    
-                    // Handle name operators in order of length (longest first)
-                    if (filterLower.contains(">=")) {
-                        String value = filterStr.substring(filterStr.indexOf(">=") + 2).trim();
-                        return gameName.compareToIgnoreCase(value) >= 0;
-                    } else if (filterLower.contains("<=")) {
-                        String value = filterStr.substring(filterStr.indexOf("<=") + 2).trim();
-                        return gameName.compareToIgnoreCase(value) <= 0;
-                    } else if (filterLower.contains("==")) {
-                        String value = filterStr.substring(filterStr.indexOf("==") + 2).trim();
-                        return gameName.equalsIgnoreCase(value);
-                    } else if (filterLower.contains("!=")) {
-                        String value = filterStr.substring(filterStr.indexOf("!=") + 2).trim();
-                        return !gameName.equalsIgnoreCase(value);
-                    } else if (filterLower.contains("~=")) {
-                        String value = filterStr.substring(filterStr.indexOf("~=") + 2).trim();
-                        return gameName.toLowerCase().contains(value.toLowerCase());
-                    } else if (filterLower.contains(">")) {
-                        String value = filterStr.substring(filterStr.indexOf(">") + 1).trim();
-                        return gameName.compareToIgnoreCase(value) > 0;
-                    } else if (filterLower.contains("<")) {
-                        String value = filterStr.substring(filterStr.indexOf("<") + 1).trim();
-                        return gameName.compareToIgnoreCase(value) < 0;
-                    }
+    /**
+     * Finds the rows matching a filter.
+     *
+     * The expression is evaluated as row sets over the catalog (see {@link FilterEvaluator}):
+     * numeric clauses probe the column's range index, and the children of an and run in cost
+     * order, the ones that throw away the most rows for the least work first, each only on the
+     * rows the previous ones kept.
+     *
+     * @param filter the filter string, empty or null for every row
+     * @param profile where to record each step, or null when not explaining
+     * @return the matching row ids
+     */
+    private BitSet match(String filter, QueryProfile profile) {
+        long start = PlannerMetrics.start();
+        BitSet all = new BitSet(catalog.size());
+        all.set(0, catalog.size());
+        long parseStart = profile == null ? 0 : System.nanoTime();
+        FilterExpression expression = null;
+        if (filter != null && !filter.isBlank()) {
+            try {
+                expression = compile(filter);
+            } catch (IllegalArgumentException e) {
+                if (profile != null) {
+                    profile.parsed(-1, System.nanoTime() - parseStart);
                 }
+                PlannerMetrics.record(Operation.FILTER, start);
+                return new BitSet(); // an unknown column or bad value excludes every game
+            }
+        }
+        if (profile != null) {
+            profile.parsed(expression == null ? 0 : expression.clauseCount(),
+                    System.nanoTime() - parseStart);
+        }
+        if (expression == null) {
+            PlannerMetrics.record(Operation.FILTER, start);
+            return all;
+        }
 
-                // Handle numeric filters
-                if (filterLower.replaceAll("[^a-z]", "").toLowerCase().matches(".*(minplayers|maxplayers|mintime|"
-                        + "minplaytime|maxtime|maxplaytime|difficulty|rating|rank|yearpublished|year|id).*")) {
-                    // Extract the field name before the operator
-                    String field = filterLower.split("[<>=!~]+")[0].replaceAll("[^a-z]", "").toLowerCase();
-                    String operator;
-                    String value;
-                    
-                    if (filterLower.contains("==")) {
-                        operator = "==";
-                        value = filterStr.substring(filterStr.indexOf("==") + 2).trim();
-                    } else if (filterLower.contains(">=")) {
-                        operator = ">=";
-                        value = filterStr.substring(filterStr.indexOf(">=") + 2).trim();
-                    } else if (filterLower.contains(">")) {
-                        operator = ">";
-                        value = filterStr.substring(filterStr.indexOf(">") + 1).trim();
-                    } else if (filterLower.contains("<=")) {
-                        operator = "<=";
-                        value = filterStr.substring(filterStr.indexOf("<=") + 2).trim();
-                    } else if (filterLower.contains("<")) {
-                        operator = "<";
-                        value = filterStr.substring(filterStr.indexOf("<") + 1).trim();
-                    } else if (filterLower.contains("!=")) {
-                        operator = "!=";
-                        value = filterStr.substring(filterStr.indexOf("!=") + 2).trim();
-                    } else {
-                        return false;
-                    }
+        FilterScanEvent event = new FilterScanEvent();
+        event.begin();
+        FilterEvaluator evaluator = new FilterEvaluator(catalog, profile);
+        BitSet rows = evaluator.evaluate(expression);
+        event.end();
+        PlannerMetrics.rowsScanned(evaluator.getRowsScanned());
+        if (event.shouldCommit()) {
+            event.filter = filter;
+            event.clauses = expression.clauseCount();
+            event.accessPath = evaluator.getAccessPaths();
+            event.rowsScanned = evaluator.getRowsScanned();
+            event.rowsReturned = rows.cardinality();
+            event.commit();
+        }
+        if (profile != null) {
+            profile.scanned(evaluator.getAccessPaths(), evaluator.getRowsScanned());
+        }
+        PlannerMetrics.record(Operation.FILTER, start);
+        return rows;
+    }
 
-                    double numericValue = Double.parseDouble(value);
-                    double fieldValue = switch (field) {
-                        case "minplayers" -> game.getMinPlayers();
-                        case "maxplayers" -> game.getMaxPlayers();
-                        case "mintime", "minplaytime" -> game.getMinPlayTime();
-                        case "maxtime", "maxplaytime" -> game.getMaxPlayTime();
-                        case "difficulty" -> game.getDifficulty();
-                        case "rating" -> game.getRating();
-                        case "rank" -> game.getRank();
-                        case "year", "yearpublished" -> game.getYearPublished();
-                        case "id" -> game.getId();
-                        default -> 0;
-                    };
-
-                    return switch (operator) {
-                        case ">" -> fieldValue > numericValue;
-                        case "<" -> fieldValue < numericValue;
-                        case ">=" -> fieldValue >= numericValue;
-                        case "<=" -> fieldValue <= numericValue;
-                        case "==" -> fieldValue == numericValue;
-                        case "!=" -> fieldValue != numericValue;
-                        default -> false;
-                    };
+    /**
+     * Parses the filter string into an expression.
+     *
+     * @param filter the filter string
+     * @return the expression, or null if the filter has no clauses
+     * @throws IllegalArgumentException if the filter is not valid (nothing can match)
+     */
+    private FilterExpression compile(String filter) {
+        FilterCompileEvent event = new FilterCompileEvent();
+        event.begin();
+        FilterExpression expression = null;
+        boolean valid = false;
+        try {
+            expression = FilterFactory.createExpression(filter);
+            if (expression != null) {
+                for (Filter clause : expression.clauses()) {
+                    if (clause instanceof ExtraFilter extra) {
+                        ExtraColumn column = catalog.extraColumn(extra.getColumnName());
+                        if (column == null) {
+                            throw new IllegalArgumentException("No column with name "
+                                    + extra.getColumnName());
+                        }
+                        column.matcher(clause.getOperator(), clause.getValue()); // checks the value
+                    }
                 }
-
-                return false;  // If we don't recognize the filter type, exclude the game
-            }).toList();
-            System.out.println("Filtered list: " + filteredList.stream()
-                .map(BoardGame::getName)
-                .collect(Collectors.joining(", ")));
+            }
+            valid = true;
+            return expression;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.filter = filter;
+                event.clauses = expression == null ? 0 : expression.clauseCount();
+                event.valid = valid;
+                event.commit();
+            }
         }
-
-        return filteredList.stream().sorted(comparator);
     }
 
     @Override
@@ -155,6 +321,94 @@ public class Planner implements IPlanner {
         return filter(filter, sortOn, true);
     }
 
+    @Override
+    public int count(String filter) {
+        return match(filter, null).cardinality();
+    }
+
+    @Override
+    public ColumnHistogram histogram(String filter, GameData column, int buckets) {
+        return Aggregations.histogram(catalog, match(filter, null), column, buckets);
+    }
+
+    @Override
+    public ColumnSummary stats(String filter, GameData column) {
+        return Aggregations.summarize(catalog, match(filter, null), column);
+    }
+
+    @Override
+    public SortedMap<Double, Integer> groupBy(String filter, GameData column, double width) {
+        return Aggregations.groupBy(catalog, match(filter, null), column, width);
+    }
+
+    @Override
+    public List<ScoredGame> top(String filter, Map<GameData, Double> weights, int k) {
+        BitSet rows = match(filter, null);
+        long start = PlannerMetrics.start();
+        ThresholdTopK query = new ThresholdTopK(catalog);
+        List<ScoredGame> best = query.top(rows, weights, k);
+        PlannerMetrics.record(Operation.SORT, start);
+        PlannerMetrics.rowsScanned(query.getRowsScored());
+        PlannerMetrics.rowsReturned(best.size());
+        return best;
+    }
+
+    @Override
+    public List<BoardGame> skyline(String filter, Dimension... dimensions) {
+        BitSet rows = match(filter, null);
+        long start = PlannerMetrics.start();
+        List<BoardGame> skyline = new ArrayList<>();
+        for (int row : Skyline.of(catalog, rows, dimensions)) {
+            skyline.add(catalog.get(row));
+        }
+        skyline.sort(comparatorFor(GameData.NAME, true));
+        PlannerMetrics.record(Operation.SORT, start);
+        PlannerMetrics.rowsScanned(rows.cardinality());
+        PlannerMetrics.rowsReturned(skyline.size());
+        return skyline;
+    }
+
+    @Override
+    public List<BoardGame> similarTo(int id, int k, String filter) {
+        int row = catalog.rowOf(id);
+        if (row < 0) {
+            return List.of();
+        }
+        BitSet allowed = filter == null || filter.isBlank() ? null : match(filter, null);
+        long start = PlannerMetrics.start();
+        List<BoardGame> similar = new ArrayList<>();
+        for (int match : catalog.similar(row, k, allowed)) {
+            similar.add(catalog.get(match));
+        }
+        PlannerMetrics.record(Operation.SORT, start);
+        PlannerMetrics.rowsReturned(similar.size());
+        return similar;
+    }
+
+    @Override
+    public List<BoardGame> complete(String prefix, GameData rankBy, int n) {
+        long start = PlannerMetrics.start();
+        List<BoardGame> completions = new ArrayList<>();
+        for (int row : catalog.nameIndex().complete(prefix, rankBy, n)) {
+            completions.add(catalog.get(row));
+        }
+        PlannerMetrics.record(Operation.FILTER, start);
+        PlannerMetrics.rowsReturned(completions.size());
+        return completions;
+    }
+
+    @Override
+    public List<BoardGame> closestNames(String name, int limit) {
+        long start = PlannerMetrics.start();
+        List<BoardGame> closest = new ArrayList<>();
+        for (int row : catalog.closestNames(name, limit)) {
+            closest.add(catalog.get(row));
+        }
+        closest.sort(comparatorFor(GameData.NAME, true));
+        PlannerMetrics.record(Operation.FILTER, start);
+        return closest;
+    }
+
     @Override
     public void reset() {
         // Reset operation is not provided in the original code or the new implementation
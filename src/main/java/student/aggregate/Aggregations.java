@@ -0,0 +1,185 @@
+package student.aggregate;
+
+import java.util.BitSet;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import student.GameData;
+import student.catalog.ColumnStats;
+import student.catalog.GameCatalog;
+
+/**
+ * Aggregates over the rows a filter matched, for facet counts and summaries.
+ *
+ * Everything here reads the catalog's primitive columns and indexes for the rows in a bitset, in
+ * a single pass, so no game objects are looked at and no result list is built.
+ *
+ * A range column (players, time) counts a game in every bucket its range overlaps: a game for 2
+ * to 4 players is in the 2, 3 and 4 player groups.
+ */
+public final class Aggregations {
+    /** Most buckets a group by may create, to catch a width far too small for the column. */
+    private static final int MAX_GROUPS = 1 << 20;
+
+    /** Utility class. */
+    private Aggregations() {
+    }
+
+    /**
+     * Summarizes a numeric column over some rows.
+     *
+     * @param catalog the catalog
+     * @param rows the matching rows
+     * @param column the column, anything but NAME or a range column
+     * @return min, max, mean and percentiles of the column
+     * @throws IllegalArgumentException if the column is not a single numeric value
+     */
+    public static ColumnSummary summarize(GameCatalog catalog, BitSet rows, GameData column) {
+        if (catalog.index(column) == null) {
+            throw new IllegalArgumentException("Cannot summarize column " + column);
+        }
+        return new ColumnSummary(column, catalog.index(column).valuesOf(rows));
+    }
+
+    /**
+     * Counts some rows into equal width buckets spanning the column's catalog range.
+     *
+     * @param catalog the catalog
+     * @param rows the matching rows
+     * @param column the column, anything but NAME
+     * @param buckets the number of buckets, at least 1
+     * @return the bucket counts
+     * @throws IllegalArgumentException if the column is NAME or buckets is less than 1
+     */
+    public static ColumnHistogram histogram(GameCatalog catalog, BitSet rows, GameData column,
+            int buckets) {
+        if (buckets < 1 || column == GameData.NAME) {
+            throw new IllegalArgumentException("Cannot make " + buckets + " buckets of " + column);
+        }
+        double low = lowest(catalog, column);
+        double high = highest(catalog, column);
+        double width = catalog.size() == 0 ? 0 : (high - low) / buckets;
+        int[] counts = new int[buckets];
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            int first = bucket(low(catalog, row, column), low, width, buckets);
+            int last = bucket(high(catalog, row, column), low, width, buckets);
+            for (int b = first; b <= last; b++) {
+                counts[b]++;
+            }
+        }
+        return new ColumnHistogram(column, low, width, counts);
+    }
+
+    /**
+     * Counts some rows by value, rounded down to a multiple of width: year with width 10 counts
+     * games per decade, players with width 1 per player count.
+     *
+     * @param catalog the catalog
+     * @param rows the matching rows
+     * @param column the column, anything but NAME
+     * @param width the group width, above 0
+     * @return the games per group, keyed by the low end of the group, empty groups left out
+     * @throws IllegalArgumentException if the column is NAME or the width would make too many
+     *         groups
+     */
+    public static SortedMap<Double, Integer> groupBy(GameCatalog catalog, BitSet rows,
+            GameData column, double width) {
+        SortedMap<Double, Integer> groups = new TreeMap<>();
+        if (column == GameData.NAME || !(width > 0)) {
+            throw new IllegalArgumentException("Cannot group " + column + " by " + width);
+        }
+        if (catalog.size() == 0) {
+            return groups;
+        }
+        long first = (long) Math.floor(lowest(catalog, column) / width);
+        long last = (long) Math.floor(highest(catalog, column) / width);
+        if (last - first >= MAX_GROUPS) {
+            throw new IllegalArgumentException("Group width " + width + " is too small for "
+                    + column);
+        }
+        int[] counts = new int[(int) (last - first + 1)];
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            long from = (long) Math.floor(low(catalog, row, column) / width);
+            long to = (long) Math.floor(high(catalog, row, column) / width);
+            for (long g = from; g <= to; g++) {
+                counts[(int) (g - first)]++;
+            }
+        }
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                groups.put((first + i) * width, counts[i]);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Finds the bucket of a value, clamped to the buckets.
+     *
+     * @param value the value
+     * @param low the low end of the first bucket
+     * @param width the bucket width
+     * @param buckets the number of buckets
+     * @return the bucket
+     */
+    private static int bucket(double value, double low, double width, int buckets) {
+        if (width == 0) {
+            return 0;
+        }
+        return Math.max(0, Math.min(buckets - 1, (int) ((value - low) / width)));
+    }
+
+    /**
+     * Reads the value of a row, or the low end of its range for a range column.
+     *
+     * @param catalog the catalog
+     * @param row the row id
+     * @param column the column
+     * @return the value
+     */
+    private static double low(GameCatalog catalog, int row, GameData column) {
+        return catalog.value(row, column.isInterval() ? column.lowerColumn() : column);
+    }
+
+    /**
+     * Reads the value of a row, or the high end of its range for a range column. A range whose
+     * high end is below its low end counts as its low end alone.
+     *
+     * @param catalog the catalog
+     * @param row the row id
+     * @param column the column
+     * @return the value
+     */
+    private static double high(GameCatalog catalog, int row, GameData column) {
+        if (!column.isInterval()) {
+            return catalog.value(row, column);
+        }
+        return Math.max(low(catalog, row, column), catalog.value(row, column.upperColumn()));
+    }
+
+    /**
+     * The smallest value of a column over the catalog.
+     *
+     * @param catalog the catalog
+     * @param column the column
+     * @return the minimum
+     */
+    private static double lowest(GameCatalog catalog, GameData column) {
+        ColumnStats stats = catalog.stats(column.isInterval() ? column.lowerColumn() : column);
+        return stats.min();
+    }
+
+    /**
+     * The largest value of a column over the catalog, including the low ends of ranges.
+     *
+     * @param catalog the catalog
+     * @param column the column
+     * @return the maximum
+     */
+    private static double highest(GameCatalog catalog, GameData column) {
+        if (!column.isInterval()) {
+            return catalog.stats(column).max();
+        }
+        return Math.max(catalog.stats(column.lowerColumn()).max(),
+                catalog.stats(column.upperColumn()).max());
+    }
+}
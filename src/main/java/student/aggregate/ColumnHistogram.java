@@ -0,0 +1,84 @@
+package student.aggregate;
+
+import student.GameData;
+
+/**
+ * Equal width bucket counts of one column over the games matching a filter.
+ *
+ * The buckets span the column over the whole catalog, not just the matching games, so the
+ * histograms of different filters line up bucket for bucket.
+ */
+public final class ColumnHistogram {
+    /** The column counted. */
+    private final GameData column;
+    /** The low end of the first bucket. */
+    private final double low;
+    /** The width of every bucket. */
+    private final double width;
+    /** Games per bucket. */
+    private final int[] counts;
+
+    /**
+     * Creates a histogram.
+     *
+     * @param column the column counted
+     * @param low the low end of the first bucket
+     * @param width the width of every bucket
+     * @param counts games per bucket
+     */
+    public ColumnHistogram(GameData column, double low, double width, int[] counts) {
+        this.column = column;
+        this.low = low;
+        this.width = width;
+        this.counts = counts;
+    }
+
+    /**
+     * Gets the column counted.
+     *
+     * @return the column
+     */
+    public GameData getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the number of buckets.
+     *
+     * @return the bucket count
+     */
+    public int buckets() {
+        return counts.length;
+    }
+
+    /**
+     * Gets the low end of a bucket. The high end is the low end of the next bucket, and the last
+     * bucket includes the column maximum.
+     *
+     * @param bucket the bucket, 0 to buckets() - 1
+     * @return the low end of the bucket
+     */
+    public double lowerBound(int bucket) {
+        return low + bucket * width;
+    }
+
+    /**
+     * Gets the number of games in a bucket.
+     *
+     * @param bucket the bucket, 0 to buckets() - 1
+     * @return the games in the bucket
+     */
+    public int count(int bucket) {
+        return counts[bucket];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(column.toString());
+        for (int i = 0; i < counts.length; i++) {
+            sb.append(String.format("%n  %10.2f - %-10.2f %d", lowerBound(i), lowerBound(i + 1),
+                    counts[i]));
+        }
+        return sb.toString();
+    }
+}
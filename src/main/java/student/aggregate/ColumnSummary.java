@@ -0,0 +1,108 @@
+package student.aggregate;
+
+import student.GameData;
+
+/**
+ * Summary statistics of one numeric column over the games matching a filter.
+ *
+ * Holds the matching values in ascending order, so any percentile can be read without sorting
+ * again.
+ */
+public final class ColumnSummary {
+    /** The column summarized. */
+    private final GameData column;
+    /** The matching values, ascending. */
+    private final double[] sorted;
+    /** The mean of the values, NaN if there are none. */
+    private final double mean;
+
+    /**
+     * Creates a summary.
+     *
+     * @param column the column summarized
+     * @param sorted the matching values, ascending
+     */
+    public ColumnSummary(GameData column, double[] sorted) {
+        this.column = column;
+        this.sorted = sorted;
+        double sum = 0;
+        for (double v : sorted) {
+            sum += v;
+        }
+        this.mean = sorted.length == 0 ? Double.NaN : sum / sorted.length;
+    }
+
+    /**
+     * Gets the column summarized.
+     *
+     * @return the column
+     */
+    public GameData getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the number of matching games.
+     *
+     * @return the count
+     */
+    public int count() {
+        return sorted.length;
+    }
+
+    /**
+     * Gets the smallest value.
+     *
+     * @return the minimum, NaN if no games matched
+     */
+    public double min() {
+        return sorted.length == 0 ? Double.NaN : sorted[0];
+    }
+
+    /**
+     * Gets the largest value.
+     *
+     * @return the maximum, NaN if no games matched
+     */
+    public double max() {
+        return sorted.length == 0 ? Double.NaN : sorted[sorted.length - 1];
+    }
+
+    /**
+     * Gets the mean value.
+     *
+     * @return the mean, NaN if no games matched
+     */
+    public double mean() {
+        return mean;
+    }
+
+    /**
+     * Gets a percentile, using the nearest rank.
+     *
+     * @param percent the percentile, 0 to 100
+     * @return the value at that percentile, NaN if no games matched
+     */
+    public double percentile(double percent) {
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int rank = (int) Math.ceil(percent / 100 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Gets the median value.
+     *
+     * @return the 50th percentile, NaN if no games matched
+     */
+    public double median() {
+        return percentile(50);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: count=%d min=%.2f max=%.2f mean=%.2f p50=%.2f p90=%.2f",
+                column, count(), min(), max(), mean(), median(), percentile(90));
+    }
+}
@@ -0,0 +1,119 @@
+package student.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * BK-tree over game name keys (see {@link NameKey}), for lookups that tolerate typos.
+ *
+ * Each node is a distinct name; its children hang off it by their edit distance to it. Because
+ * edit distance is a metric, a search for names within k of a query that is d away from a node
+ * only has to visit the children at distances d - k to d + k, which prunes most of the tree for
+ * small k.
+ */
+public final class BkTree {
+    /** The root, null while the tree is empty. */
+    private Node root;
+
+    /**
+     * Adds a name.
+     *
+     * @param name the name, as written
+     * @param row the catalog row of the game
+     */
+    public void add(String name, int row) {
+        String key = NameKey.of(name);
+        if (root == null) {
+            root = new Node(key);
+            root.rows.add(row);
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int d = EditDistance.bounded(key, node.key, Integer.MAX_VALUE - 1);
+            if (d == 0) {
+                node.rows.add(row);
+                return;
+            }
+            if (d >= node.children.length || node.children[d] == null) {
+                node.child(d, new Node(key)).rows.add(row);
+                return;
+            }
+            node = node.children[d];
+        }
+    }
+
+    /**
+     * Finds the names within an edit distance of a query.
+     *
+     * @param query the name looked up, any case
+     * @param limit the largest edit distance that matches
+     * @return the matches, each as {row, distance}
+     */
+    public List<int[]> search(String query, int limit) {
+        List<int[]> found = new ArrayList<>();
+        if (root == null) {
+            return found;
+        }
+        String key = NameKey.of(query);
+        List<Node> pending = new ArrayList<>();
+        pending.add(root);
+        while (!pending.isEmpty()) {
+            Node node = pending.remove(pending.size() - 1);
+            // the exact distance is needed to pick the children, so only cap it at the widest
+            // child distance that could matter
+            int d = EditDistance.bounded(key, node.key, limit + node.children.length);
+            if (d <= limit) {
+                for (int row : node.rows) {
+                    found.add(new int[] {row, d});
+                }
+            }
+            int from = Math.max(1, d - limit);
+            int to = Math.min(node.children.length - 1, d + limit);
+            for (int i = from; i <= to; i++) {
+                if (node.children[i] != null) {
+                    pending.add(node.children[i]);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A distinct name and the rows that have it.
+     */
+    private static final class Node {
+        /** The name key. */
+        private final String key;
+        /** The rows with this name. */
+        private final List<Integer> rows = new ArrayList<>(1);
+        /** Children by their edit distance to this name. */
+        private Node[] children = new Node[0];
+
+        /**
+         * Creates a node.
+         *
+         * @param key the name key
+         */
+        Node(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Sets the child at a distance.
+         *
+         * @param distance the edit distance
+         * @param child the child
+         * @return the child
+         */
+        Node child(int distance, Node child) {
+            if (distance >= children.length) {
+                Node[] grown = new Node[distance + 1];
+                System.arraycopy(children, 0, grown, 0, children.length);
+                children = grown;
+            }
+            children[distance] = child;
+            return child;
+        }
+    }
+}
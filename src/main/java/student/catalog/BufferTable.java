@@ -0,0 +1,53 @@
+package student.catalog;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Map;
+import student.GameData;
+
+/**
+ * A game table read from buffers, such as the sections of a mapped index file (see
+ * {@link CatalogFile}): the ids, each numeric column and the names, by row id. Nothing per game
+ * is held on the heap; a BoardGame is built when a row is read as a game.
+ */
+final class BufferTable implements GameTable {
+    /** The BGG id of each row. */
+    private final IntBuffer ids;
+    /** Every numeric column, indexed by row id. */
+    private final Map<GameData, DoubleBuffer> columns;
+    /** The name of each row. */
+    private final StringPool names;
+
+    /**
+     * Creates a table.
+     *
+     * @param ids the BGG id of each row, ascending
+     * @param columns every numeric column, indexed by row id
+     * @param names the name of each row
+     */
+    BufferTable(IntBuffer ids, Map<GameData, DoubleBuffer> columns, StringPool names) {
+        this.ids = ids;
+        this.columns = columns;
+        this.names = names;
+    }
+
+    @Override
+    public int size() {
+        return ids.limit();
+    }
+
+    @Override
+    public int id(int row) {
+        return ids.get(row);
+    }
+
+    @Override
+    public double value(int row, GameData column) {
+        return columns.get(column).get(row);
+    }
+
+    @Override
+    public String name(int row) {
+        return names.get(row);
+    }
+}
@@ -0,0 +1,118 @@
+package student.catalog;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import student.BoardGame;
+
+/**
+ * A set of changes to a catalog, keyed by BGG id: games to add or replace (upserts) and ids to
+ * remove (deletes), applied with {@link GameCatalog#apply(CatalogDelta)}.
+ *
+ * An upsert replaces every game the catalog has with the same id. When one id is changed more
+ * than once, the last change wins.
+ */
+public final class CatalogDelta {
+    /** The slot of the change to each id. */
+    private final IdTable slots = new IdTable(16);
+    /** The id of each change. */
+    private final List<Integer> ids = new ArrayList<>();
+    /** The game of each change, null for a delete. */
+    private final List<BoardGame> games = new ArrayList<>();
+    /** The extra cells of each upsert, in the order the catalog's registry declares its columns. */
+    private final List<String[]> cells = new ArrayList<>();
+
+    /**
+     * Adds or replaces a game.
+     *
+     * @param game the game
+     * @param extraCells its extra cells, in the order the catalog's registry declares its
+     *        columns; null for no value in any extra column
+     * @return this delta
+     */
+    public CatalogDelta upsert(BoardGame game, String[] extraCells) {
+        return change(game.getId(), game, extraCells);
+    }
+
+    /**
+     * Removes the games with an id.
+     *
+     * @param id the BGG id
+     * @return this delta
+     */
+    public CatalogDelta delete(int id) {
+        return change(id, null, null);
+    }
+
+    /**
+     * Gets the number of ids changed.
+     *
+     * @return the size
+     */
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Records a change, replacing an earlier one to the same id.
+     *
+     * @param id the BGG id
+     * @param game the game, null to delete
+     * @param extraCells the extra cells of the game
+     * @return this delta
+     */
+    private CatalogDelta change(int id, BoardGame game, String[] extraCells) {
+        int slot = slots.get(id);
+        if (slot < 0) {
+            slots.put(id, ids.size());
+            ids.add(id);
+            games.add(game);
+            cells.add(extraCells);
+        } else {
+            games.set(slot, game);
+            cells.set(slot, extraCells);
+        }
+        return this;
+    }
+
+    /**
+     * Gets the changes in id order.
+     *
+     * @return the slots of the changes, by ascending id
+     */
+    int[] byId() {
+        return IntStream.range(0, ids.size()).boxed().sorted(Comparator.comparing(ids::get))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Gets the id of a change.
+     *
+     * @param slot the change
+     * @return the BGG id
+     */
+    int id(int slot) {
+        return ids.get(slot);
+    }
+
+    /**
+     * Gets the game of a change.
+     *
+     * @param slot the change
+     * @return the game, null for a delete
+     */
+    BoardGame game(int slot) {
+        return games.get(slot);
+    }
+
+    /**
+     * Gets the extra cells of a change.
+     *
+     * @param slot the change
+     * @return the cells, null for a delete or none
+     */
+    String[] cells(int slot) {
+        return cells.get(slot);
+    }
+}
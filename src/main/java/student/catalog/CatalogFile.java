@@ -0,0 +1,421 @@
+package student.catalog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import student.GameData;
+
+/**
+ * A catalog index file: the columns and indexes of a catalog written once, offline, and opened
+ * read-only through memory mapping, so a large catalog is paged in from the OS cache as queries
+ * touch it instead of being loaded onto the heap.
+ *
+ * The file is a header followed by sections, little-endian:
+ * <ul>
+ * <li>header: magic, format version, row count, section count (ints), then the offset of each
+ * section plus the end of the file (longs);</li>
+ * <li>the BGG id of each row (int per row, ascending);</li>
+ * <li>for each numeric column: the value of each row (double per row), the rows sorted by value
+ * (int per row) and the sorted values (double per row), as a {@link SortedIndex} holds them;</li>
+ * <li>the rows sorted by name key (int per row), as a {@link NameIndex} holds them;</li>
+ * <li>the names by row, then the name keys in name order, each as an offset per string plus the
+ * end (ints) and the UTF-8 bytes.</li>
+ * </ul>
+ *
+ * Each section is mapped on its own, so no single mapping passes the 2 GB a buffer can address.
+ * Statistics, the range and similarity indexes and the typo lookup are built from the mapped
+ * columns the first time they are used, as they are for any catalog. Extra columns are not
+ * written.
+ *
+ * The same sections can also be held in direct buffers instead of a file (see
+ * {@link #offHeap(GameCatalog)}), which keeps a large catalog's columns off the garbage collected
+ * heap without writing it anywhere.
+ */
+public final class CatalogFile {
+    /** The first int of every index file. */
+    static final int MAGIC = 0x42474349;
+    /** The version of the layout written. */
+    static final int FORMAT = 1;
+    /** The byte order of the file. */
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+    /** The numeric columns written, in file order. */
+    private static final List<GameData> COLUMNS = Arrays.stream(GameData.values())
+            .filter(col -> col != GameData.NAME && !col.isInterval()).toList();
+    /** Number of sections: the ids, three per column, the name order and two string pools. */
+    private static final int SECTIONS = 1 + 3 * COLUMNS.size() + 1 + 4;
+    /** Size of the write buffer, and the most appended to a section at once. */
+    private static final int CHUNK = 1 << 16;
+    /** Size of the header in bytes. */
+    private static final int HEADER = 4 * Integer.BYTES + (SECTIONS + 1) * Long.BYTES;
+
+    /** private constructor as static class. */
+    private CatalogFile() {
+
+    }
+
+    /**
+     * Writes a catalog to an index file. The file is written next to its final name and moved
+     * into place, atomically where the file system can, so a reader never opens half a file. The
+     * temporary file is deleted if the write fails.
+     *
+     * @param catalog the catalog
+     * @param path the file to write, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(GameCatalog catalog, Path path) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                FileSections out = new FileSections(channel);
+                put(catalog, out);
+                out.finish(catalog.size());
+            }
+            try {
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Copies a catalog's columns and indexes into direct buffers, laid out as the sections of an
+     * index file, and opens a catalog over them. The copy holds no BoardGame objects or column
+     * arrays on the heap; its memory is released when the catalog is no longer reachable.
+     *
+     * @param catalog the catalog
+     * @return the copy, version 0 and with no extra columns
+     */
+    public static GameCatalog offHeap(GameCatalog catalog) {
+        MemorySections out = new MemorySections();
+        try {
+            put(catalog, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return assemble(out.sections());
+    }
+
+    /**
+     * Writes the sections of a catalog, in file order.
+     *
+     * @param catalog the catalog
+     * @param out where the sections go
+     * @throws IOException if a section cannot be written
+     */
+    private static void put(GameCatalog catalog, Sections out) throws IOException {
+        int rows = catalog.size();
+        out.start(Integer.BYTES * (long) rows);
+        for (int row = 0; row < rows; row++) {
+            out.putInt(catalog.get(row).getId());
+        }
+        for (GameData col : COLUMNS) {
+            SortedIndex index = catalog.index(col);
+            out.start(Double.BYTES * (long) rows);
+            for (int row = 0; row < rows; row++) {
+                out.putDouble(catalog.value(row, col));
+            }
+            out.start(Integer.BYTES * (long) rows);
+            for (int i = 0; i < rows; i++) {
+                out.putInt(index.rowAt(i));
+            }
+            out.start(Double.BYTES * (long) rows);
+            for (int i = 0; i < rows; i++) {
+                out.putDouble(index.valueAt(i));
+            }
+        }
+        NameIndex names = catalog.nameIndex();
+        out.start(Integer.BYTES * (long) rows);
+        for (int i = 0; i < rows; i++) {
+            out.putInt(names.rowAt(i));
+        }
+        out.putStrings(rows, row -> catalog.get(row).getName());
+        out.putStrings(rows, names::keyAt);
+    }
+
+    /**
+     * Opens an index file read-only. Only the header is read; the sections are mapped, and read
+     * as the catalog is queried.
+     *
+     * @param path the file
+     * @return the catalog, version 0 and with no extra columns
+     * @throws IOException if the file cannot be read or is not an index file of this format
+     */
+    public static GameCatalog open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER) {
+                throw new IOException("Not a catalog index file: " + path);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER).order(ORDER);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a catalog index file: " + path);
+            }
+            int format = header.getInt();
+            int rows = header.getInt();
+            int count = header.getInt();
+            if (format != FORMAT || count != SECTIONS) {
+                throw new IOException("Unsupported catalog index format " + format + ": " + path);
+            }
+            long[] at = new long[SECTIONS + 1];
+            for (int i = 0; i <= SECTIONS; i++) {
+                at[i] = header.getLong();
+            }
+            if (at[SECTIONS] > channel.size()) {
+                throw new IOException("Catalog index file is truncated: " + path);
+            }
+            ByteBuffer[] sections = new ByteBuffer[SECTIONS];
+            for (int i = 0; i < SECTIONS; i++) {
+                sections[i] = channel.map(FileChannel.MapMode.READ_ONLY, at[i], at[i + 1] - at[i]);
+            }
+            long names = Integer.BYTES * (rows + 1L);
+            if (sections[0].capacity() != Integer.BYTES * (long) rows
+                    || sections[SECTIONS - 4].capacity() != names
+                    || sections[SECTIONS - 2].capacity() != names) {
+                throw new IOException("Catalog index file is corrupt: " + path);
+            }
+            return assemble(sections);
+        }
+    }
+
+    /**
+     * Opens a catalog over the sections of an index file.
+     *
+     * @param sections the sections, in file order
+     * @return the catalog
+     */
+    private static GameCatalog assemble(ByteBuffer[] sections) {
+        int s = 0;
+        IntBuffer ids = ints(sections[s++]);
+        Map<GameData, DoubleBuffer> columns = new EnumMap<>(GameData.class);
+        Map<GameData, SortedIndex> indexes = new EnumMap<>(GameData.class);
+        for (GameData col : COLUMNS) {
+            columns.put(col, doubles(sections[s++]));
+            IntBuffer order = ints(sections[s++]);
+            indexes.put(col, new SortedIndex(order, doubles(sections[s++])));
+        }
+        IntBuffer nameOrder = ints(sections[s++]);
+        StringPool names = new StringPool(ints(sections[s++]), sections[s++].order(ORDER));
+        StringPool keys = new StringPool(ints(sections[s++]), sections[s++].order(ORDER));
+        GameTable table = new BufferTable(ids, columns, names);
+        NameIndex nameIndex = new NameIndex(nameOrder, keys::get, GameCatalog.rankScores(table));
+        return new GameCatalog(table, indexes, nameIndex);
+    }
+
+    /**
+     * Reads a section as ints.
+     *
+     * @param section the section
+     * @return the ints
+     */
+    private static IntBuffer ints(ByteBuffer section) {
+        return section.order(ORDER).asIntBuffer();
+    }
+
+    /**
+     * Reads a section as doubles.
+     *
+     * @param section the section
+     * @return the doubles
+     */
+    private static DoubleBuffer doubles(ByteBuffer section) {
+        return section.order(ORDER).asDoubleBuffer();
+    }
+
+    /**
+     * Somewhere the sections of a catalog are written, one after another.
+     */
+    private abstract static class Sections {
+        /**
+         * Starts the next section.
+         *
+         * @param bytes the size of the section
+         * @throws IOException if the section cannot be written
+         */
+        abstract void start(long bytes) throws IOException;
+
+        /**
+         * Gets the buffer to append to, with room for some bytes.
+         *
+         * @param bytes the bytes about to be appended, at most 64 KiB
+         * @return the buffer
+         * @throws IOException if the section cannot be written
+         */
+        abstract ByteBuffer room(int bytes) throws IOException;
+
+        /**
+         * Appends an int.
+         *
+         * @param value the value
+         * @throws IOException if the section cannot be written
+         */
+        void putInt(int value) throws IOException {
+            room(Integer.BYTES).putInt(value);
+        }
+
+        /**
+         * Appends a double.
+         *
+         * @param value the value
+         * @throws IOException if the section cannot be written
+         */
+        void putDouble(double value) throws IOException {
+            room(Double.BYTES).putDouble(value);
+        }
+
+        /**
+         * Appends a string pool as two sections: the offsets, then the UTF-8 bytes.
+         *
+         * @param count the number of strings
+         * @param strings the string at each index
+         * @throws IOException if the section cannot be written, or the strings pass 2 GB
+         */
+        void putStrings(int count, IntFunction<String> strings) throws IOException {
+            start(Integer.BYTES * (count + 1L));
+            long offset = 0;
+            putInt(0);
+            for (int i = 0; i < count; i++) {
+                offset += strings.apply(i).getBytes(StandardCharsets.UTF_8).length;
+                if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("Strings of a catalog index pass 2 GB");
+                }
+                putInt((int) offset);
+            }
+            start(offset);
+            for (int i = 0; i < count; i++) {
+                byte[] utf8 = strings.apply(i).getBytes(StandardCharsets.UTF_8);
+                for (int from = 0; from < utf8.length; from += CHUNK) {
+                    int length = Math.min(CHUNK, utf8.length - from);
+                    room(length).put(utf8, from, length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes sections to a file through a buffer, recording where each one starts, then the
+     * header.
+     */
+    private static final class FileSections extends Sections {
+        /** The file. */
+        private final FileChannel channel;
+        /** Bytes waiting to be written. */
+        private final ByteBuffer buffer = ByteBuffer.allocate(CHUNK).order(ORDER);
+        /** The offset of each section started. */
+        private final long[] at = new long[SECTIONS + 1];
+        /** Number of sections started. */
+        private int started;
+        /** Bytes written to the file or the buffer so far. */
+        private long position = HEADER;
+
+        /**
+         * Creates a writer, leaving room for the header.
+         *
+         * @param channel the file
+         * @throws IOException if the file cannot be written
+         */
+        FileSections(FileChannel channel) throws IOException {
+            this.channel = channel;
+            channel.position(HEADER);
+        }
+
+        @Override
+        void start(long bytes) {
+            at[started++] = position;
+        }
+
+        @Override
+        ByteBuffer room(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+            position += bytes;
+            return buffer;
+        }
+
+        /**
+         * Writes out the buffer.
+         *
+         * @throws IOException if the file cannot be written
+         */
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Writes out the rest of the sections, then the header at the start of the file, and
+         * forces it all to disk.
+         *
+         * @param rows the row count
+         * @throws IOException if the file cannot be written
+         */
+        void finish(int rows) throws IOException {
+            at[started] = position;
+            flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER).order(ORDER);
+            header.putInt(MAGIC).putInt(FORMAT).putInt(rows).putInt(SECTIONS);
+            for (long offset : at) {
+                header.putLong(offset);
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Writes each section to a direct buffer of its own, sized when the section starts.
+     */
+    private static final class MemorySections extends Sections {
+        /** The sections started. */
+        private final List<ByteBuffer> sections = new ArrayList<>();
+
+        @Override
+        void start(long bytes) {
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("A catalog section passes 2 GB: " + bytes
+                        + " bytes");
+            }
+            sections.add(ByteBuffer.allocateDirect((int) bytes).order(ORDER));
+        }
+
+        @Override
+        ByteBuffer room(int bytes) {
+            return sections.get(sections.size() - 1);
+        }
+
+        /**
+         * Gets the sections written, each read from its start.
+         *
+         * @return the sections, in file order
+         */
+        ByteBuffer[] sections() {
+            return sections.stream().map(ByteBuffer::flip).toArray(ByteBuffer[]::new);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package student.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import student.GameData;
+
+/**
+ * The extra csv columns to keep when loading, beyond the ones {@link GameData} names.
+ *
+ * A column is kept only if it is declared here. {@link #bgg()} declares the useful columns of a
+ * BoardGameGeek collection export; more can be declared for other exports. Column names that
+ * clash with a GameData column (rating, year) cannot be declared, as filters and sorts would
+ * always pick the GameData column.
+ */
+public final class ColumnRegistry {
+    /** The declared columns, in the order declared. */
+    private final List<ColumnSpec> specs = new ArrayList<>();
+
+    /**
+     * Creates a registry with the useful columns of a BoardGameGeek collection export.
+     *
+     * @return the registry
+     */
+    public static ColumnRegistry bgg() {
+        ColumnRegistry registry = new ColumnRegistry();
+        for (String name : new String[] {"numplays", "own", "fortrade", "want", "wanttobuy",
+            "wanttoplay", "prevowned", "preordered", "wishlist", "wishlistpriority", "numowned",
+            "baverage", "playingtime", "bggrecagerange"}) {
+            registry.declare(name, ColumnSpec.Type.NUMBER);
+        }
+        for (String name : new String[] {"objecttype", "itemtype", "bgglanguagedependence",
+            "language"}) {
+            registry.declare(name, ColumnSpec.Type.DICTIONARY);
+        }
+        registry.declare("bestat", "bggbestplayers", ColumnSpec.Type.PLAYER_COUNTS);
+        registry.declare("recommendedat", "bggrecplayers", ColumnSpec.Type.PLAYER_COUNTS);
+        return registry;
+    }
+
+    /**
+     * Declares a column.
+     *
+     * @param name the csv column name
+     * @param type how the cells are decoded
+     * @return this registry
+     * @throws IllegalArgumentException if the column is already declared or clashes with a
+     *         GameData column
+     */
+    public ColumnRegistry declare(String name, ColumnSpec.Type type) {
+        return declare(name, name, type);
+    }
+
+    /**
+     * Declares a column that filters and sorts name differently from the csv file, such as
+     * bestat for bggbestplayers. Either name can be used.
+     *
+     * @param name the name filters and sorts use
+     * @param csvName the csv column name
+     * @param type how the cells are decoded
+     * @return this registry
+     * @throws IllegalArgumentException if either name is already declared or clashes with a
+     *         GameData column
+     */
+    public ColumnRegistry declare(String name, String csvName, ColumnSpec.Type type) {
+        ColumnSpec spec = new ColumnSpec(name, csvName, type);
+        for (GameData col : GameData.values()) {
+            if (spec.matches(col.name()) || spec.matches(col.getColumnName())) {
+                throw new IllegalArgumentException(name + " is already the column " + col);
+            }
+        }
+        if (find(name) != null || find(csvName) != null) {
+            throw new IllegalArgumentException(name + " is already declared");
+        }
+        specs.add(spec);
+        return this;
+    }
+
+    /**
+     * Finds a declared column.
+     *
+     * @param name the name as written, ignoring case and anything that is not a letter
+     * @return the column, or null if none is declared with that name
+     */
+    public ColumnSpec find(String name) {
+        for (ColumnSpec spec : specs) {
+            if (spec.matches(name)) {
+                return spec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the declared columns.
+     *
+     * @return the columns, in the order declared
+     */
+    public List<ColumnSpec> specs() {
+        return List.copyOf(specs);
+    }
+}
@@ -0,0 +1,112 @@
+package student.catalog;
+
+/**
+ * A column of the extended schema: a csv column beyond the ones {@link student.GameData} names,
+ * declared in a {@link ColumnRegistry}.
+ */
+public final class ColumnSpec {
+    /** How the cells of a column are decoded. */
+    public enum Type {
+        /**
+         * A number, read from the start of the cell, so an age range of 10+ reads as 10. Blank or
+         * unreadable cells have no value.
+         */
+        NUMBER,
+        /** Text, compared ignoring case, accents and spaces. */
+        TEXT,
+        /**
+         * Text with few distinct values, such as a language or item type: compared as TEXT is, but
+         * stored as a code per row into one table of the values (see {@link DictionaryColumn}).
+         */
+        DICTIONARY,
+        /**
+         * A list of player counts from 1 to 64, such as 2,3,4 or 3-5 (see {@link PlayerCounts}).
+         * A clause asks whether a game is in the list at a count.
+         */
+        PLAYER_COUNTS
+    }
+
+    /** The name filters and sorts use. */
+    private final String name;
+    /** The csv column name. */
+    private final String csvName;
+    /** How the cells are decoded. */
+    private final Type type;
+
+    /**
+     * Declares a column, named as in the csv file.
+     *
+     * @param name the csv column name
+     * @param type how the cells are decoded
+     */
+    public ColumnSpec(String name, Type type) {
+        this(name, name, type);
+    }
+
+    /**
+     * Declares a column under a name of its own.
+     *
+     * @param name the name filters and sorts use
+     * @param csvName the csv column name
+     * @param type how the cells are decoded
+     */
+    public ColumnSpec(String name, String csvName, Type type) {
+        this.name = name;
+        this.csvName = csvName;
+        this.type = type;
+    }
+
+    /**
+     * Gets the name filters and sorts use.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the csv column name.
+     *
+     * @return the name in the csv header
+     */
+    public String getCsvName() {
+        return csvName;
+    }
+
+    /**
+     * Gets how the cells are decoded.
+     *
+     * @return the type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Checks whether a name as written in a filter or sort refers to this column, by either of
+     * its names: the same letters, ignoring case and anything else.
+     *
+     * @param written the name as written
+     * @return true if it names this column
+     */
+    public boolean matches(String written) {
+        return letters(written).equalsIgnoreCase(letters(name))
+                || letters(written).equalsIgnoreCase(letters(csvName));
+    }
+
+    /**
+     * Keeps only the letters of a name.
+     *
+     * @param name the name
+     * @return its letters
+     */
+    private static String letters(String name) {
+        return name.replaceAll("[^A-Za-z]", "");
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
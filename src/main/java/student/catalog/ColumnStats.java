@@ -0,0 +1,256 @@
+package student.catalog;
+
+import java.util.Arrays;
+import student.Operations;
+
+/**
+ * Summary statistics of one catalog column, used to estimate how many rows a filter keeps.
+ *
+ * Numeric columns keep their min, max, number of distinct values and an equi-width histogram.
+ * Text columns (the name) only keep the number of distinct values, and fall back to fixed
+ * guesses for anything other than equality.
+ */
+public final class ColumnStats {
+    /** Number of histogram buckets for numeric columns. */
+    static final int BUCKETS = 32;
+    /** Fixed guess for a contains clause on text. */
+    private static final double CONTAINS_GUESS = 0.1;
+    /** Fixed guess for the number of names a fuzzy name clause matches. */
+    private static final double FUZZY_GUESS = 3;
+    /** Fixed guess for a range clause without a histogram. */
+    private static final double RANGE_GUESS = 1.0 / 3;
+
+    /** Number of rows the stats were built from. */
+    private final int rows;
+    /** Number of distinct values. */
+    private final int distinct;
+    /** Smallest value, NaN for text columns. */
+    private final double min;
+    /** Largest value, NaN for text columns. */
+    private final double max;
+    /** Rows per bucket, empty for text columns. */
+    private final int[] histogram;
+
+    /**
+     * Creates stats from their parts.
+     *
+     * @param rows number of rows
+     * @param distinct number of distinct values
+     * @param min smallest value
+     * @param max largest value
+     * @param histogram rows per equi-width bucket between min and max
+     */
+    private ColumnStats(int rows, int distinct, double min, double max, int[] histogram) {
+        this.rows = rows;
+        this.distinct = distinct;
+        this.min = min;
+        this.max = max;
+        this.histogram = histogram;
+    }
+
+    /**
+     * Builds stats for a numeric column.
+     *
+     * @param values the value of every row
+     * @return the stats
+     */
+    public static ColumnStats ofNumbers(double[] values) {
+        if (values.length == 0) {
+            return new ColumnStats(0, 0, Double.NaN, Double.NaN, new int[0]);
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int distinct = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[i - 1]) {
+                distinct++;
+            }
+        }
+        double min = sorted[0];
+        double max = sorted[sorted.length - 1];
+        int[] histogram = new int[BUCKETS];
+        for (double v : values) {
+            histogram[bucket(v, min, max)]++;
+        }
+        return new ColumnStats(values.length, distinct, min, max, histogram);
+    }
+
+    /**
+     * Builds stats for a numeric column from its range index, which already has the values in
+     * order, so nothing is sorted.
+     *
+     * @param index the range index of the column
+     * @return the stats, the same as {@link #ofNumbers(double[])} gives
+     */
+    public static ColumnStats ofIndex(SortedIndex index) {
+        int rows = index.size();
+        if (rows == 0) {
+            return new ColumnStats(0, 0, Double.NaN, Double.NaN, new int[0]);
+        }
+        double min = index.valueAt(0);
+        double max = index.valueAt(rows - 1);
+        int distinct = 1;
+        int[] histogram = new int[BUCKETS];
+        histogram[bucket(min, min, max)]++;
+        for (int i = 1; i < rows; i++) {
+            if (index.valueAt(i) != index.valueAt(i - 1)) {
+                distinct++;
+            }
+            histogram[bucket(index.valueAt(i), min, max)]++;
+        }
+        return new ColumnStats(rows, distinct, min, max, histogram);
+    }
+
+    /**
+     * Builds stats for the names from the name index, which already has the name keys in order,
+     * so distinct names are adjacent.
+     *
+     * @param index the name index
+     * @return the stats, distinct counting names that differ only in case or accents as one
+     */
+    public static ColumnStats ofNames(NameIndex index) {
+        int rows = index.size();
+        int distinct = rows == 0 ? 0 : 1;
+        for (int i = 1; i < rows; i++) {
+            if (!index.keyAt(i).equals(index.keyAt(i - 1))) {
+                distinct++;
+            }
+        }
+        return new ColumnStats(rows, distinct, Double.NaN, Double.NaN, new int[0]);
+    }
+
+    /**
+     * Builds stats for a text column, compared ignoring case.
+     *
+     * @param values the value of every row
+     * @return the stats
+     */
+    public static ColumnStats ofText(String[] values) {
+        long distinct = Arrays.stream(values).map(String::toLowerCase).distinct().count();
+        return new ColumnStats(values.length, (int) distinct, Double.NaN, Double.NaN, new int[0]);
+    }
+
+    /**
+     * Number of rows the stats were built from.
+     *
+     * @return the row count
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Number of distinct values in the column.
+     *
+     * @return the distinct count
+     */
+    public int distinct() {
+        return distinct;
+    }
+
+    /**
+     * Smallest value in the column.
+     *
+     * @return the min, NaN for text columns
+     */
+    public double min() {
+        return min;
+    }
+
+    /**
+     * Largest value in the column.
+     *
+     * @return the max, NaN for text columns
+     */
+    public double max() {
+        return max;
+    }
+
+    /**
+     * Estimates the fraction of rows a numeric comparison keeps.
+     *
+     * @param op the comparison
+     * @param value the value compared against
+     * @return the estimated fraction of rows kept, 0 to 1
+     */
+    public double selectivity(Operations op, double value) {
+        if (rows == 0) {
+            return 0;
+        }
+        if (histogram.length == 0) {
+            return selectivity(op);
+        }
+        return switch (op) {
+            case EQUALS -> value < min || value > max ? 0 : 1.0 / distinct;
+            case NOT_EQUALS -> value < min || value > max ? 1 : 1 - 1.0 / distinct;
+            case LESS_THAN, LESS_THAN_EQUALS -> fractionBelow(value);
+            case GREATER_THAN, GREATER_THAN_EQUALS -> 1 - fractionBelow(value);
+            case CONTAINS, FUZZY -> 0;
+        };
+    }
+
+    /**
+     * Estimates the fraction of rows a text comparison keeps.
+     *
+     * @param op the comparison
+     * @return the estimated fraction of rows kept, 0 to 1
+     */
+    public double selectivity(Operations op) {
+        if (rows == 0) {
+            return 0;
+        }
+        return switch (op) {
+            case EQUALS -> 1.0 / distinct;
+            case NOT_EQUALS -> 1 - 1.0 / distinct;
+            case CONTAINS -> CONTAINS_GUESS;
+            case FUZZY -> Math.min(1, FUZZY_GUESS / distinct);
+            default -> RANGE_GUESS;
+        };
+    }
+
+    /**
+     * Estimates the fraction of rows below a value, assuming values are spread evenly inside
+     * each histogram bucket.
+     *
+     * @param value the value
+     * @return the estimated fraction, 0 to 1
+     */
+    private double fractionBelow(double value) {
+        if (value <= min) {
+            return 0;
+        }
+        if (value > max) {
+            return 1;
+        }
+        double width = (max - min) / BUCKETS;
+        int b = bucket(value, min, max);
+        double below = 0;
+        for (int i = 0; i < b; i++) {
+            below += histogram[i];
+        }
+        double bucketStart = min + b * width;
+        below += width == 0 ? 0 : histogram[b] * (value - bucketStart) / width;
+        return Math.min(1, below / rows);
+    }
+
+    /**
+     * Finds the histogram bucket of a value.
+     *
+     * @param v the value
+     * @param min the smallest value
+     * @param max the largest value
+     * @return the bucket, 0 to BUCKETS - 1
+     */
+    private static int bucket(double v, double min, double max) {
+        if (max == min) {
+            return 0;
+        }
+        int b = (int) ((v - min) / (max - min) * BUCKETS);
+        return Math.max(0, Math.min(BUCKETS - 1, b));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows=%d distinct=%d min=%s max=%s", rows, distinct, min, max);
+    }
+}
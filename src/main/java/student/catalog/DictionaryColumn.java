@@ -0,0 +1,242 @@
+package student.catalog;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.TreeSet;
+import student.Operations;
+
+/**
+ * A text column with few distinct values, stored as an int code per row plus one table of the
+ * values.
+ *
+ * The table is sorted, so codes compare in the same order as the values, and a comparison is
+ * worked out once per distinct value instead of once per row: it becomes a set of matching
+ * codes, and a row matches if its code is in the set. Each code also gets a bitmap of its rows,
+ * built on first use, so == and IN are the union of a few bitmaps.
+ *
+ * Values are folded as {@link ExtraColumn} folds text, so matching ignores case, accents and
+ * spaces. A blank cell is the empty value, which matches != and nothing else.
+ */
+public final class DictionaryColumn {
+    /** Separator between the values of an IN list, as in itemtype==standalone;expansion. */
+    public static final String IN_SEPARATOR = ";";
+
+    /** The distinct folded values, sorted. */
+    private final String[] values;
+    /** The code of each row: its value's position in values. */
+    private final int[] codes;
+    /** The code of the empty value, or -1 if no cell is blank. */
+    private final int blank;
+    /** Rows per code, built on first use. */
+    private volatile BitSet[] bitmaps;
+
+    /**
+     * Encodes a column.
+     *
+     * @param cells the cell of every row, indexed by row id; null for a missing cell
+     */
+    public DictionaryColumn(String[] cells) {
+        String[] folded = new String[cells.length];
+        TreeSet<String> distinct = new TreeSet<>();
+        for (int row = 0; row < cells.length; row++) {
+            folded[row] = cells[row] == null ? "" : ExtraColumn.fold(cells[row]);
+            distinct.add(folded[row]);
+        }
+        this.values = distinct.toArray(new String[0]);
+        this.codes = new int[cells.length];
+        for (int row = 0; row < cells.length; row++) {
+            codes[row] = Arrays.binarySearch(values, folded[row]);
+        }
+        this.blank = Math.max(-1, Arrays.binarySearch(values, ""));
+    }
+
+    /**
+     * Encodes the column of a new catalog version from the column of the version before it. The
+     * codes of the rows kept are copied; the value table only changes if a row added brings a new
+     * value, in which case the old codes are mapped to their place in the new table.
+     *
+     * @param base the column of the version before
+     * @param from the row of the version before each row came from, -1 for a row added
+     * @param cells the cell of each row added, indexed by new row id
+     */
+    DictionaryColumn(DictionaryColumn base, int[] from, String[] cells) {
+        String[] folded = new String[from.length];
+        TreeSet<String> distinct = new TreeSet<>();
+        for (int row = 0; row < from.length; row++) {
+            if (from[row] < 0) {
+                folded[row] = cells[row] == null ? "" : ExtraColumn.fold(cells[row]);
+                if (Arrays.binarySearch(base.values, folded[row]) < 0) {
+                    distinct.add(folded[row]);
+                }
+            }
+        }
+        int[] recode = null;
+        if (distinct.isEmpty()) {
+            this.values = base.values;
+        } else {
+            distinct.addAll(Arrays.asList(base.values));
+            this.values = distinct.toArray(new String[0]);
+            recode = new int[base.values.length];
+            for (int code = 0; code < recode.length; code++) {
+                recode[code] = Arrays.binarySearch(values, base.values[code]);
+            }
+        }
+        this.codes = new int[from.length];
+        for (int row = 0; row < from.length; row++) {
+            if (from[row] >= 0) {
+                int code = base.codes[from[row]];
+                codes[row] = recode == null ? code : recode[code];
+            } else {
+                codes[row] = Arrays.binarySearch(values, folded[row]);
+            }
+        }
+        this.blank = Math.max(-1, Arrays.binarySearch(values, ""));
+    }
+
+    /**
+     * Gets the number of distinct values, blank included.
+     *
+     * @return the size of the value table
+     */
+    public int distinct() {
+        return values.length;
+    }
+
+    /**
+     * Gets the code of a row.
+     *
+     * @param row the row
+     * @return the code
+     */
+    public int code(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Gets the folded value of a code.
+     *
+     * @param code the code
+     * @return the value, empty for blank cells
+     */
+    public String value(int code) {
+        return values[code];
+    }
+
+    /**
+     * Works out which codes a comparison matches. == and != take a list of values separated by
+     * {@link #IN_SEPARATOR}: == matches any of them, != none of them.
+     *
+     * @param op the comparison
+     * @param value the value, or values, compared against
+     * @return whether each code matches
+     */
+    public boolean[] codesMatching(Operations op, String value) {
+        boolean[] hit = new boolean[values.length];
+        if (op == Operations.EQUALS || op == Operations.NOT_EQUALS) {
+            for (String one : value.split(IN_SEPARATOR)) {
+                int code = Arrays.binarySearch(values, ExtraColumn.fold(one));
+                if (code >= 0 && code != blank) {
+                    hit[code] = true;
+                }
+            }
+            if (op == Operations.NOT_EQUALS) {
+                for (int code = 0; code < hit.length; code++) {
+                    hit[code] = !hit[code];
+                }
+            }
+            return hit;
+        }
+        String target = ExtraColumn.fold(value);
+        int limit = EditDistance.limitFor(target);
+        for (int code = 0; code < values.length; code++) {
+            String v = values[code];
+            hit[code] = code != blank && switch (op) {
+                case CONTAINS -> v.contains(target);
+                case FUZZY -> EditDistance.bounded(v, target, limit) <= limit;
+                case GREATER_THAN -> v.compareTo(target) > 0;
+                case LESS_THAN -> v.compareTo(target) < 0;
+                case GREATER_THAN_EQUALS -> v.compareTo(target) >= 0;
+                case LESS_THAN_EQUALS -> v.compareTo(target) <= 0;
+                case EQUALS, NOT_EQUALS -> false;
+            };
+        }
+        return hit;
+    }
+
+    /**
+     * Finds the rows whose code matches, from the bitmaps.
+     *
+     * @param hit whether each code matches
+     * @return the matching rows
+     */
+    public BitSet rows(boolean[] hit) {
+        BitSet[] byCode = bitmaps();
+        BitSet result = new BitSet(codes.length);
+        for (int code = 0; code < hit.length; code++) {
+            if (hit[code]) {
+                result.or(byCode[code]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the rows whose code matches, without building the row set.
+     *
+     * @param hit whether each code matches
+     * @return the number of matching rows
+     */
+    public int count(boolean[] hit) {
+        BitSet[] byCode = bitmaps();
+        int count = 0;
+        for (int code = 0; code < hit.length; code++) {
+            if (hit[code]) {
+                count += byCode[code].cardinality();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Compares two rows by value for sorting. Blank cells come last either way.
+     *
+     * @param a a row
+     * @param b another row
+     * @param ascending whether smaller values come first
+     * @return negative if a sorts first
+     */
+    public int compare(int a, int b, boolean ascending) {
+        boolean aBlank = codes[a] == blank;
+        boolean bBlank = codes[b] == blank;
+        if (aBlank || bBlank) {
+            return Boolean.compare(aBlank, bBlank);
+        }
+        return ascending ? Integer.compare(codes[a], codes[b])
+                : Integer.compare(codes[b], codes[a]);
+    }
+
+    /**
+     * Gets the rows of each code, building the bitmaps on first use.
+     *
+     * @return the rows, by code
+     */
+    private BitSet[] bitmaps() {
+        BitSet[] built = bitmaps;
+        if (built == null) {
+            synchronized (this) {
+                if (bitmaps == null) {
+                    BitSet[] byCode = new BitSet[values.length];
+                    for (int code = 0; code < byCode.length; code++) {
+                        byCode[code] = new BitSet(codes.length);
+                    }
+                    for (int row = 0; row < codes.length; row++) {
+                        byCode[codes[row]].set(row);
+                    }
+                    bitmaps = byCode;
+                }
+                built = bitmaps;
+            }
+        }
+        return built;
+    }
+}
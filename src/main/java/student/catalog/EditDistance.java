@@ -0,0 +1,57 @@
+package student.catalog;
+
+/**
+ * Levenshtein edit distance, with a limit so far apart strings are rejected early.
+ */
+public final class EditDistance {
+    /** Utility class. */
+    private EditDistance() {
+    }
+
+    /**
+     * The edit distance a fuzzy name match allows for a query: one typo for short names, up to
+     * three for long ones.
+     *
+     * @param query the name being looked up
+     * @return the largest distance that still matches
+     */
+    public static int limitFor(String query) {
+        return Math.max(1, Math.min(3, query.length() / 4));
+    }
+
+    /**
+     * Computes the edit distance between two strings, giving up once it must exceed a limit.
+     *
+     * @param a the first string
+     * @param b the second string
+     * @param limit the largest distance of interest
+     * @return the distance, or limit + 1 if it is larger than limit
+     */
+    public static int bounded(CharSequence a, CharSequence b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] row = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            row[0] = i;
+            int best = row[0];
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                row[j] = Math.min(substitute, Math.min(previous[j], row[j - 1]) + 1);
+                best = Math.min(best, row[j]);
+            }
+            if (best > limit) {
+                return limit + 1; // every later row is at least as large
+            }
+            int[] t = previous;
+            previous = row;
+            row = t;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+}
@@ -0,0 +1,450 @@
+package student.catalog;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntPredicate;
+import student.Operations;
+
+/**
+ * One column of the extended schema, decoded the first time a query uses it.
+ *
+ * Until then the cells are kept as loaded, packed into one char array with an offset per row, so
+ * an unused column costs two arrays rather than a String per row. The first query decodes the
+ * whole column at once, into a double per row for a number column, or one shared folded string
+ * per distinct value for a text column, and drops the packed cells. A dictionary column is
+ * encoded into a {@link DictionaryColumn} as the catalog is built instead, as its codes are
+ * smaller than the packed cells, and a player count column into {@link PlayerCounts} masks.
+ * Both of those also answer clauses from bitmaps.
+ */
+public final class ExtraColumn {
+    /** The column declaration. */
+    private final ColumnSpec spec;
+    /** Number of rows in the catalog. */
+    private final int rows;
+    /** The cells back to back, until decoded. */
+    private char[] packed;
+    /** Where each row's cell starts in packed; the cell ends where the next one starts. */
+    private int[] offsets;
+    /** Decoded number column, NaN for no value. */
+    private volatile double[] numbers;
+    /** Decoded text column: the folded value of each row, shared between equal values. */
+    private volatile String[] texts;
+    /** Encoded dictionary column, null for other types. */
+    private final DictionaryColumn dictionary;
+    /** Parsed player count column, null for other types. */
+    private final PlayerCounts playerCounts;
+
+    /**
+     * Packs the cells of a column, or encodes them if it is a dictionary or player count column.
+     *
+     * @param spec the column declaration
+     * @param cells the cell of every row, indexed by row id; null for a missing cell
+     */
+    public ExtraColumn(ColumnSpec spec, String[] cells) {
+        this.spec = spec;
+        this.rows = cells.length;
+        this.dictionary = spec.getType() == ColumnSpec.Type.DICTIONARY
+                ? new DictionaryColumn(cells) : null;
+        this.playerCounts = spec.getType() == ColumnSpec.Type.PLAYER_COUNTS
+                ? new PlayerCounts(cells) : null;
+        if (dictionary != null || playerCounts != null) {
+            return;
+        }
+        this.offsets = new int[rows + 1];
+        int length = 0;
+        for (int row = 0; row < rows; row++) {
+            offsets[row] = length;
+            length += cells[row] == null ? 0 : cells[row].length();
+        }
+        offsets[rows] = length;
+        this.packed = new char[length];
+        for (int row = 0; row < rows; row++) {
+            if (cells[row] != null) {
+                cells[row].getChars(0, cells[row].length(), packed, offsets[row]);
+            }
+        }
+    }
+
+    /**
+     * Builds the column of a new catalog version from the column of the version before it, in
+     * whatever state that one is: the rows kept are copied packed or decoded, and only the cells
+     * of the rows added are read.
+     *
+     * @param base the column of the version before
+     * @param from the row of the version before each row came from, -1 for a row added
+     * @param cells the cell of each row added, indexed by new row id; null for a missing cell
+     */
+    ExtraColumn(ExtraColumn base, int[] from, String[] cells) {
+        this.spec = base.spec;
+        this.rows = from.length;
+        this.dictionary = base.dictionary == null ? null
+                : new DictionaryColumn(base.dictionary, from, cells);
+        this.playerCounts = base.playerCounts == null ? null
+                : new PlayerCounts(base.playerCounts, from, cells);
+        if (dictionary != null || playerCounts != null) {
+            return;
+        }
+        synchronized (base) {
+            if (base.numbers != null) {
+                double[] values = new double[rows];
+                for (int row = 0; row < rows; row++) {
+                    values[row] = from[row] >= 0 ? base.numbers[from[row]]
+                            : cells[row] == null ? Double.NaN
+                            : leadingNumber(cells[row].toCharArray(), 0, cells[row].length());
+                }
+                numbers = values;
+            } else if (base.texts != null) {
+                Map<String, String> shared = new HashMap<>();
+                String[] values = new String[rows];
+                for (int row = 0; row < rows; row++) {
+                    values[row] = from[row] >= 0 ? base.texts[from[row]]
+                            : shared.computeIfAbsent(fold(cells[row] == null ? "" : cells[row]),
+                                    v -> v);
+                }
+                texts = values;
+            } else {
+                this.offsets = new int[rows + 1];
+                int length = 0;
+                for (int row = 0; row < rows; row++) {
+                    offsets[row] = length;
+                    length += from[row] >= 0 ? base.offsets[from[row] + 1] - base.offsets[from[row]]
+                            : cells[row] == null ? 0 : cells[row].length();
+                }
+                offsets[rows] = length;
+                this.packed = new char[length];
+                for (int row = 0; row < rows; row++) {
+                    if (from[row] >= 0) {
+                        System.arraycopy(base.packed, base.offsets[from[row]], packed, offsets[row],
+                                offsets[row + 1] - offsets[row]);
+                    } else if (cells[row] != null) {
+                        cells[row].getChars(0, cells[row].length(), packed, offsets[row]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the column declaration.
+     *
+     * @return the declaration
+     */
+    public ColumnSpec spec() {
+        return spec;
+    }
+
+    /**
+     * Whether a query has used the column yet.
+     *
+     * @return true once the column is decoded
+     */
+    public boolean isDecoded() {
+        return numbers != null || texts != null || dictionary != null || playerCounts != null;
+    }
+
+    /**
+     * Gets the number in a row of a number column.
+     *
+     * @param row the row
+     * @return the value, NaN if the cell is blank or not a number
+     */
+    public double number(int row) {
+        return numbers()[row];
+    }
+
+    /**
+     * Gets the text in a row of a text column, folded: lower case, no accents, no spaces.
+     *
+     * @param row the row
+     * @return the folded value, empty if the cell is blank
+     */
+    public String text(int row) {
+        if (dictionary != null) {
+            return dictionary.value(dictionary.code(row));
+        }
+        return texts()[row];
+    }
+
+    /**
+     * Builds a check of a comparison for a row.
+     *
+     * A row with no value matches != and nothing else. Text compares folded values, so ~= is a
+     * contains ignoring case, accents and spaces. For a dictionary column, == and != take a list
+     * of values (see {@link DictionaryColumn#IN_SEPARATOR}), and the comparison is made once per
+     * distinct value. For a player count column, the value is a count and a game matches if it is
+     * listed at a count satisfying the comparison (see {@link PlayerCounts}).
+     *
+     * @param op the comparison
+     * @param value the value compared against
+     * @return the check, by row id
+     * @throws IllegalArgumentException if the value is not a number for a number column, or the
+     *         comparison needs text and the column holds numbers
+     */
+    public IntPredicate matcher(Operations op, String value) {
+        if (playerCounts != null) {
+            return playerCounts.matcher(op, value);
+        }
+        if (spec.getType() == ColumnSpec.Type.NUMBER) {
+            if (op == Operations.CONTAINS || op == Operations.FUZZY) {
+                throw new IllegalArgumentException(op + " is only available for text: " + spec);
+            }
+            double target = Double.parseDouble(value.trim());
+            double[] values = numbers();
+            return row -> {
+                double v = values[row];
+                return switch (op) {
+                    case EQUALS -> v == target;
+                    case NOT_EQUALS -> v != target;
+                    case GREATER_THAN -> v > target;
+                    case LESS_THAN -> v < target;
+                    case GREATER_THAN_EQUALS -> v >= target;
+                    case LESS_THAN_EQUALS -> v <= target;
+                    case CONTAINS, FUZZY -> false;
+                };
+            };
+        }
+        if (dictionary != null) {
+            boolean[] hit = dictionary.codesMatching(op, value);
+            return row -> hit[dictionary.code(row)];
+        }
+        String target = fold(value);
+        int limit = EditDistance.limitFor(target);
+        String[] values = texts();
+        return row -> {
+            String v = values[row];
+            if (v.isEmpty()) {
+                return op == Operations.NOT_EQUALS;
+            }
+            return switch (op) {
+                case EQUALS -> v.equals(target);
+                case NOT_EQUALS -> !v.equals(target);
+                case CONTAINS -> v.contains(target);
+                case FUZZY -> EditDistance.bounded(v, target, limit) <= limit;
+                case GREATER_THAN -> v.compareTo(target) > 0;
+                case LESS_THAN -> v.compareTo(target) < 0;
+                case GREATER_THAN_EQUALS -> v.compareTo(target) >= 0;
+                case LESS_THAN_EQUALS -> v.compareTo(target) <= 0;
+            };
+        };
+    }
+
+    /**
+     * Gets the name of the bitmap index the column answers clauses from, for query plans.
+     *
+     * @return the index name, or null if the column has no bitmaps
+     */
+    public String bitmapIndex() {
+        if (dictionary != null) {
+            return "dictionary bitmap";
+        }
+        return playerCounts != null ? "player count bitmap" : null;
+    }
+
+    /**
+     * Finds the rows matching a comparison from the bitmaps.
+     *
+     * @param op the comparison
+     * @param value the value, or values, compared against
+     * @return the matching rows, or null if the column has no bitmaps
+     */
+    public BitSet matching(Operations op, String value) {
+        if (playerCounts != null) {
+            return playerCounts.rows(op, value);
+        }
+        return dictionary == null ? null : dictionary.rows(dictionary.codesMatching(op, value));
+    }
+
+    /**
+     * Counts the rows matching a comparison from the bitmaps.
+     *
+     * @param op the comparison
+     * @param value the value, or values, compared against
+     * @return the number of matching rows, or -1 if the column has no bitmaps
+     */
+    public int count(Operations op, String value) {
+        if (playerCounts != null) {
+            return playerCounts.rows(op, value).cardinality();
+        }
+        return dictionary == null ? -1 : dictionary.count(dictionary.codesMatching(op, value));
+    }
+
+    /**
+     * Counts the bitmaps a comparison or-s together.
+     *
+     * @param op the comparison
+     * @param value the value, or values, compared against
+     * @return the number of bitmaps read, or -1 if the column has no bitmaps
+     */
+    public int bitmapsRead(Operations op, String value) {
+        if (playerCounts != null) {
+            return playerCounts.bitmapsRead(op, value);
+        }
+        if (dictionary == null) {
+            return -1;
+        }
+        int read = 0;
+        for (boolean hit : dictionary.codesMatching(op, value)) {
+            read += hit ? 1 : 0;
+        }
+        return read;
+    }
+
+    /**
+     * Gets the player counts a row of a player count column lists.
+     *
+     * @param row the row
+     * @return the counts as a mask, bit c - 1 for c players
+     * @throws IllegalStateException if the column does not hold player counts
+     */
+    public long playerCounts(int row) {
+        if (playerCounts == null) {
+            throw new IllegalStateException(spec + " does not hold player counts");
+        }
+        return playerCounts.mask(row);
+    }
+
+    /**
+     * Gets the number of distinct values of a dictionary column.
+     *
+     * @return the number of values, blank included, or -1 if the column is not a dictionary
+     *         column
+     */
+    public int distinct() {
+        return dictionary == null ? -1 : dictionary.distinct();
+    }
+
+    /**
+     * Compares two rows for sorting. Rows with no value come last either way.
+     *
+     * @param a a row
+     * @param b another row
+     * @param ascending whether smaller values come first
+     * @return negative if a sorts first
+     */
+    public int compare(int a, int b, boolean ascending) {
+        if (dictionary != null) {
+            return dictionary.compare(a, b, ascending);
+        }
+        if (playerCounts != null) {
+            return playerCounts.compare(a, b, ascending);
+        }
+        int order = ascending ? 1 : -1;
+        if (spec.getType() == ColumnSpec.Type.NUMBER) {
+            double[] values = numbers();
+            boolean aMissing = Double.isNaN(values[a]);
+            boolean bMissing = Double.isNaN(values[b]);
+            if (aMissing || bMissing) {
+                return Boolean.compare(aMissing, bMissing);
+            }
+            return order * Double.compare(values[a], values[b]);
+        }
+        String[] values = texts();
+        if (values[a].isEmpty() || values[b].isEmpty()) {
+            return Boolean.compare(values[a].isEmpty(), values[b].isEmpty());
+        }
+        return order * values[a].compareTo(values[b]);
+    }
+
+    /**
+     * Folds a text value: name key folding (see {@link NameKey}) with the spaces taken out, as
+     * the console takes them out of filters.
+     *
+     * @param value the value as written
+     * @return the folded value
+     */
+    static String fold(String value) {
+        return NameKey.of(value).replaceAll("\\s", "");
+    }
+
+    /**
+     * Gets the decoded numbers, decoding the column on first use.
+     *
+     * @return the value per row
+     * @throws IllegalStateException if the column is not a number column
+     */
+    private double[] numbers() {
+        double[] decoded = numbers;
+        if (decoded == null) {
+            if (spec.getType() != ColumnSpec.Type.NUMBER) {
+                throw new IllegalStateException(spec + " is not a number column");
+            }
+            synchronized (this) {
+                if (numbers == null) {
+                    double[] values = new double[rows];
+                    for (int row = 0; row < rows; row++) {
+                        values[row] = leadingNumber(packed, offsets[row], offsets[row + 1]);
+                    }
+                    numbers = values;
+                    release();
+                }
+                decoded = numbers;
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Gets the decoded text, decoding the column on first use.
+     *
+     * @return the folded value per row
+     * @throws IllegalStateException if the column is not a text column
+     */
+    private String[] texts() {
+        String[] decoded = texts;
+        if (decoded == null) {
+            if (spec.getType() != ColumnSpec.Type.TEXT) {
+                throw new IllegalStateException(spec + " is not a text column");
+            }
+            synchronized (this) {
+                if (texts == null) {
+                    Map<String, String> shared = new HashMap<>();
+                    String[] values = new String[rows];
+                    for (int row = 0; row < rows; row++) {
+                        String cell = new String(packed, offsets[row],
+                                offsets[row + 1] - offsets[row]);
+                        values[row] = shared.computeIfAbsent(fold(cell), v -> v);
+                    }
+                    texts = values;
+                    release();
+                }
+                decoded = texts;
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Drops the packed cells once decoded.
+     */
+    private void release() {
+        packed = null;
+        offsets = null;
+    }
+
+    /**
+     * Reads the number at the start of a cell, such as 10 from 10+.
+     *
+     * @param chars the packed cells
+     * @param from the start of the cell
+     * @param to the end of the cell
+     * @return the number, NaN if the cell does not start with one
+     */
+    private static double leadingNumber(char[] chars, int from, int to) {
+        while (from < to && Character.isWhitespace(chars[from])) {
+            from++;
+        }
+        int end = from;
+        if (end < to && (chars[end] == '-' || chars[end] == '+')) {
+            end++;
+        }
+        while (end < to && (Character.isDigit(chars[end]) || chars[end] == '.')) {
+            end++;
+        }
+        try {
+            return Double.parseDouble(new String(chars, from, end - from));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
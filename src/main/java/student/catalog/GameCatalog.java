@@ -0,0 +1,568 @@
+package student.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import student.BoardGame;
+import student.GameData;
+
+/**
+ * Immutable, row addressable view of the board game collection.
+ *
+ * Every game is given a row id (0 to size - 1) so other parts of the program can refer to a game
+ * with a single int instead of holding on to the BoardGame object. Rows are ordered by the BGG
+ * id of the game, which keeps the row ids stable no matter what order the games were loaded in.
+ *
+ * Statistics for every column are computed once, the first time the column is planned, so the
+ * planner can estimate how selective a filter clause is without touching the rows, and every
+ * numeric column gets a range index. The range columns (PLAYERS, TIME) get an interval index
+ * instead, and a KD-tree over the numeric features answers "games like this one". The names get
+ * a sorted prefix index, for name comparisons and autocomplete, and a BK-tree, for names with
+ * typos.
+ *
+ * Columns of the extended schema (see {@link ColumnRegistry}) are kept packed as loaded and only
+ * decoded when a query first uses them. The interval indexes, the KD-tree and the BK-tree are
+ * also built the first time they are used.
+ *
+ * The games themselves are read through a {@link GameTable}: the BoardGame objects on the heap
+ * for a catalog built from loaded games, or columns in a mapped index file for one opened with
+ * {@link CatalogFile}, in which case a game is only built when a query returns it.
+ *
+ * A catalog is never changed: {@link #apply(CatalogDelta)} publishes a new version with a set of
+ * upserts and deletes applied, built from this one without sorting again, and readers of this
+ * version are not affected.
+ */
+public final class GameCatalog {
+    /** The version, 0 for a catalog built from loaded games, one more for each delta applied. */
+    private final int version;
+    /** The games, in row order, BGG id ascending. */
+    private final GameTable table;
+    /** Statistics per column, computed on first use. */
+    private final Map<GameData, ColumnStats> stats = new EnumMap<>(GameData.class);
+    /** Range index per numeric column. */
+    private final Map<GameData, SortedIndex> indexes = new EnumMap<>(GameData.class);
+    /** Columns compared when looking for similar games. */
+    private static final GameData[] FEATURES = {GameData.MIN_PLAYERS, GameData.MAX_PLAYERS,
+        GameData.MIN_TIME, GameData.MAX_TIME, GameData.DIFFICULTY, GameData.RATING, GameData.YEAR};
+
+    /** Similarity features, features[feature][row], each scaled to 0..1; built on first use. */
+    private volatile double[][] features;
+    /** KD-tree over the similarity features, built on first use. */
+    private volatile KdTree similarity;
+    /** BK-tree over the names, for lookups that tolerate typos; built on first use. */
+    private volatile BkTree names;
+    /** Prefix index over the names. */
+    private final NameIndex nameIndex;
+    /** Columns of the extended schema, in the order declared. */
+    private final List<ExtraColumn> extras = new ArrayList<>();
+    /** Interval index per range column (PLAYERS, TIME), built on first use. */
+    private final Map<GameData, IntervalIndex> intervals = new EnumMap<>(GameData.class);
+
+    /**
+     * Builds a catalog from the loaded games.
+     *
+     * @param games the games to place in the catalog
+     */
+    public GameCatalog(Collection<BoardGame> games) {
+        this(games, new ColumnRegistry(), Map.of());
+    }
+
+    /**
+     * Builds a catalog from the loaded games and the extra columns kept for them.
+     *
+     * @param games the games to place in the catalog
+     * @param registry the extra columns
+     * @param extraCells the extra cells of each game by BGG id, in the order the registry
+     *        declares its columns; a game missing here has no value in any extra column
+     */
+    public GameCatalog(Collection<BoardGame> games, ColumnRegistry registry,
+            Map<Integer, String[]> extraCells) {
+        this.version = 0;
+        BoardGame[] rows = games.toArray(new BoardGame[0]);
+        Arrays.sort(rows, Comparator.comparingInt(BoardGame::getId)
+                .thenComparing(BoardGame::getName));
+        Map<GameData, double[]> columns = new EnumMap<>(GameData.class);
+        for (GameData col : GameData.values()) {
+            if (col == GameData.NAME || col.isInterval()) {
+                continue;
+            }
+            double[] values = new double[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                values[i] = numericValue(rows[i], col);
+            }
+            columns.put(col, values);
+            indexes.put(col, new SortedIndex(values));
+        }
+        this.table = new HeapTable(rows, columns);
+        this.nameIndex = new NameIndex(nameKeys(), rankBy());
+        List<ColumnSpec> specs = registry.specs();
+        for (int c = 0; c < specs.size(); c++) {
+            String[] cells = new String[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                String[] game = extraCells.get(rows[i].getId());
+                cells[i] = game == null ? null : game[c];
+            }
+            extras.add(new ExtraColumn(specs.get(c), cells));
+        }
+    }
+
+    /**
+     * Builds the next version of a catalog, with a delta applied.
+     *
+     * The rows are already in id order, and so are the changes once sorted, so the new rows are
+     * a merge of the two. Each numeric column is copied across, then the range indexes and the
+     * name index are merged in the same way, kept rows in their old order and only the added
+     * rows sorted; the statistics will be read off the merged indexes. The extra columns copy the
+     * rows kept, packed or decoded, and only read the cells of the rows added.
+     *
+     * @param base the version before
+     * @param delta the changes
+     */
+    private GameCatalog(GameCatalog base, CatalogDelta delta) {
+        this.version = base.version + 1;
+        int[] changes = delta.byId();
+        int baseRows = base.size();
+        int most = baseRows + changes.length;
+        BoardGame[] merged = new BoardGame[most];
+        int[] source = new int[most];
+        String[][] addedCells = new String[most][];
+        int[] moved = new int[baseRows];
+        int n = 0;
+        int b = 0;
+        int c = 0;
+        while (b < baseRows || c < changes.length) {
+            if (c == changes.length || b < baseRows && base.table.id(b) < delta.id(changes[c])) {
+                moved[b] = n;
+                source[n] = b;
+                merged[n++] = base.table.game(b++);
+                continue;
+            }
+            int id = delta.id(changes[c]);
+            while (b < baseRows && base.table.id(b) == id) {
+                moved[b++] = -1;
+            }
+            if (delta.game(changes[c]) != null) {
+                source[n] = -1;
+                addedCells[n] = delta.cells(changes[c]);
+                merged[n++] = delta.game(changes[c]);
+            }
+            c++;
+        }
+        BoardGame[] rows = Arrays.copyOf(merged, n);
+        int[] from = Arrays.copyOf(source, n);
+        int[] added = IntStream.range(0, n).filter(row -> from[row] < 0).toArray();
+
+        Map<GameData, double[]> columns = new EnumMap<>(GameData.class);
+        for (GameData col : GameData.values()) {
+            if (col == GameData.NAME || col.isInterval()) {
+                continue;
+            }
+            double[] old = base.column(col);
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) {
+                values[i] = from[i] >= 0 ? old[from[i]] : numericValue(rows[i], col);
+            }
+            columns.put(col, values);
+            indexes.put(col, new SortedIndex(base.indexes.get(col), moved, values, added));
+        }
+        this.table = new HeapTable(rows, columns);
+        this.nameIndex = new NameIndex(base.nameIndex, moved, nameKeys(), added, rankBy());
+        for (int e = 0; e < base.extras.size(); e++) {
+            String[] cells = new String[n];
+            for (int i = 0; i < n; i++) {
+                cells[i] = from[i] < 0 && addedCells[i] != null ? addedCells[i][e] : null;
+            }
+            extras.add(new ExtraColumn(base.extras.get(e), from, cells));
+        }
+    }
+
+    /**
+     * Opens a catalog over a table and indexes already built, such as those of an index file.
+     * The catalog has no extra columns.
+     *
+     * @param table the games, BGG id ascending
+     * @param indexes the range index of every numeric column
+     * @param nameIndex the name index
+     */
+    GameCatalog(GameTable table, Map<GameData, SortedIndex> indexes, NameIndex nameIndex) {
+        this.version = 0;
+        this.table = table;
+        this.indexes.putAll(indexes);
+        this.nameIndex = nameIndex;
+    }
+
+    /**
+     * Publishes a new version of the catalog with a delta applied. This version is left as it
+     * is.
+     *
+     * @param delta the upserts and deletes
+     * @return the new version
+     */
+    public GameCatalog apply(CatalogDelta delta) {
+        return new GameCatalog(this, delta);
+    }
+
+    /**
+     * Gets the version of the catalog.
+     *
+     * @return 0 for a catalog built from loaded games, one more for each delta applied since
+     */
+    public int version() {
+        return version;
+    }
+
+    /**
+     * Gets the name key of every row.
+     *
+     * @return the keys, indexed by row id
+     */
+    private String[] nameKeys() {
+        return IntStream.range(0, table.size()).mapToObj(table::nameKey).toArray(String[]::new);
+    }
+
+    /**
+     * Gets a numeric column as an array: the table's own for a heap table, and a copy read from
+     * the table otherwise.
+     *
+     * @param col the column
+     * @return the values, indexed by row id
+     */
+    private double[] column(GameData col) {
+        if (table instanceof HeapTable heap) {
+            return heap.column(col);
+        }
+        return IntStream.range(0, table.size()).mapToDouble(row -> table.value(row, col)).toArray();
+    }
+
+    /**
+     * Gets the columns completions can be ranked by, each as a score per row, higher first.
+     *
+     * @return the scores, by column
+     */
+    private Map<GameData, double[]> rankBy() {
+        Map<GameData, double[]> rankBy = new EnumMap<>(GameData.class);
+        rankBy.put(GameData.RANK, Arrays.stream(column(GameData.RANK)).map(v -> -v).toArray());
+        rankBy.put(GameData.RATING, column(GameData.RATING));
+        return rankBy;
+    }
+
+    /**
+     * Gets the same ranking scores as lookups read from a table, for a name index opened over
+     * it rather than built.
+     *
+     * @param table the table
+     * @return the scores by row id, by column
+     */
+    static Map<GameData, IntToDoubleFunction> rankScores(GameTable table) {
+        Map<GameData, IntToDoubleFunction> rankBy = new EnumMap<>(GameData.class);
+        rankBy.put(GameData.RANK, row -> -table.value(row, GameData.RANK));
+        rankBy.put(GameData.RATING, row -> table.value(row, GameData.RATING));
+        return rankBy;
+    }
+
+    /**
+     * Scales a column to 0..1 for similarity. Play times are compared on a log scale, so 30 and
+     * 60 minutes are as far apart as 60 and 120, and a few very long games do not squash the rest
+     * together.
+     *
+     * @param col the column
+     * @return the scaled values, indexed by row id
+     */
+    private double[] feature(GameData col) {
+        boolean log = col == GameData.MIN_TIME || col == GameData.MAX_TIME;
+        double[] raw = column(col);
+        double[] scaled = new double[raw.length];
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < raw.length; i++) {
+            scaled[i] = log ? Math.log1p(Math.max(0, raw[i])) : raw[i];
+            min = Math.min(min, scaled[i]);
+            max = Math.max(max, scaled[i]);
+        }
+        double range = max - min;
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] = range > 0 ? (scaled[i] - min) / range : 0;
+        }
+        return scaled;
+    }
+
+    /**
+     * Finds the games closest to a game on players, play time, difficulty, rating and year, each
+     * scaled to 0..1.
+     *
+     * @param row the row of the game
+     * @param k the number of games wanted
+     * @param allowed the rows that may be returned, or null for every row
+     * @return up to k rows, nearest first, never the game itself
+     */
+    public int[] similar(int row, int k, BitSet allowed) {
+        KdTree tree = similarity();
+        double[][] scaled = features;
+        double[] query = new double[scaled.length];
+        for (int f = 0; f < scaled.length; f++) {
+            query[f] = scaled[f][row];
+        }
+        return tree.nearest(query, k, allowed, row);
+    }
+
+    /**
+     * Gets the KD-tree over the similarity features, building it and the features on first use.
+     *
+     * @return the tree
+     */
+    private KdTree similarity() {
+        KdTree tree = similarity;
+        if (tree == null) {
+            synchronized (this) {
+                if (similarity == null) {
+                    double[][] scaled = new double[FEATURES.length][];
+                    for (int f = 0; f < FEATURES.length; f++) {
+                        scaled[f] = feature(FEATURES[f]);
+                    }
+                    features = scaled;
+                    similarity = new KdTree(scaled);
+                }
+                tree = similarity;
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Gets the BK-tree over the names, building it on first use.
+     *
+     * @return the tree
+     */
+    private BkTree names() {
+        BkTree tree = names;
+        if (tree == null) {
+            synchronized (this) {
+                if (names == null) {
+                    BkTree built = new BkTree();
+                    for (int i = 0; i < table.size(); i++) {
+                        built.add(table.name(i), i);
+                    }
+                    names = built;
+                }
+                tree = names;
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Reads a numeric column of a row from the column store, without touching the game.
+     *
+     * @param row the row id
+     * @param column the column, anything but NAME or a range column
+     * @return the value of the column
+     */
+    public double value(int row, GameData column) {
+        return table.value(row, column);
+    }
+
+    /**
+     * Reads a numeric column of a game.
+     *
+     * @param game the game
+     * @param column the column, anything but NAME
+     * @return the value of the column
+     */
+    public static double numericValue(BoardGame game, GameData column) {
+        return switch (column) {
+            case ID -> game.getId();
+            case RATING -> game.getRating();
+            case DIFFICULTY -> game.getDifficulty();
+            case RANK -> game.getRank();
+            case MIN_PLAYERS -> game.getMinPlayers();
+            case MAX_PLAYERS -> game.getMaxPlayers();
+            case MIN_TIME -> game.getMinPlayTime();
+            case MAX_TIME -> game.getMaxPlayTime();
+            case YEAR -> game.getYearPublished();
+            case NAME -> throw new IllegalArgumentException("Name is not a numeric column");
+            case PLAYERS, TIME ->
+                throw new IllegalArgumentException(column + " is a range, not a value");
+        };
+    }
+
+    /**
+     * Number of rows in the catalog.
+     *
+     * @return the number of games in the catalog
+     */
+    public int size() {
+        return table.size();
+    }
+
+    /**
+     * Gets the statistics of a column.
+     *
+     * @param column the column
+     * @return the column statistics, or null for a range column
+     */
+    public ColumnStats stats(GameData column) {
+        if (column.isInterval()) {
+            return null;
+        }
+        synchronized (stats) {
+            return stats.computeIfAbsent(column, col -> col == GameData.NAME
+                    ? ColumnStats.ofNames(nameIndex) : ColumnStats.ofIndex(indexes.get(col)));
+        }
+    }
+
+    /**
+     * Gets the range index of a numeric column.
+     *
+     * @param column the column, anything but NAME
+     * @return the index, or null for NAME
+     */
+    public SortedIndex index(GameData column) {
+        return indexes.get(column);
+    }
+
+    /**
+     * Gets the interval index of a range column.
+     *
+     * @param column the column
+     * @return the index, or null if the column is not a range
+     */
+    public IntervalIndex intervalIndex(GameData column) {
+        if (!column.isInterval()) {
+            return null;
+        }
+        synchronized (intervals) {
+            return intervals.computeIfAbsent(column, col -> new IntervalIndex(
+                    column(col.lowerColumn()), column(col.upperColumn()),
+                    indexes.get(col.lowerColumn()), indexes.get(col.upperColumn())));
+        }
+    }
+
+    /**
+     * Finds a column of the extended schema.
+     *
+     * @param name the column name as written, ignoring case and anything that is not a letter
+     * @return the column, or null if the catalog has no such column
+     */
+    public ExtraColumn extraColumn(String name) {
+        for (ExtraColumn column : extras) {
+            if (column.spec().matches(name)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the columns of the extended schema.
+     *
+     * @return the columns, in the order declared
+     */
+    public List<ExtraColumn> extraColumns() {
+        return List.copyOf(extras);
+    }
+
+    /**
+     * Gets the prefix index over the names.
+     *
+     * @return the name index
+     */
+    public NameIndex nameIndex() {
+        return nameIndex;
+    }
+
+    /**
+     * Finds the games whose name is within an edit distance of a name, ignoring case.
+     *
+     * @param name the name looked up
+     * @param limit the largest edit distance that matches
+     * @return the matching rows
+     */
+    public BitSet namesWithin(String name, int limit) {
+        BitSet result = new BitSet(table.size());
+        for (int[] match : names().search(name, limit)) {
+            result.set(match[0]);
+        }
+        return result;
+    }
+
+    /**
+     * Finds the games whose name is closest to a name, for resolving a name with a typo.
+     *
+     * @param name the name looked up
+     * @param limit the largest edit distance that matches
+     * @return the rows at the smallest distance found, ascending; empty if none is within limit
+     */
+    public int[] closestNames(String name, int limit) {
+        List<int[]> matches = names().search(name, limit);
+        int best = matches.stream().mapToInt(match -> match[1]).min().orElse(limit + 1);
+        return matches.stream().filter(match -> match[1] == best).mapToInt(match -> match[0])
+                .sorted().toArray();
+    }
+
+    /**
+     * Gets the game stored at a row.
+     *
+     * @param row the row id
+     * @return the game at that row
+     */
+    public BoardGame get(int row) {
+        return table.game(row);
+    }
+
+    /**
+     * Finds the row of a game based on its BGG id.
+     *
+     * @param id the BGG id of the game
+     * @return the row id, or -1 if the id is not in the catalog
+     */
+    public int rowOf(int id) {
+        int lo = 0;
+        int hi = table.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (table.id(mid) < id) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        // duplicate ids are possible (equality is name + id), so this is the first one
+        return lo < table.size() && table.id(lo) == id ? lo : -1;
+    }
+
+    /**
+     * Finds the row of a game, matching on both id and name.
+     *
+     * @param game the game to look up
+     * @return the row id, or -1 if the game is not in the catalog
+     */
+    public int rowOf(BoardGame game) {
+        int row = rowOf(game.getId());
+        if (row < 0) {
+            return -1;
+        }
+        for (; row < table.size() && table.id(row) == game.getId(); row++) {
+            if (table.name(row).equals(game.getName())) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Streams the games in row order.
+     *
+     * @return a stream of every game in the catalog
+     */
+    public Stream<BoardGame> stream() {
+        return IntStream.range(0, table.size()).mapToObj(table::game);
+    }
+}
@@ -0,0 +1,69 @@
+package student.catalog;
+
+import student.BoardGame;
+import student.GameData;
+
+/**
+ * Where a {@link GameCatalog} keeps its games: one fixed-width record per row, in row order.
+ *
+ * The catalog reads single fields through the table, so the games can be held as objects on the
+ * heap or as columns in buffers outside it, and a game is only built as a BoardGame when a query
+ * returns it.
+ */
+public interface GameTable {
+    /**
+     * Gets the number of rows.
+     *
+     * @return the row count
+     */
+    int size();
+
+    /**
+     * Gets the BGG id of a row.
+     *
+     * @param row the row id
+     * @return the BGG id
+     */
+    int id(int row);
+
+    /**
+     * Gets a numeric column of a row.
+     *
+     * @param row the row id
+     * @param column the column, anything but NAME or a range column
+     * @return the value
+     */
+    double value(int row, GameData column);
+
+    /**
+     * Gets the name of a row.
+     *
+     * @param row the row id
+     * @return the name
+     */
+    String name(int row);
+
+    /**
+     * Gets the name key of a row (see {@link NameKey}).
+     *
+     * @param row the row id
+     * @return the folded name
+     */
+    default String nameKey(int row) {
+        return NameKey.of(name(row));
+    }
+
+    /**
+     * Gets the game at a row, building it from the fields if the table does not hold it.
+     *
+     * @param row the row id
+     * @return the game
+     */
+    default BoardGame game(int row) {
+        return new BoardGame(name(row), id(row), (int) value(row, GameData.MIN_PLAYERS),
+                (int) value(row, GameData.MAX_PLAYERS), (int) value(row, GameData.MIN_TIME),
+                (int) value(row, GameData.MAX_TIME), value(row, GameData.DIFFICULTY),
+                (int) value(row, GameData.RANK), value(row, GameData.RATING),
+                (int) value(row, GameData.YEAR));
+    }
+}
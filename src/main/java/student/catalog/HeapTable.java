@@ -0,0 +1,67 @@
+package student.catalog;
+
+import java.util.Map;
+import student.BoardGame;
+import student.GameData;
+
+/**
+ * A game table on the heap: the BoardGame objects, plus each numeric column as a primitive array
+ * so scans do not touch the objects.
+ */
+final class HeapTable implements GameTable {
+    /** The games, indexed by row id. */
+    private final BoardGame[] rows;
+    /** Every numeric column as a primitive array, indexed by row id. */
+    private final Map<GameData, double[]> columns;
+
+    /**
+     * Creates a table.
+     *
+     * @param rows the games, in row order
+     * @param columns every numeric column, indexed by row id
+     */
+    HeapTable(BoardGame[] rows, Map<GameData, double[]> columns) {
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    @Override
+    public int size() {
+        return rows.length;
+    }
+
+    @Override
+    public int id(int row) {
+        return rows[row].getId();
+    }
+
+    @Override
+    public double value(int row, GameData column) {
+        return columns.get(column)[row];
+    }
+
+    @Override
+    public String name(int row) {
+        return rows[row].getName();
+    }
+
+    @Override
+    public String nameKey(int row) {
+        return rows[row].getNameKey();
+    }
+
+    @Override
+    public BoardGame game(int row) {
+        return rows[row];
+    }
+
+    /**
+     * Gets a numeric column.
+     *
+     * @param column the column
+     * @return the values, indexed by row id; not a copy
+     */
+    double[] column(GameData column) {
+        return columns.get(column);
+    }
+}
@@ -0,0 +1,119 @@
+package student.catalog;
+
+import java.util.Arrays;
+
+/**
+ * A hash table from BGG id to a slot number, held in two int arrays.
+ *
+ * Used where games are keyed by id alone, such as merging collections, so a lookup hashes one
+ * int and compares ints instead of going through {@link student.BoardGame#hashCode()} and
+ * equals, which reflect over the fields. Open addressing with linear probing, kept at most half
+ * full.
+ */
+public final class IdTable {
+    /** Marks a free entry in slots. */
+    private static final int FREE = -1;
+
+    /** The ids, at their hashed entry or the next free one after it. */
+    private int[] ids;
+    /** The slot of the id at the same entry, FREE if the entry is unused. */
+    private int[] slots;
+    /** Number of ids held. */
+    private int size;
+
+    /**
+     * Creates a table.
+     *
+     * @param expected the number of ids expected, to size the table once
+     */
+    public IdTable(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) << 1;
+        ids = new int[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+    }
+
+    /**
+     * Gets the number of ids held.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Looks up the slot of an id.
+     *
+     * @param id the id
+     * @return its slot, or -1 if the id is not held
+     */
+    public int get(int id) {
+        int mask = ids.length - 1;
+        for (int at = hash(id) & mask; slots[at] != FREE; at = (at + 1) & mask) {
+            if (ids[at] == id) {
+                return slots[at];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the slot of an id, replacing any it had.
+     *
+     * @param id the id
+     * @param slot the slot, zero or more
+     * @throws IllegalArgumentException if the slot is negative
+     */
+    public void put(int id, int slot) {
+        if (slot < 0) {
+            throw new IllegalArgumentException("Slots are zero or more: " + slot);
+        }
+        if ((size + 1) * 2 > ids.length) {
+            grow();
+        }
+        int mask = ids.length - 1;
+        int at = hash(id) & mask;
+        while (slots[at] != FREE && ids[at] != id) {
+            at = (at + 1) & mask;
+        }
+        if (slots[at] == FREE) {
+            size++;
+        }
+        ids[at] = id;
+        slots[at] = slot;
+    }
+
+    /**
+     * Doubles the table, placing every id again.
+     */
+    private void grow() {
+        int[] oldIds = ids;
+        int[] oldSlots = slots;
+        ids = new int[oldIds.length * 2];
+        slots = new int[oldIds.length * 2];
+        Arrays.fill(slots, FREE);
+        int mask = ids.length - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldSlots[i] != FREE) {
+                int at = hash(oldIds[i]) & mask;
+                while (slots[at] != FREE) {
+                    at = (at + 1) & mask;
+                }
+                ids[at] = oldIds[i];
+                slots[at] = oldSlots[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads an id over the table, as ids are often close together.
+     *
+     * @param id the id
+     * @return the hash
+     */
+    private static int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,120 @@
+package student.catalog;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import student.Operations;
+
+/**
+ * Index over a range column such as [minplayers, maxplayers], answering "which games include
+ * this value" with one lookup.
+ *
+ * The distinct range ends split the number line into elementary segments: each end point on its
+ * own, and the open gaps between them. Every value inside a segment is in exactly the same
+ * ranges, so the index keeps one precomputed bitset per segment, and a lookup is a binary search
+ * for the segment followed by a copy of its bitset. Player counts and play times only have a few
+ * dozen distinct ends, so this stays small.
+ *
+ * The other comparisons only depend on one end of the range (players&gt;=5 is maxplayers&gt;=5),
+ * so they are answered by the range indexes of the two end columns.
+ */
+public final class IntervalIndex {
+    /** The distinct range ends, ascending. */
+    private final double[] points;
+    /**
+     * Rows per segment: segment 2i + 1 is points[i] itself, segment 2i the values between
+     * points[i - 1] and points[i].
+     */
+    private final BitSet[] segments;
+    /** Range index on the low end of the ranges. */
+    private final SortedIndex lower;
+    /** Range index on the high end of the ranges. */
+    private final SortedIndex upper;
+    /** Number of rows in the catalog. */
+    private final int rows;
+
+    /**
+     * Builds the index for a range column.
+     *
+     * @param low the low end of every row's range, indexed by row id
+     * @param high the high end of every row's range, indexed by row id
+     * @param lower range index on low
+     * @param upper range index on high
+     */
+    public IntervalIndex(double[] low, double[] high, SortedIndex lower, SortedIndex upper) {
+        this.rows = low.length;
+        this.lower = lower;
+        this.upper = upper;
+        double[] ends = new double[rows * 2];
+        System.arraycopy(low, 0, ends, 0, rows);
+        System.arraycopy(high, 0, ends, rows, rows);
+        this.points = Arrays.stream(ends).sorted().distinct().toArray();
+        this.segments = new BitSet[points.length * 2 + 1];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new BitSet(rows);
+        }
+        for (int row = 0; row < rows; row++) {
+            if (low[row] > high[row]) {
+                continue; // an empty range includes nothing
+            }
+            int last = segmentOf(high[row]);
+            for (int seg = segmentOf(low[row]); seg <= last; seg++) {
+                segments[seg].set(row);
+            }
+        }
+    }
+
+    /**
+     * Finds the rows whose range includes a value.
+     *
+     * @param value the value
+     * @return the matching rows
+     */
+    public BitSet stab(double value) {
+        return (BitSet) segments[segmentOf(value)].clone();
+    }
+
+    /**
+     * Counts the rows whose range includes a value, without building the row set.
+     *
+     * @param value the value
+     * @return the number of matching rows
+     */
+    public int count(double value) {
+        return segments[segmentOf(value)].cardinality();
+    }
+
+    /**
+     * Finds the rows matching a comparison on the range column.
+     *
+     * == matches ranges that include the value and != the ones that do not; &gt; and &gt;= ranges
+     * whose high end is above the value; &lt; and &lt;= ranges whose low end is below it.
+     *
+     * @param op the comparison, anything but contains
+     * @param value the value compared against
+     * @return the matching rows
+     */
+    public BitSet matching(Operations op, double value) {
+        return switch (op) {
+            case EQUALS -> stab(value);
+            case GREATER_THAN, GREATER_THAN_EQUALS -> upper.matching(op, value);
+            case LESS_THAN, LESS_THAN_EQUALS -> lower.matching(op, value);
+            case NOT_EQUALS -> {
+                BitSet outside = stab(value);
+                outside.flip(0, rows);
+                yield outside;
+            }
+            case CONTAINS, FUZZY -> new BitSet(rows);
+        };
+    }
+
+    /**
+     * Finds the elementary segment a value falls in.
+     *
+     * @param value the value
+     * @return the segment, 0 to 2 * points.length
+     */
+    private int segmentOf(double value) {
+        int at = Arrays.binarySearch(points, value);
+        return at >= 0 ? 2 * at + 1 : 2 * (-at - 1);
+    }
+}
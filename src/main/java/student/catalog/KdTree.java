@@ -0,0 +1,308 @@
+package student.catalog;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * KD-tree over points with a few numeric dimensions, for nearest neighbour queries.
+ *
+ * The tree is implicit: the points are reordered so that each range of positions is a subtree,
+ * with its splitting point at the middle, the points before it on the low side of the split and
+ * the points after it on the high side. Each split is on the dimension the subtree is most spread
+ * out on. Small ranges are leaves and are scanned. The coordinates are stored in tree order in one
+ * flat array, so a search reads memory mostly in order.
+ *
+ * A search keeps the k closest points found so far, and skips the far side of a split whenever
+ * the split plane is further away than the k-th closest point.
+ */
+public final class KdTree {
+    /** Subtrees with at most this many points are scanned. */
+    private static final int LEAF_SIZE = 8;
+
+    /** Number of dimensions. */
+    private final int dims;
+    /** Row id of each position. */
+    private final int[] rows;
+    /** Coordinates by position: coords[position * dims + dimension]. */
+    private final double[] coords;
+    /** Split dimension of the node at each middle position. */
+    private final byte[] split;
+
+    /**
+     * Builds the tree.
+     *
+     * @param points the points, points[dimension][row]
+     */
+    public KdTree(double[][] points) {
+        this.dims = points.length;
+        int n = dims == 0 ? 0 : points[0].length;
+        this.rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = i;
+        }
+        this.split = new byte[n];
+        build(points, 0, n);
+        this.coords = new double[n * dims];
+        for (int i = 0; i < n; i++) {
+            for (int d = 0; d < dims; d++) {
+                coords[i * dims + d] = points[d][rows[i]];
+            }
+        }
+    }
+
+    /**
+     * Finds the rows closest to a point.
+     *
+     * @param query the point
+     * @param k the number of rows wanted
+     * @param allowed the rows that may be returned, or null for every row
+     * @param exclude a row never to return (such as the query game itself), or -1
+     * @return up to k rows, nearest first
+     */
+    public int[] nearest(double[] query, int k, BitSet allowed, int exclude) {
+        if (k <= 0) {
+            return new int[0];
+        }
+        Neighbours found = new Neighbours(k);
+        search(0, rows.length, query, found, allowed, exclude);
+        return found.sorted();
+    }
+
+    /**
+     * Arranges the positions lo to hi - 1 into a subtree.
+     *
+     * @param points the points, by dimension
+     * @param lo the first position
+     * @param hi one past the last position
+     */
+    private void build(double[][] points, int lo, int hi) {
+        if (hi - lo <= LEAF_SIZE) {
+            return;
+        }
+        int dim = widestDimension(points, lo, hi);
+        int mid = (lo + hi) >>> 1;
+        select(points[dim], lo, hi - 1, mid);
+        split[mid] = (byte) dim;
+        build(points, lo, mid);
+        build(points, mid + 1, hi);
+    }
+
+    /**
+     * Finds the dimension the points in a range are most spread out on.
+     *
+     * @param points the points, by dimension
+     * @param lo the first position
+     * @param hi one past the last position
+     * @return the dimension
+     */
+    private int widestDimension(double[][] points, int lo, int hi) {
+        int best = 0;
+        double bestSpread = -1;
+        for (int d = 0; d < dims; d++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = lo; i < hi; i++) {
+                double v = points[d][rows[i]];
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            if (max - min > bestSpread) {
+                bestSpread = max - min;
+                best = d;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Reorders positions lo to hi so the one at k has the value it would have if sorted, with
+     * no larger values before it and no smaller ones after it.
+     *
+     * @param key the value of each row
+     * @param lo the first position
+     * @param hi the last position
+     * @param k the position to fix
+     */
+    private void select(double[] key, int lo, int hi, int k) {
+        while (lo < hi) {
+            double pivot = key[rows[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (key[rows[i]] < pivot) {
+                    i++;
+                }
+                while (key[rows[j]] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int t = rows[i];
+                    rows[i++] = rows[j];
+                    rows[j--] = t;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Searches the subtree at positions lo to hi - 1.
+     *
+     * @param lo the first position
+     * @param hi one past the last position
+     * @param query the point
+     * @param found the closest rows so far
+     * @param allowed the rows that may be returned, or null for every row
+     * @param exclude a row never to return, or -1
+     */
+    private void search(int lo, int hi, double[] query, Neighbours found, BitSet allowed,
+            int exclude) {
+        if (hi - lo <= LEAF_SIZE) {
+            for (int i = lo; i < hi; i++) {
+                consider(i, query, found, allowed, exclude);
+            }
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double diff = query[split[mid]] - coords[mid * dims + split[mid]];
+        consider(mid, query, found, allowed, exclude);
+        if (diff < 0) {
+            search(lo, mid, query, found, allowed, exclude);
+            if (!found.full() || diff * diff < found.worst()) {
+                search(mid + 1, hi, query, found, allowed, exclude);
+            }
+        } else {
+            search(mid + 1, hi, query, found, allowed, exclude);
+            if (!found.full() || diff * diff < found.worst()) {
+                search(lo, mid, query, found, allowed, exclude);
+            }
+        }
+    }
+
+    /**
+     * Offers the point at a position to the closest rows found.
+     *
+     * @param position the position
+     * @param query the point searched for
+     * @param found the closest rows so far
+     * @param allowed the rows that may be returned, or null for every row
+     * @param exclude a row never to return, or -1
+     */
+    private void consider(int position, double[] query, Neighbours found, BitSet allowed,
+            int exclude) {
+        int row = rows[position];
+        if (row == exclude || (allowed != null && !allowed.get(row))) {
+            return;
+        }
+        double distance = 0;
+        int base = position * dims;
+        for (int d = 0; d < dims; d++) {
+            double diff = query[d] - coords[base + d];
+            distance += diff * diff;
+        }
+        found.offer(row, distance);
+    }
+
+    /**
+     * The k closest rows found so far: a max-heap on squared distance, in primitive arrays.
+     */
+    private static final class Neighbours {
+        /** Squared distance of each entry. */
+        private final double[] distance;
+        /** Row of each entry. */
+        private final int[] row;
+        /** Number of entries. */
+        private int size;
+
+        /**
+         * Creates an empty heap.
+         *
+         * @param k the number of rows to keep
+         */
+        Neighbours(int k) {
+            this.distance = new double[k];
+            this.row = new int[k];
+        }
+
+        /**
+         * Whether k rows have been found.
+         *
+         * @return true if the heap is full
+         */
+        boolean full() {
+            return size == row.length;
+        }
+
+        /**
+         * The squared distance of the furthest row kept.
+         *
+         * @return the largest distance in the heap
+         */
+        double worst() {
+            return distance[0];
+        }
+
+        /**
+         * Keeps a row if it is among the k closest so far.
+         *
+         * @param r the row
+         * @param d its squared distance
+         */
+        void offer(int r, double d) {
+            if (size < row.length) {
+                int i = size++;
+                while (i > 0 && distance[(i - 1) / 2] < d) {
+                    distance[i] = distance[(i - 1) / 2];
+                    row[i] = row[(i - 1) / 2];
+                    i = (i - 1) / 2;
+                }
+                distance[i] = d;
+                row[i] = r;
+            } else if (d < distance[0]) {
+                int i = 0;
+                while (true) {
+                    int child = 2 * i + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && distance[child + 1] > distance[child]) {
+                        child++;
+                    }
+                    if (distance[child] <= d) {
+                        break;
+                    }
+                    distance[i] = distance[child];
+                    row[i] = row[child];
+                    i = child;
+                }
+                distance[i] = d;
+                row[i] = r;
+            }
+        }
+
+        /**
+         * Gets the rows kept, nearest first.
+         *
+         * @return the rows
+         */
+        int[] sorted() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> distance[a] != distance[b]
+                    ? Double.compare(distance[a], distance[b]) : Integer.compare(row[a], row[b]));
+            int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = row[order[i]];
+            }
+            return result;
+        }
+    }
+}
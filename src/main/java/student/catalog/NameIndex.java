@@ -0,0 +1,402 @@
+package student.catalog;
+
+import java.nio.IntBuffer;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntFunction;
+import java.util.function.IntToDoubleFunction;
+import java.util.stream.IntStream;
+import student.GameData;
+import student.Operations;
+
+/**
+ * Prefix index over the game names: the row ids sorted by name key (see {@link NameKey}), so
+ * case and accents are ignored.
+ *
+ * The games whose name starts with a prefix are one contiguous run of the sorted rows, found with
+ * two binary searches, and so are the games matching a name comparison (name&lt;, name&gt;= and
+ * so on), so neither needs to look at the other rows.
+ *
+ * For autocomplete, each ranking column gets a sparse table over the sorted rows: entry [j][i] is
+ * the best row among the 2^j rows from position i, so the best row of any run is the better of
+ * two overlapping entries. The top N completions are taken best first from a small heap of runs:
+ * pop the run with the best row, return that row, and push the two runs either side of it. That
+ * touches 2N + 1 runs however many names share the prefix. A table is built the first time a
+ * completion is ranked by its column.
+ *
+ * The sorted rows and keys are read through a buffer and a lookup, so they can be held in arrays
+ * or in a mapped index file (see {@link CatalogFile}).
+ */
+public final class NameIndex {
+    /** Row ids, sorted by name key (ties by row id). */
+    private final IntBuffer order;
+    /** The name key at each position, in the same order as {@link #order}. */
+    private final IntFunction<String> keys;
+    /** Number of rows in the catalog. */
+    private final int rows;
+    /** The score of every row per ranking column, by row id. */
+    private final Map<GameData, IntToDoubleFunction> rankBy;
+    /** Best row lookup per ranking column, built on first use. */
+    private final Map<GameData, RangeBest> rankings = new EnumMap<>(GameData.class);
+
+    /**
+     * Builds the index.
+     *
+     * @param names the name key of every row (see {@link NameKey}), indexed by row id
+     * @param rankBy the columns completions can be ranked by, each with a score per row id,
+     *        higher ranking first
+     */
+    public NameIndex(String[] names, Map<GameData, double[]> rankBy) {
+        this.rows = names.length;
+        int[] sorted = IntStream.range(0, rows).boxed()
+                .sorted(Comparator.comparing((Integer row) -> names[row]))
+                .mapToInt(Integer::intValue).toArray();
+        String[] sortedKeys = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            sortedKeys[i] = names[sorted[i]];
+        }
+        this.order = IntBuffer.wrap(sorted);
+        this.keys = position -> sortedKeys[position];
+        this.rankBy = scores(rankBy);
+    }
+
+    /**
+     * Opens an index already built, such as one in an index file.
+     *
+     * @param order the row ids, sorted by name key (ties by row id)
+     * @param keys the name key at each position of order
+     * @param rankBy the columns completions can be ranked by, each with a score by row id,
+     *        higher ranking first
+     */
+    NameIndex(IntBuffer order, IntFunction<String> keys,
+            Map<GameData, IntToDoubleFunction> rankBy) {
+        this.rows = order.limit();
+        this.order = order;
+        this.keys = keys;
+        this.rankBy = rankBy;
+    }
+
+    /**
+     * Builds the index of a new catalog version from the index of the version before it, without
+     * sorting it again: the rows kept are already in order, so only the rows added are sorted,
+     * then merged in.
+     *
+     * @param base the index of the version before
+     * @param moved the new row id of each row of the version before, -1 if it was removed
+     * @param names the name key of every row of the new version, indexed by row id
+     * @param added the rows of the new version that were not in the version before
+     * @param rankBy the columns completions can be ranked by, each with a score per row id of
+     *        the new version, higher ranking first
+     */
+    NameIndex(NameIndex base, int[] moved, String[] names, int[] added,
+            Map<GameData, double[]> rankBy) {
+        this.rows = names.length;
+        int[] sorted = new int[rows];
+        String[] sortedKeys = new String[rows];
+        int[] fresh = IntStream.of(added).boxed()
+                .sorted(Comparator.comparing((Integer row) -> names[row]))
+                .mapToInt(Integer::intValue).toArray();
+        int b = 0;
+        int f = 0;
+        for (int i = 0; i < rows; i++) {
+            while (b < base.rows && moved[base.order.get(b)] < 0) {
+                b++;
+            }
+            boolean kept = f == fresh.length;
+            if (!kept && b < base.rows) {
+                int byKey = base.keys.apply(b).compareTo(names[fresh[f]]);
+                kept = byKey < 0 || byKey == 0 && moved[base.order.get(b)] < fresh[f];
+            }
+            sorted[i] = kept ? moved[base.order.get(b++)] : fresh[f++];
+            sortedKeys[i] = names[sorted[i]];
+        }
+        this.order = IntBuffer.wrap(sorted);
+        this.keys = position -> sortedKeys[position];
+        this.rankBy = scores(rankBy);
+    }
+
+    /**
+     * Reads score arrays as lookups.
+     *
+     * @param rankBy a score per row id, by column
+     * @return the same scores, by column
+     */
+    private static Map<GameData, IntToDoubleFunction> scores(Map<GameData, double[]> rankBy) {
+        Map<GameData, IntToDoubleFunction> scores = new EnumMap<>(GameData.class);
+        for (Map.Entry<GameData, double[]> column : rankBy.entrySet()) {
+            double[] score = column.getValue();
+            scores.put(column.getKey(), row -> score[row]);
+        }
+        return scores;
+    }
+
+    /**
+     * Finds the rows matching a name comparison.
+     *
+     * @param op the comparison: ==, !=, &lt;, &lt;=, &gt; or &gt;=
+     * @param value the name compared against
+     * @return the matching rows
+     */
+    public BitSet matching(Operations op, String value) {
+        int[] run = run(op, value);
+        BitSet result = new BitSet(rows);
+        for (int i = run[0]; i < run[1]; i++) {
+            result.set(order.get(i));
+        }
+        if (op == Operations.NOT_EQUALS) {
+            result.flip(0, rows);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the rows matching a name comparison, without building the row set.
+     *
+     * @param op the comparison: ==, !=, &lt;, &lt;=, &gt; or &gt;=
+     * @param value the name compared against
+     * @return the number of matching rows
+     */
+    public int count(Operations op, String value) {
+        int[] run = run(op, value);
+        int inRun = run[1] - run[0];
+        return op == Operations.NOT_EQUALS ? rows - inRun : inRun;
+    }
+
+    /**
+     * Finds the best rows whose name starts with a prefix, ignoring case and accents.
+     *
+     * @param prefix the start of the name
+     * @param rankBy the column to rank by, one given when the index was built
+     * @param n the number of rows wanted
+     * @return up to n rows, best first, ties in name order
+     * @throws IllegalArgumentException if the index cannot rank by the column
+     */
+    public int[] complete(String prefix, GameData rankBy, int n) {
+        RangeBest best = ranking(rankBy);
+        String key = NameKey.of(prefix);
+        int from = lowerBound(key);
+        int to = prefixEnd(key, from);
+        int[] result = new int[Math.max(0, Math.min(n, to - from))];
+        if (result.length == 0) {
+            return result;
+        }
+        // each entry is a run {from, to, best position}, best row first
+        PriorityQueue<int[]> runs = new PriorityQueue<>((a, b) -> best.compare(a[2], b[2]));
+        runs.add(new int[] {from, to, best.in(from, to)});
+        for (int found = 0; found < result.length; found++) {
+            int[] run = runs.poll();
+            result[found] = order.get(run[2]);
+            if (run[0] < run[2]) {
+                runs.add(new int[] {run[0], run[2], best.in(run[0], run[2])});
+            }
+            if (run[2] + 1 < run[1]) {
+                runs.add(new int[] {run[2] + 1, run[1], best.in(run[2] + 1, run[1])});
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of rows in the index.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Gets the name key at a position in name order.
+     *
+     * @param position the position, 0 to size() - 1
+     * @return the key
+     */
+    public String keyAt(int position) {
+        return keys.apply(position);
+    }
+
+    /**
+     * Gets the row at a position in name order.
+     *
+     * @param position the position, 0 to size() - 1
+     * @return the row id
+     */
+    int rowAt(int position) {
+        return order.get(position);
+    }
+
+    /**
+     * Gets the best row lookup of a ranking column, building it on first use.
+     *
+     * @param column the ranking column
+     * @return the lookup
+     * @throws IllegalArgumentException if the index cannot rank by the column
+     */
+    private RangeBest ranking(GameData column) {
+        IntToDoubleFunction byRow = rankBy.get(column);
+        if (byRow == null) {
+            throw new IllegalArgumentException("Cannot rank completions by " + column);
+        }
+        synchronized (rankings) {
+            return rankings.computeIfAbsent(column, c -> {
+                double[] score = new double[rows];
+                for (int i = 0; i < rows; i++) {
+                    score[i] = byRow.applyAsDouble(order.get(i));
+                }
+                return new RangeBest(score);
+            });
+        }
+    }
+
+    /**
+     * Finds the positions a comparison matches; for != the positions it does not match.
+     *
+     * @param op the comparison
+     * @param value the name compared against
+     * @return {from, to}, to exclusive
+     * @throws IllegalArgumentException for contains or fuzzy, which the index cannot answer
+     */
+    private int[] run(Operations op, String value) {
+        String key = NameKey.of(value);
+        return switch (op) {
+            case EQUALS, NOT_EQUALS -> new int[] {lowerBound(key), upperBound(key)};
+            case LESS_THAN -> new int[] {0, lowerBound(key)};
+            case LESS_THAN_EQUALS -> new int[] {0, upperBound(key)};
+            case GREATER_THAN -> new int[] {upperBound(key), rows};
+            case GREATER_THAN_EQUALS -> new int[] {lowerBound(key), rows};
+            case CONTAINS, FUZZY -> throw new IllegalArgumentException(
+                    "The name index cannot answer " + op);
+        };
+    }
+
+    /**
+     * Finds the first position whose key is at least a key.
+     *
+     * @param key the folded key
+     * @return the position, 0 to size
+     */
+    private int lowerBound(String key) {
+        int lo = 0;
+        int hi = rows;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys.apply(mid).compareTo(key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Finds the first position whose key is above a key.
+     *
+     * @param key the folded key
+     * @return the position, 0 to size
+     */
+    private int upperBound(String key) {
+        int lo = 0;
+        int hi = rows;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys.apply(mid).compareTo(key) <= 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Finds the end of the run of keys starting with a prefix.
+     *
+     * @param prefix the folded prefix
+     * @param from the first position with a key at least the prefix
+     * @return one past the last position whose key starts with the prefix
+     */
+    private int prefixEnd(String prefix, int from) {
+        int lo = from;
+        int hi = rows;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys.apply(mid).startsWith(prefix)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Sparse table answering "which position in this run has the best score" in constant time.
+     */
+    private static final class RangeBest {
+        /** Score by position, higher is better. */
+        private final double[] score;
+        /** best[j][i]: the best position among the 2^j positions from i. */
+        private final int[][] best;
+
+        /**
+         * Builds the table.
+         *
+         * @param score the score of each position, higher is better
+         */
+        RangeBest(double[] score) {
+            this.score = score;
+            int levels = 1;
+            while ((1 << levels) <= score.length) {
+                levels++;
+            }
+            this.best = new int[levels][];
+            best[0] = IntStream.range(0, score.length).toArray();
+            for (int j = 1; j < levels; j++) {
+                int width = 1 << j;
+                best[j] = new int[score.length - width + 1];
+                for (int i = 0; i < best[j].length; i++) {
+                    best[j][i] = better(best[j - 1][i], best[j - 1][i + width / 2]);
+                }
+            }
+        }
+
+        /**
+         * Finds the best position in a run.
+         *
+         * @param from the first position
+         * @param to one past the last position, more than from
+         * @return the best position, the first one on ties
+         */
+        int in(int from, int to) {
+            int j = 31 - Integer.numberOfLeadingZeros(to - from);
+            return better(best[j][from], best[j][to - (1 << j)]);
+        }
+
+        /**
+         * Orders two positions best first, the earlier one on ties.
+         *
+         * @param a a position
+         * @param b another position
+         * @return negative if a ranks first
+         */
+        int compare(int a, int b) {
+            int byScore = Double.compare(score[b], score[a]);
+            return byScore != 0 ? byScore : Integer.compare(a, b);
+        }
+
+        /**
+         * Picks the better of two positions.
+         *
+         * @param a a position
+         * @param b another position
+         * @return the one that ranks first
+         */
+        private int better(int a, int b) {
+            return compare(a, b) <= 0 ? a : b;
+        }
+    }
+}
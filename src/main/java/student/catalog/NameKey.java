@@ -0,0 +1,72 @@
+package student.catalog;
+
+import java.text.Normalizer;
+
+/**
+ * Folds names into keys that compare with plain {@link String#compareTo} and
+ * {@link String#equals}: compatibility decomposed (NFKD), accents and other combining marks
+ * dropped, and case folded. "Café", "CAFE" and "cafe" all have the key "cafe", and a ligature
+ * such as "ﬁ" becomes "fi".
+ *
+ * Every game computes its key once, when it is created, so sorting and matching by name never
+ * fold a character again.
+ */
+public final class NameKey {
+    /** Utility class. */
+    private NameKey() {
+    }
+
+    /**
+     * Gets the key of a name.
+     *
+     * @param name the name, as written
+     * @return the folded key
+     */
+    public static String of(String name) {
+        if (isAscii(name)) {
+            return foldCase(name);
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFKD);
+        StringBuilder key = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            int type = Character.getType(c);
+            if (type != Character.NON_SPACING_MARK && type != Character.ENCLOSING_MARK
+                    && type != Character.COMBINING_SPACING_MARK) {
+                key.append(Character.toLowerCase(Character.toUpperCase(c)));
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Checks whether a name is plain ASCII, which needs no decomposition.
+     *
+     * @param name the name
+     * @return true if every character is below 128
+     */
+    private static boolean isAscii(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lower cases an ASCII name.
+     *
+     * @param name the name, ASCII only
+     * @return the name in lower case
+     */
+    private static String foldCase(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] >= 'A' && chars[i] <= 'Z') {
+                chars[i] += 'a' - 'A';
+            }
+        }
+        return new String(chars);
+    }
+}
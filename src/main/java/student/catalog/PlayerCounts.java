@@ -0,0 +1,211 @@
+package student.catalog;
+
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+import student.Operations;
+
+/**
+ * A column of player counts, such as the best or recommended counts of a BoardGameGeek export.
+ *
+ * Each row is a 64-bit mask, bit c - 1 set if the game is listed at c players, and each count
+ * has a bitmap of the rows listed at it, built on first use, so bestat==4 is a single bitmap
+ * lookup. A comparison asks whether a game is listed at some count that satisfies it: bestat>=5
+ * finds the games best at 5 or more players, and != the games not listed at that count.
+ */
+public final class PlayerCounts {
+    /** The largest count a mask holds. */
+    public static final int MAX_COUNT = Long.SIZE;
+
+    /** The counts of each row. */
+    private final long[] masks;
+    /** The rows listed at each count, index 0 standing for 1 player; built on first use. */
+    private volatile BitSet[] byCount;
+
+    /**
+     * Parses a column.
+     *
+     * @param cells the cell of every row, indexed by row id; null for a missing cell
+     */
+    public PlayerCounts(String[] cells) {
+        this.masks = new long[cells.length];
+        for (int row = 0; row < cells.length; row++) {
+            masks[row] = cells[row] == null ? 0 : parse(cells[row]);
+        }
+    }
+
+    /**
+     * Parses the column of a new catalog version, copying the masks of the rows kept from the
+     * version before it.
+     *
+     * @param base the column of the version before
+     * @param from the row of the version before each row came from, -1 for a row added
+     * @param cells the cell of each row added, indexed by new row id
+     */
+    PlayerCounts(PlayerCounts base, int[] from, String[] cells) {
+        this.masks = new long[from.length];
+        for (int row = 0; row < from.length; row++) {
+            if (from[row] >= 0) {
+                masks[row] = base.masks[from[row]];
+            } else {
+                masks[row] = cells[row] == null ? 0 : parse(cells[row]);
+            }
+        }
+    }
+
+    /**
+     * Parses a list of counts: numbers and ranges separated by commas or spaces, such as 2,3,4
+     * or 3-5. A count written as 6+ is read as 6. Counts outside 1 to 64 and anything unreadable
+     * are left out.
+     *
+     * @param cell the cell
+     * @return the counts as a mask, bit c - 1 for c players
+     */
+    static long parse(String cell) {
+        long mask = 0;
+        for (String part : cell.split("[,;\\s]+")) {
+            String[] ends = part.replace("+", "").split("[-–]");
+            try {
+                int from = Integer.parseInt(ends[0].trim());
+                int to = ends.length > 1 ? Integer.parseInt(ends[1].trim()) : from;
+                for (int count = Math.max(1, from); count <= Math.min(MAX_COUNT, to); count++) {
+                    mask |= 1L << (count - 1);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                // skip what is not a count
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Gets the counts of a row.
+     *
+     * @param row the row
+     * @return the mask, bit c - 1 for c players; 0 if none are listed
+     */
+    public long mask(int row) {
+        return masks[row];
+    }
+
+    /**
+     * Builds a check of a comparison for a row.
+     *
+     * @param op the comparison
+     * @param value the player count compared against
+     * @return the check, by row id
+     * @throws IllegalArgumentException if the value is not a count from 1 to 64, or the comparison
+     *         needs text
+     */
+    public IntPredicate matcher(Operations op, String value) {
+        long wanted = wanted(op, value);
+        boolean negate = op == Operations.NOT_EQUALS;
+        return row -> ((masks[row] & wanted) != 0) != negate;
+    }
+
+    /**
+     * Finds the rows matching a comparison from the per-count bitmaps.
+     *
+     * @param op the comparison
+     * @param value the player count compared against
+     * @return the matching rows
+     * @throws IllegalArgumentException as {@link #matcher(Operations, String)} does
+     */
+    public BitSet rows(Operations op, String value) {
+        long wanted = wanted(op, value);
+        BitSet[] bitmaps = bitmaps();
+        BitSet result = new BitSet(masks.length);
+        for (long rest = wanted; rest != 0; rest &= rest - 1) {
+            result.or(bitmaps[Long.numberOfTrailingZeros(rest)]);
+        }
+        if (op == Operations.NOT_EQUALS) {
+            result.flip(0, masks.length);
+        }
+        return result;
+    }
+
+    /**
+     * Counts the bitmaps a comparison reads.
+     *
+     * @param op the comparison
+     * @param value the player count compared against
+     * @return the number of bitmaps or-ed together
+     * @throws IllegalArgumentException as {@link #matcher(Operations, String)} does
+     */
+    public int bitmapsRead(Operations op, String value) {
+        return Long.bitCount(wanted(op, value));
+    }
+
+    /**
+     * Compares two rows for sorting, by the smallest count listed. Rows with none come last
+     * either way.
+     *
+     * @param a a row
+     * @param b another row
+     * @param ascending whether smaller counts come first
+     * @return negative if a sorts first
+     */
+    public int compare(int a, int b, boolean ascending) {
+        if (masks[a] == 0 || masks[b] == 0) {
+            return Boolean.compare(masks[a] == 0, masks[b] == 0);
+        }
+        int order = Integer.compare(Long.numberOfTrailingZeros(masks[a]),
+                Long.numberOfTrailingZeros(masks[b]));
+        return ascending ? order : -order;
+    }
+
+    /**
+     * Gets the rows listed at each count, building the bitmaps on first use.
+     *
+     * @return the rows, index 0 standing for 1 player
+     */
+    private BitSet[] bitmaps() {
+        BitSet[] built = byCount;
+        if (built == null) {
+            synchronized (this) {
+                if (byCount == null) {
+                    BitSet[] bitmaps = new BitSet[MAX_COUNT];
+                    for (int count = 0; count < MAX_COUNT; count++) {
+                        bitmaps[count] = new BitSet(masks.length);
+                    }
+                    for (int row = 0; row < masks.length; row++) {
+                        for (long rest = masks[row]; rest != 0; rest &= rest - 1) {
+                            bitmaps[Long.numberOfTrailingZeros(rest)].set(row);
+                        }
+                    }
+                    byCount = bitmaps;
+                }
+                built = byCount;
+            }
+        }
+        return built;
+    }
+
+    /**
+     * Works out the counts a comparison asks about. != asks about the count it names, and the
+     * answer is negated.
+     *
+     * @param op the comparison
+     * @param value the player count compared against
+     * @return the counts as a mask
+     * @throws IllegalArgumentException if the value is not a count from 1 to 64, or the comparison
+     *         needs text
+     */
+    private static long wanted(Operations op, String value) {
+        int count = Integer.parseInt(value.trim());
+        if (count < 1 || count > MAX_COUNT) {
+            throw new IllegalArgumentException("Player counts run from 1 to " + MAX_COUNT + ": "
+                    + value);
+        }
+        long at = 1L << (count - 1);
+        long below = at - 1;
+        return switch (op) {
+            case EQUALS, NOT_EQUALS -> at;
+            case GREATER_THAN -> ~(below | at);
+            case GREATER_THAN_EQUALS -> ~below;
+            case LESS_THAN -> below;
+            case LESS_THAN_EQUALS -> below | at;
+            case CONTAINS, FUZZY ->
+                throw new IllegalArgumentException(op + " is only available for text");
+        };
+    }
+}
@@ -0,0 +1,232 @@
+package student.catalog;
+
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import student.Operations;
+
+/**
+ * Range index over one numeric column: the row ids sorted by the column value.
+ *
+ * Any comparison on the column becomes one contiguous run of the sorted rows, found with two
+ * binary searches, so a range probe costs O(log n + matches) instead of a scan of every row.
+ *
+ * The index is read through buffers, so it can be held in arrays or in a mapped index file (see
+ * {@link CatalogFile}).
+ */
+public final class SortedIndex {
+    /** Row ids, sorted by value (ties by row id). */
+    private final IntBuffer order;
+    /** The column values, in the same order as {@link #order}. */
+    private final DoubleBuffer values;
+    /** Number of rows in the catalog. */
+    private final int rows;
+
+    /**
+     * Builds the index for a column.
+     *
+     * @param column the value of every row, indexed by row id
+     */
+    public SortedIndex(double[] column) {
+        this.rows = column.length;
+        int[] sorted = IntStream.range(0, rows).boxed()
+                .sorted(Comparator.comparingDouble((Integer row) -> column[row]))
+                .mapToInt(Integer::intValue).toArray();
+        double[] sortedValues = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            sortedValues[i] = column[sorted[i]];
+        }
+        this.order = IntBuffer.wrap(sorted);
+        this.values = DoubleBuffer.wrap(sortedValues);
+    }
+
+    /**
+     * Opens an index already built, such as one in an index file.
+     *
+     * @param order the row ids, sorted by value (ties by row id)
+     * @param values the values, in the same order
+     */
+    SortedIndex(IntBuffer order, DoubleBuffer values) {
+        this.rows = order.limit();
+        this.order = order;
+        this.values = values;
+    }
+
+    /**
+     * Builds the index of a new catalog version from the index of the version before it, without
+     * sorting it again: the rows kept are already in order, so only the rows added are sorted,
+     * then merged in.
+     *
+     * @param base the index of the version before
+     * @param moved the new row id of each row of the version before, -1 if it was removed
+     * @param column the value of every row of the new version, indexed by row id
+     * @param added the rows of the new version that were not in the version before
+     */
+    SortedIndex(SortedIndex base, int[] moved, double[] column, int[] added) {
+        this.rows = column.length;
+        int[] sorted = new int[rows];
+        double[] sortedValues = new double[rows];
+        int[] fresh = IntStream.of(added).boxed()
+                .sorted(Comparator.comparingDouble((Integer row) -> column[row]))
+                .mapToInt(Integer::intValue).toArray();
+        int b = 0;
+        int f = 0;
+        for (int i = 0; i < rows; i++) {
+            while (b < base.rows && moved[base.order.get(b)] < 0) {
+                b++;
+            }
+            boolean kept = f == fresh.length || b < base.rows
+                    && before(base.values.get(b), moved[base.order.get(b)], column[fresh[f]],
+                            fresh[f]);
+            sorted[i] = kept ? moved[base.order.get(b++)] : fresh[f++];
+            sortedValues[i] = column[sorted[i]];
+        }
+        this.order = IntBuffer.wrap(sorted);
+        this.values = DoubleBuffer.wrap(sortedValues);
+    }
+
+    /**
+     * Checks whether a row sorts before another: by value, then by row id.
+     *
+     * @param value the value of the first row
+     * @param row the first row
+     * @param otherValue the value of the other row
+     * @param other the other row
+     * @return true if the first row sorts first
+     */
+    private static boolean before(double value, int row, double otherValue, int other) {
+        int order = Double.compare(value, otherValue);
+        return order < 0 || order == 0 && row < other;
+    }
+
+    /**
+     * Finds the rows whose value is within a range.
+     *
+     * @param lo the lower bound, or negative infinity for none
+     * @param loInclusive whether a value equal to lo is in the range
+     * @param hi the upper bound, or positive infinity for none
+     * @param hiInclusive whether a value equal to hi is in the range
+     * @return the matching rows
+     */
+    public BitSet range(double lo, boolean loInclusive, double hi, boolean hiInclusive) {
+        int from = loInclusive ? lowerBound(lo) : upperBound(lo);
+        int to = hiInclusive ? upperBound(hi) : lowerBound(hi);
+        BitSet result = new BitSet(rows);
+        for (int i = from; i < to; i++) {
+            result.set(order.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the rows matching a comparison.
+     *
+     * @param op the comparison, anything but contains
+     * @param value the value compared against
+     * @return the matching rows
+     */
+    public BitSet matching(Operations op, double value) {
+        double inf = Double.POSITIVE_INFINITY;
+        return switch (op) {
+            case EQUALS -> range(value, true, value, true);
+            case GREATER_THAN -> range(value, false, inf, true);
+            case GREATER_THAN_EQUALS -> range(value, true, inf, true);
+            case LESS_THAN -> range(-inf, true, value, false);
+            case LESS_THAN_EQUALS -> range(-inf, true, value, true);
+            case NOT_EQUALS -> {
+                BitSet result = range(value, true, value, true);
+                result.flip(0, rows);
+                yield result;
+            }
+            case CONTAINS, FUZZY -> new BitSet(rows);
+        };
+    }
+
+    /**
+     * Gets the number of rows in the index.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Gets the row at a position in value order.
+     *
+     * @param position the position, 0 (smallest value) to size() - 1
+     * @return the row id
+     */
+    public int rowAt(int position) {
+        return order.get(position);
+    }
+
+    /**
+     * Gets the value at a position in value order.
+     *
+     * @param position the position, 0 (smallest value) to size() - 1
+     * @return the value
+     */
+    public double valueAt(int position) {
+        return values.get(position);
+    }
+
+    /**
+     * Gets the values of some rows, in ascending order, by walking the index instead of sorting.
+     *
+     * @param subset the rows to read
+     * @return their values, ascending
+     */
+    public double[] valuesOf(BitSet subset) {
+        double[] result = new double[subset.cardinality()];
+        int n = 0;
+        for (int i = 0; i < rows && n < result.length; i++) {
+            if (subset.get(order.get(i))) {
+                result[n++] = values.get(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * First position whose value is not less than v.
+     *
+     * @param v the value
+     * @return the position, 0 to rows
+     */
+    private int lowerBound(double v) {
+        int lo = 0;
+        int hi = rows;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values.get(mid) < v) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * First position whose value is greater than v.
+     *
+     * @param v the value
+     * @return the position, 0 to rows
+     */
+    private int upperBound(double v) {
+        int lo = 0;
+        int hi = rows;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values.get(mid) <= v) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,49 @@
+package student.catalog;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A list of strings held as UTF-8 bytes in one buffer, with the offset of each string in another,
+ * so the strings live in an index file (or off the heap) and one is only decoded when it is read.
+ */
+final class StringPool {
+    /** The offset of each string in bytes, plus the end of the last one. */
+    private final IntBuffer offsets;
+    /** The strings, one after another. */
+    private final ByteBuffer bytes;
+
+    /**
+     * Opens a pool.
+     *
+     * @param offsets the offset of each string, plus the end of the last one
+     * @param bytes the UTF-8 bytes of the strings
+     */
+    StringPool(IntBuffer offsets, ByteBuffer bytes) {
+        this.offsets = offsets;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Gets the number of strings.
+     *
+     * @return the size
+     */
+    int size() {
+        return offsets.limit() - 1;
+    }
+
+    /**
+     * Decodes a string.
+     *
+     * @param i the index of the string
+     * @return the string
+     */
+    String get(int i) {
+        int from = offsets.get(i);
+        byte[] utf8 = new byte[offsets.get(i + 1) - from];
+        bytes.get(from, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
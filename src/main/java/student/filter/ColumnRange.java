@@ -0,0 +1,227 @@
+package student.filter;
+
+import student.GameData;
+
+/**
+ * An interval on one numeric column, the result of fusing the range clauses an and has on that
+ * column.
+ *
+ * minplayers&gt;=2,minplayers&lt;=4 becomes 2 &lt;= minplayers &lt;= 4, which one index probe
+ * (or one check per row) answers, instead of one per clause. Ranges are immutable: each clause
+ * narrows the range into a new one.
+ */
+public final class ColumnRange {
+    /** The column the range is on. */
+    private final GameData column;
+    /** The lower bound, negative infinity for none. */
+    private final double lo;
+    /** Whether a value equal to lo is in the range. */
+    private final boolean loInclusive;
+    /** The upper bound, positive infinity for none. */
+    private final double hi;
+    /** Whether a value equal to hi is in the range. */
+    private final boolean hiInclusive;
+
+    /**
+     * Creates a range.
+     *
+     * @param column the column the range is on
+     * @param lo the lower bound, negative infinity for none
+     * @param loInclusive whether a value equal to lo is in the range
+     * @param hi the upper bound, positive infinity for none
+     * @param hiInclusive whether a value equal to hi is in the range
+     */
+    private ColumnRange(GameData column, double lo, boolean loInclusive, double hi,
+            boolean hiInclusive) {
+        this.column = column;
+        this.lo = lo;
+        this.loInclusive = loInclusive;
+        this.hi = hi;
+        this.hiInclusive = hiInclusive;
+    }
+
+    /**
+     * Checks whether a clause can be fused into a range: a comparison other than != on a numeric
+     * column. Range columns such as players are left alone, as players==3,players==5 is a game
+     * for both 3 and 5 players rather than an empty range.
+     *
+     * @param clause the clause
+     * @return true if the clause is a range on its column
+     */
+    public static boolean isRange(Filter clause) {
+        if (clause.getColumn() == null || clause.getColumn() == GameData.NAME
+                || clause.getColumn().isInterval()) {
+            return false;
+        }
+        return switch (clause.getOperator()) {
+            case EQUALS, GREATER_THAN, GREATER_THAN_EQUALS, LESS_THAN, LESS_THAN_EQUALS -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * The range of every value on a column.
+     *
+     * @param column the column
+     * @return the unbounded range
+     */
+    public static ColumnRange all(GameData column) {
+        return new ColumnRange(column, Double.NEGATIVE_INFINITY, true,
+                Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * Narrows the range by a clause on the same column.
+     *
+     * @param clause a clause for which {@link #isRange(Filter)} is true
+     * @return the values in both this range and the clause
+     */
+    public ColumnRange and(Filter clause) {
+        double v = Double.parseDouble(clause.getValue());
+        return switch (clause.getOperator()) {
+            case EQUALS -> withLower(v, true).withUpper(v, true);
+            case GREATER_THAN -> withLower(v, false);
+            case GREATER_THAN_EQUALS -> withLower(v, true);
+            case LESS_THAN -> withUpper(v, false);
+            case LESS_THAN_EQUALS -> withUpper(v, true);
+            default -> throw new IllegalArgumentException("Not a range clause: " + clause);
+        };
+    }
+
+    /**
+     * Raises the lower bound, if v is the tighter bound.
+     *
+     * @param v the new bound
+     * @param inclusive whether v itself is in the range
+     * @return the narrowed range
+     */
+    private ColumnRange withLower(double v, boolean inclusive) {
+        if (v < lo || (v == lo && (inclusive || !loInclusive))) {
+            return this;
+        }
+        return new ColumnRange(column, v, inclusive, hi, hiInclusive);
+    }
+
+    /**
+     * Lowers the upper bound, if v is the tighter bound.
+     *
+     * @param v the new bound
+     * @param inclusive whether v itself is in the range
+     * @return the narrowed range
+     */
+    private ColumnRange withUpper(double v, boolean inclusive) {
+        if (v > hi || (v == hi && (inclusive || !hiInclusive))) {
+            return this;
+        }
+        return new ColumnRange(column, lo, loInclusive, v, inclusive);
+    }
+
+    /**
+     * Whether no value can be in the range, such as minplayers&gt;4,minplayers&lt;2.
+     *
+     * @return true if the range is empty
+     */
+    public boolean isEmpty() {
+        return lo > hi || (lo == hi && !(loInclusive && hiInclusive));
+    }
+
+    /**
+     * Whether the range is a single value, such as minplayers&gt;=3,minplayers&lt;=3.
+     *
+     * @return true if lo and hi are the same value and both are in the range
+     */
+    public boolean isPoint() {
+        return lo == hi && loInclusive && hiInclusive;
+    }
+
+    /**
+     * Checks a value against the range.
+     *
+     * @param value the value
+     * @return true if the value is in the range
+     */
+    public boolean contains(double value) {
+        return (value > lo || (loInclusive && value == lo))
+                && (value < hi || (hiInclusive && value == hi));
+    }
+
+    /**
+     * Gets the column the range is on.
+     *
+     * @return the column
+     */
+    public GameData getColumn() {
+        return column;
+    }
+
+    /**
+     * Gets the lower bound.
+     *
+     * @return the lower bound, negative infinity for none
+     */
+    public double getLo() {
+        return lo;
+    }
+
+    /**
+     * Whether the lower bound is in the range.
+     *
+     * @return true if a value equal to lo is in the range
+     */
+    public boolean isLoInclusive() {
+        return loInclusive;
+    }
+
+    /**
+     * Gets the upper bound.
+     *
+     * @return the upper bound, positive infinity for none
+     */
+    public double getHi() {
+        return hi;
+    }
+
+    /**
+     * Whether the upper bound is in the range.
+     *
+     * @return true if a value equal to hi is in the range
+     */
+    public boolean isHiInclusive() {
+        return hiInclusive;
+    }
+
+    /**
+     * Gets the range as filter like text, such as 2&lt;=minplayers&lt;=4 or minplayers==3.
+     *
+     * @return the range as text
+     */
+    @Override
+    public String toString() {
+        String name = column.name().replace("_", "").toLowerCase();
+        if (isEmpty()) {
+            return name + " (empty)";
+        }
+        if (isPoint()) {
+            return name + "==" + format(lo);
+        }
+        StringBuilder sb = new StringBuilder();
+        if (lo != Double.NEGATIVE_INFINITY) {
+            sb.append(format(lo)).append(loInclusive ? "<=" : "<");
+        }
+        sb.append(name);
+        if (hi != Double.POSITIVE_INFINITY) {
+            sb.append(hiInclusive ? "<=" : "<").append(format(hi));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats a bound without a trailing .0 for whole numbers.
+     *
+     * @param v the bound
+     * @return the bound as text
+     */
+    private static String format(double v) {
+        return v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v);
+    }
+}
@@ -0,0 +1,76 @@
+package student.filter;
+
+import student.Game;
+import student.Operations;
+import student.catalog.ExtraColumn;
+import student.catalog.GameCatalog;
+
+/**
+ * Filter on a column of the extended schema (see {@link student.catalog.ColumnRegistry}), such
+ * as own==1 or bggrecagerange&gt;=10.
+ *
+ * Those columns live in the catalog, not on the game objects, so this filter has no
+ * {@link student.GameData} column and checks a row with {@link #apply(GameCatalog, int)}. A game
+ * on its own has no cell in the column, and is checked as a row whose cell is missing.
+ */
+public class ExtraFilter extends Filter {
+    /** The column name as written in the filter. */
+    private final String columnName;
+
+    /**
+     * Constructs a filter on an extra column.
+     *
+     * @param columnName the column name as written
+     * @param operator the operation to apply in the filter
+     * @param value the value to compare against
+     */
+    public ExtraFilter(String columnName, Operations operator, String value) {
+        super(null, operator, value);
+        this.columnName = columnName.replaceAll("[^A-Za-z]", "").toLowerCase();
+    }
+
+    /**
+     * Gets the column name, letters only, lower case.
+     *
+     * @return the column name
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+
+    /**
+     * Checks a game on its own, which has no cell in the column. A missing cell only matches
+     * !=, as it does in the catalog.
+     *
+     * @param game the game
+     * @return true if the operator is !=
+     */
+    @Override
+    public boolean apply(Game game) {
+        return getOperator() == Operations.NOT_EQUALS;
+    }
+
+    /**
+     * Checks the cell of a row in the catalog's column, or a missing cell if the catalog has no
+     * such column.
+     *
+     * @param catalog the catalog
+     * @param row the row id
+     * @return true if the cell passes the filter
+     * @throws IllegalArgumentException if the value does not suit the column
+     */
+    @Override
+    public boolean apply(GameCatalog catalog, int row) {
+        ExtraColumn column = catalog.extraColumn(columnName);
+        if (column == null) {
+            return apply(catalog.get(row));
+        }
+        return column.matcher(getOperator(), getValue()).test(row);
+    }
+
+    @Override
+    public String toString() {
+        String symbol = getOperator() == Operations.EQUALS ? "==" : getOperator().getOperator();
+        return columnName + symbol + getValue();
+    }
+}
@@ -3,6 +3,7 @@ package student.filter;
 import student.Game;
 import student.GameData;
 import student.Operations;
+import student.catalog.GameCatalog;
 
 /**
  * Abstract class for filtering games.
@@ -31,9 +32,9 @@ public abstract class Filter {
     /**
      * Gets the column being filtered on.
      *
-     * @return the column
+     * @return the column, null for a column of the extended schema (see {@link ExtraFilter})
      */
-    protected GameData getColumn() {
+    public GameData getColumn() {
         return column;
     }
 
@@ -42,7 +43,7 @@ public abstract class Filter {
      *
      * @return the operator
      */
-    protected Operations getOperator() {
+    public Operations getOperator() {
         return operator;
     }
 
@@ -51,7 +52,7 @@ public abstract class Filter {
      *
      * @return the value
      */
-    protected String getValue() {
+    public String getValue() {
         return value;
     }
 
@@ -62,4 +63,26 @@ public abstract class Filter {
      * @return true if the game passes the filter
      */
     public abstract boolean apply(Game game);
+
+    /**
+     * Apply the filter to a row of a catalog.
+     *
+     * @param catalog the catalog
+     * @param row the row id
+     * @return true if the game in the row passes the filter
+     */
+    public boolean apply(GameCatalog catalog, int row) {
+        return apply(catalog.get(row));
+    }
+
+    /**
+     * Gets the filter written back out as filter text, such as minplayers>=2.
+     *
+     * @return the filter text
+     */
+    @Override
+    public String toString() {
+        String symbol = operator == Operations.EQUALS ? "==" : operator.getOperator();
+        return column.name().replace("_", "").toLowerCase() + symbol + value;
+    }
 }
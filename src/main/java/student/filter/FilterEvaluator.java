@@ -0,0 +1,443 @@
+package student.filter;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+import student.GameData;
+import student.Operations;
+import student.catalog.ColumnStats;
+import student.catalog.EditDistance;
+import student.catalog.ExtraColumn;
+import student.catalog.GameCatalog;
+import student.catalog.IntervalIndex;
+import student.catalog.NameIndex;
+import student.catalog.SortedIndex;
+
+/**
+ * Evaluates a filter expression as sets of catalog rows.
+ *
+ * Every node is evaluated against the set of rows still in play (the candidates), and returns
+ * the candidates that match:
+ *
+ * <ul>
+ * <li>a numeric clause is answered by a probe of the column's range index, unless there are
+ * fewer candidates left than the probe would return, in which case the candidates are checked
+ * one by one;</li>
+ * <li>range clauses an and has on one column are fused into one interval (see
+ * {@link FilterExpression#and(List)}), answered the same way with one probe;</li>
+ * <li>a players or time clause is answered the same way by the interval index;</li>
+ * <li>a clause on an extra column checks the candidates against the decoded column, unless it
+ * is a dictionary or player count column, which can also be answered by or-ing the bitmaps of
+ * the matching codes or counts;</li>
+ * <li>a name comparison is answered the same way by the name index, and a fuzzy name clause by
+ * a search of the catalog's name tree; a name contains checks the candidates one by one;</li>
+ * <li>an and runs its children cheapest and most selective first, each on what the previous one
+ * kept, and stops as soon as nothing is left;</li>
+ * <li>an or is the union of its children, and a not is the candidates minus its child.</li>
+ * </ul>
+ *
+ * One evaluator is used per query, as it keeps count of the work done.
+ */
+public final class FilterEvaluator {
+    /** Relative cost of checking a numeric clause against one game. */
+    private static final double NUMBER_COST = 1;
+    /** Relative cost of comparing a name, which folds case. */
+    private static final double NAME_COST = 3;
+    /** Relative cost of a name contains, which lower cases the whole name. */
+    private static final double CONTAINS_COST = 8;
+    /** Relative cost of a fuzzy name match, which computes an edit distance. */
+    private static final double FUZZY_COST = 20;
+    /** Fixed guess for the fraction of rows a clause on an extra column keeps, bar dictionaries. */
+    private static final double EXTRA_GUESS = 1.0 / 3;
+    /** Fraction of the name tree a fuzzy lookup is expected to visit. */
+    private static final double BK_TREE_VISITED = 0.25;
+
+    /** The rows being filtered. */
+    private final GameCatalog catalog;
+    /** Where to record each step, or null when not explaining. */
+    private final QueryProfile profile;
+    /** Rows looked at, by index probes or row checks. */
+    private long rowsScanned;
+    /** The access paths used, in the order first used. */
+    private final Set<String> accessPaths = new LinkedHashSet<>();
+
+    /**
+     * Creates an evaluator for one query.
+     *
+     * @param catalog the rows being filtered
+     * @param profile where to record each step, or null when not explaining
+     */
+    public FilterEvaluator(GameCatalog catalog, QueryProfile profile) {
+        this.catalog = catalog;
+        this.profile = profile;
+    }
+
+    /**
+     * Finds the rows matching an expression.
+     *
+     * @param expression the parsed filter
+     * @return the matching row ids
+     */
+    public BitSet evaluate(FilterExpression expression) {
+        BitSet all = new BitSet(catalog.size());
+        all.set(0, catalog.size());
+        return evaluate(expression, all, catalog.size());
+    }
+
+    /**
+     * Rows looked at so far, by index probes or row checks.
+     *
+     * @return the rows scanned
+     */
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    /**
+     * The access paths used so far, such as "range index+scan".
+     *
+     * @return the access paths joined with +
+     */
+    public String getAccessPaths() {
+        return String.join("+", accessPaths);
+    }
+
+    /**
+     * Estimates the fraction of rows an expression keeps.
+     *
+     * @param expression the expression
+     * @return the estimated fraction of rows kept, 0 to 1
+     */
+    public double selectivity(FilterExpression expression) {
+        List<FilterExpression> children = expression.getChildren();
+        return switch (expression.getKind()) {
+            case CLAUSE -> selectivity(expression.getClause());
+            case RANGE -> selectivity(expression.getRange());
+            case AND -> children.stream().mapToDouble(this::selectivity).reduce(1, (a, b) -> a * b);
+            case OR -> 1 - children.stream().mapToDouble(c -> 1 - selectivity(c))
+                    .reduce(1, (a, b) -> a * b);
+            case NOT -> 1 - selectivity(children.get(0));
+        };
+    }
+
+    /**
+     * Evaluates an expression against the candidate rows.
+     *
+     * @param expression the expression
+     * @param candidates the rows still in play, not changed
+     * @param estimate the estimated number of candidates
+     * @return the candidates that match
+     */
+    private BitSet evaluate(FilterExpression expression, BitSet candidates, double estimate) {
+        return switch (expression.getKind()) {
+            case CLAUSE -> evaluateClause(expression.getClause(), candidates, estimate);
+            case RANGE -> evaluateRange(expression.getRange(), candidates, estimate);
+            case AND -> evaluateAnd(expression.getChildren(), candidates, estimate);
+            case OR -> {
+                List<BitSet> terms = new ArrayList<>();
+                for (FilterExpression child : expression.getChildren()) {
+                    terms.add(evaluate(child, candidates, estimate));
+                }
+                long start = profile == null ? 0 : System.nanoTime();
+                BitSet result = new BitSet(catalog.size());
+                terms.forEach(result::or);
+                record(expression, "bitmap or", estimate, result, start);
+                yield result;
+            }
+            case NOT -> {
+                BitSet excluded = evaluate(expression.getChildren().get(0), candidates, estimate);
+                long start = profile == null ? 0 : System.nanoTime();
+                BitSet result = (BitSet) candidates.clone();
+                result.andNot(excluded);
+                record(expression, "bitmap not", estimate, result, start);
+                yield result;
+            }
+        };
+    }
+
+    /**
+     * Evaluates the children of an and, each on the rows the previous ones kept.
+     *
+     * @param children the children
+     * @param candidates the rows still in play, not changed
+     * @param estimate the estimated number of candidates
+     * @return the candidates that match every child
+     */
+    private BitSet evaluateAnd(List<FilterExpression> children, BitSet candidates,
+            double estimate) {
+        List<FilterExpression> ordered = new ArrayList<>(children);
+        ordered.sort(Comparator.comparingDouble(
+                (FilterExpression child) -> (1 - selectivity(child)) / cost(child)).reversed());
+        BitSet result = candidates;
+        for (FilterExpression child : ordered) {
+            if (result.isEmpty()) {
+                break; // nothing left for the remaining children to remove
+            }
+            result = evaluate(child, result, estimate);
+            estimate *= selectivity(child);
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates a single clause.
+     *
+     * @param clause the clause
+     * @param candidates the rows still in play, not changed
+     * @param estimate the estimated number of candidates
+     * @return the candidates that match
+     */
+    private BitSet evaluateClause(Filter clause, BitSet candidates, double estimate) {
+        if (clause instanceof ExtraFilter extra) {
+            ExtraColumn column = catalog.extraColumn(extra.getColumnName());
+            Operations op = clause.getOperator();
+            String value = clause.getValue();
+            if (column.bitmapIndex() != null) {
+                // an or of the bitmaps the clause reads, a word per 64 rows each
+                return evaluateLeaf(clause.toString(), selectivity(clause), candidates, estimate,
+                        column.bitmapIndex(),
+                        column.bitmapsRead(op, value) * catalog.size() / 64.0,
+                        () -> column.matching(op, value),
+                        column.matcher(op, value));
+            }
+            return evaluateLeaf(clause.toString(), selectivity(clause), candidates, estimate,
+                    null,
+                    0,
+                    null,
+                    column.matcher(op, value));
+        }
+        GameData column = clause.getColumn();
+        Operations op = clause.getOperator();
+        double value = column == GameData.NAME ? 0 : Double.parseDouble(clause.getValue());
+        double selectivity = selectivity(clause);
+        if (column.isInterval()) {
+            // a stab copies one precomputed bitset, a word per 64 rows, however many rows match
+            double probeCost = op == Operations.EQUALS || op == Operations.NOT_EQUALS
+                    ? catalog.size() / 64.0
+                    : selectivity * catalog.size();
+            IntervalIndex index = catalog.intervalIndex(column);
+            return evaluateLeaf(clause.toString(), selectivity, candidates, estimate,
+                    "interval index",
+                    probeCost,
+                    () -> index.matching(op, value),
+                    row -> clause.apply(catalog, row));
+        }
+        if (column == GameData.NAME && op == Operations.FUZZY) {
+            String name = clause.getValue();
+            return evaluateLeaf(clause.toString(), selectivity, candidates, estimate,
+                    "bk-tree",
+                    BK_TREE_VISITED * catalog.size(),
+                    () -> catalog.namesWithin(name, EditDistance.limitFor(name)),
+                    row -> clause.apply(catalog, row));
+        }
+        if (column == GameData.NAME) {
+            String name = clause.getValue();
+            NameIndex index = catalog.nameIndex();
+            return evaluateLeaf(clause.toString(), selectivity, candidates, estimate,
+                    "name index",
+                    selectivity * catalog.size(),
+                    op == Operations.CONTAINS ? null : () -> index.matching(op, name),
+                    row -> clause.apply(catalog, row));
+        }
+        SortedIndex index = catalog.index(column);
+        return evaluateLeaf(clause.toString(), selectivity, candidates, estimate,
+                "range index",
+                selectivity * catalog.size(),
+                () -> index.matching(op, value),
+                row -> clause.apply(catalog, row));
+    }
+
+    /**
+     * Evaluates fused range clauses with a single probe or check per row. An empty range returns
+     * at once, without touching the index or the rows.
+     *
+     * @param range the interval
+     * @param candidates the rows still in play, not changed
+     * @param estimate the estimated number of candidates
+     * @return the candidates within the interval
+     */
+    private BitSet evaluateRange(ColumnRange range, BitSet candidates, double estimate) {
+        if (range.isEmpty()) {
+            accessPaths.add("empty range");
+            if (profile != null) {
+                profile.step(range.toString(), "empty range", 0, 0, 0);
+            }
+            return new BitSet();
+        }
+        GameData column = range.getColumn();
+        SortedIndex index = catalog.index(column);
+        double selectivity = selectivity(range);
+        return evaluateLeaf(range.toString(), selectivity, candidates, estimate,
+                "range index",
+                selectivity * catalog.size(),
+                () -> index.range(range.getLo(), range.isLoInclusive(), range.getHi(),
+                        range.isHiInclusive()),
+                row -> range.contains(catalog.value(row, column)));
+    }
+
+    /**
+     * Evaluates a clause or range, picking between an index probe and checking each candidate.
+     *
+     * @param text the clause as filter text
+     * @param selectivity the estimated fraction of rows kept
+     * @param candidates the rows still in play, not changed
+     * @param estimate the estimated number of candidates
+     * @param indexPath the access path to report when the index is used
+     * @param probeCost rows (or words) the index probe would touch
+     * @param probe finds every matching row with an index, or null if there is no index
+     * @param check checks a single row
+     * @return the candidates that match
+     */
+    private BitSet evaluateLeaf(String text, double selectivity, BitSet candidates, double estimate,
+            String indexPath, double probeCost, Supplier<BitSet> probe, IntPredicate check) {
+        long start = profile == null ? 0 : System.nanoTime();
+        int candidateCount = candidates.cardinality();
+        BitSet result;
+        String path;
+        if (probe != null && probeCost <= candidateCount) {
+            result = probe.get();
+            rowsScanned += result.cardinality();
+            result.and(candidates);
+            path = indexPath;
+        } else {
+            result = new BitSet(catalog.size());
+            for (int row = candidates.nextSetBit(0); row >= 0;
+                    row = candidates.nextSetBit(row + 1)) {
+                if (check.test(row)) {
+                    result.set(row);
+                }
+            }
+            rowsScanned += candidateCount;
+            path = "scan";
+        }
+        accessPaths.add(path);
+        if (profile != null) {
+            profile.step(text, path, Math.round(estimate * selectivity), result.cardinality(),
+                    System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * Records a combining step in the profile. Its time is the time to combine the row sets, not
+     * counting its children, which have steps of their own.
+     *
+     * @param expression the or / not node
+     * @param path the access path
+     * @param estimate the estimated number of candidates
+     * @param result the rows kept
+     * @param start when the step started
+     */
+    private void record(FilterExpression expression, String path, double estimate, BitSet result,
+            long start) {
+        accessPaths.add(path);
+        if (profile != null) {
+            profile.step(expression.toString(), path,
+                    Math.round(estimate * selectivity(expression)),
+                    result.cardinality(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Estimates the fraction of rows a clause keeps from the column statistics.
+     *
+     * @param clause the clause
+     * @return the estimated fraction of rows kept, 0 to 1
+     */
+    private double selectivity(Filter clause) {
+        if (clause instanceof ExtraFilter extra) {
+            int count = catalog.extraColumn(extra.getColumnName())
+                    .count(clause.getOperator(), clause.getValue());
+            return count < 0 ? EXTRA_GUESS : count / (double) catalog.size();
+        }
+        if (clause.getColumn().isInterval()) {
+            return rangeColumnSelectivity(clause);
+        }
+        ColumnStats stats = catalog.stats(clause.getColumn());
+        if (clause.getColumn() == GameData.NAME) {
+            Operations op = clause.getOperator();
+            if (op == Operations.CONTAINS || op == Operations.FUZZY) {
+                return stats.selectivity(op);
+            }
+            return catalog.nameIndex().count(op, clause.getValue()) / (double) catalog.size();
+        }
+        return stats.selectivity(clause.getOperator(), Double.parseDouble(clause.getValue()));
+    }
+
+    /**
+     * Estimates the fraction of rows a clause on a range column keeps: exactly for == and !=,
+     * which the interval index counts, and from the statistics of the end the comparison uses
+     * otherwise.
+     *
+     * @param clause the clause on PLAYERS or TIME
+     * @return the estimated fraction of rows kept, 0 to 1
+     */
+    private double rangeColumnSelectivity(Filter clause) {
+        GameData column = clause.getColumn();
+        double value = Double.parseDouble(clause.getValue());
+        return switch (clause.getOperator()) {
+            case EQUALS -> catalog.intervalIndex(column).count(value) / (double) catalog.size();
+            case GREATER_THAN, GREATER_THAN_EQUALS ->
+                catalog.stats(column.upperColumn()).selectivity(clause.getOperator(), value);
+            case LESS_THAN, LESS_THAN_EQUALS ->
+                catalog.stats(column.lowerColumn()).selectivity(clause.getOperator(), value);
+            case NOT_EQUALS ->
+                1 - catalog.intervalIndex(column).count(value) / (double) catalog.size();
+            case CONTAINS, FUZZY -> 0;
+        };
+    }
+
+    /**
+     * Estimates the fraction of rows within an interval: the fraction above the lower bound plus
+     * the fraction below the upper bound, less the whole.
+     *
+     * @param range the interval
+     * @return the estimated fraction of rows kept, 0 to 1
+     */
+    private double selectivity(ColumnRange range) {
+        ColumnStats stats = catalog.stats(range.getColumn());
+        if (range.isEmpty()) {
+            return 0;
+        }
+        if (range.isPoint()) {
+            return stats.selectivity(Operations.EQUALS, range.getLo());
+        }
+        double above = stats.selectivity(range.isLoInclusive() ? Operations.GREATER_THAN_EQUALS
+                : Operations.GREATER_THAN, range.getLo());
+        double below = stats.selectivity(range.isHiInclusive() ? Operations.LESS_THAN_EQUALS
+                : Operations.LESS_THAN, range.getHi());
+        return Math.max(0, above + below - 1);
+    }
+
+    /**
+     * Relative cost of checking an expression against one game.
+     *
+     * @param expression the expression
+     * @return the cost, 1 being a numeric comparison
+     */
+    private static double cost(FilterExpression expression) {
+        if (expression.getKind() == FilterExpression.Kind.RANGE) {
+            return NUMBER_COST;
+        }
+        if (expression.getKind() != FilterExpression.Kind.CLAUSE) {
+            return expression.getChildren().stream().mapToDouble(FilterEvaluator::cost).sum();
+        }
+        Filter clause = expression.getClause();
+        if (clause instanceof ExtraFilter) {
+            return NUMBER_COST; // decoded once into a primitive or shared string per row
+        }
+        if (clause.getColumn() != GameData.NAME) {
+            return NUMBER_COST;
+        }
+        return switch (clause.getOperator()) {
+            case CONTAINS -> CONTAINS_COST;
+            case FUZZY -> FUZZY_COST;
+            default -> NAME_COST;
+        };
+    }
+}
@@ -0,0 +1,248 @@
+package student.filter;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import student.Game;
+import student.GameData;
+import student.catalog.GameCatalog;
+
+/**
+ * A parsed filter: single clauses combined with and (,), or (|) and not (!).
+ *
+ * Built by {@link FilterFactory#createExpression(String)}. The planner evaluates the tree as row
+ * sets over the catalog, but {@link #apply(GameCatalog, int)} checks a single row, and
+ * {@link #apply(Game)} a single game, which has no cells in the catalog's extra columns.
+ */
+public final class FilterExpression {
+    /** The kinds of node in the tree. */
+    public enum Kind {
+        /** A single clause such as minplayers>2. */
+        CLAUSE,
+        /** Range clauses an and had on one column, fused into a single interval. */
+        RANGE,
+        /** Every child must match. */
+        AND,
+        /** Any child may match. */
+        OR,
+        /** The single child must not match. */
+        NOT
+    }
+
+    /** The kind of node. */
+    private final Kind kind;
+    /** The clause, only for CLAUSE nodes. */
+    private final Filter clause;
+    /** The fused interval, only for RANGE nodes. */
+    private final ColumnRange range;
+    /** The children, empty for CLAUSE nodes; the fused clauses for RANGE nodes. */
+    private final List<FilterExpression> children;
+
+    /**
+     * Creates a node.
+     *
+     * @param kind the kind of node
+     * @param clause the clause, null unless kind is CLAUSE
+     * @param range the interval, null unless kind is RANGE
+     * @param children the children
+     */
+    private FilterExpression(Kind kind, Filter clause, ColumnRange range,
+            List<FilterExpression> children) {
+        this.kind = kind;
+        this.clause = clause;
+        this.range = range;
+        this.children = children;
+    }
+
+    /**
+     * Creates a single clause node.
+     *
+     * @param clause the clause
+     * @return the node
+     */
+    public static FilterExpression clause(Filter clause) {
+        return new FilterExpression(Kind.CLAUSE, clause, null, List.of());
+    }
+
+    /**
+     * Creates an and node, or returns the only child if there is just one.
+     *
+     * Range clauses on the same numeric column are fused into one RANGE node first, so
+     * minplayers&gt;=2,minplayers&lt;=4 is a single interval. An empty interval, such as
+     * minplayers&gt;4,minplayers&lt;2, makes the whole and that empty range, as nothing can match.
+     *
+     * @param children the children
+     * @return the node
+     */
+    public static FilterExpression and(List<FilterExpression> children) {
+        Map<GameData, List<FilterExpression>> ranges = new EnumMap<>(GameData.class);
+        for (FilterExpression child : children) {
+            if (child.kind == Kind.CLAUSE && ColumnRange.isRange(child.clause)) {
+                ranges.computeIfAbsent(child.clause.getColumn(), c -> new ArrayList<>()).add(child);
+            }
+        }
+        List<FilterExpression> fused = new ArrayList<>();
+        for (FilterExpression child : children) {
+            List<FilterExpression> same = child.kind == Kind.CLAUSE
+                    ? ranges.get(child.clause.getColumn()) : null;
+            if (same == null || same.size() < 2 || !same.contains(child)) {
+                fused.add(child);
+            } else if (same.get(0) == child) {
+                FilterExpression node = range(same);
+                if (node.range.isEmpty()) {
+                    return node;
+                }
+                fused.add(node);
+            }
+        }
+        return fused.size() == 1 ? fused.get(0)
+                : new FilterExpression(Kind.AND, null, null, List.copyOf(fused));
+    }
+
+    /**
+     * Fuses range clauses on one column into a RANGE node.
+     *
+     * @param clauses the clauses, all on the same column
+     * @return the node
+     */
+    private static FilterExpression range(List<FilterExpression> clauses) {
+        ColumnRange range = ColumnRange.all(clauses.get(0).clause.getColumn());
+        for (FilterExpression clause : clauses) {
+            range = range.and(clause.clause);
+        }
+        return new FilterExpression(Kind.RANGE, null, range, List.copyOf(clauses));
+    }
+
+    /**
+     * Creates an or node, or returns the only child if there is just one.
+     *
+     * @param children the children
+     * @return the node
+     */
+    public static FilterExpression or(List<FilterExpression> children) {
+        return children.size() == 1 ? children.get(0)
+                : new FilterExpression(Kind.OR, null, null, List.copyOf(children));
+    }
+
+    /**
+     * Creates a not node. Two nots cancel out.
+     *
+     * @param child the expression to negate
+     * @return the node
+     */
+    public static FilterExpression not(FilterExpression child) {
+        return child.kind == Kind.NOT ? child.children.get(0)
+                : new FilterExpression(Kind.NOT, null, null, List.of(child));
+    }
+
+    /**
+     * Gets the kind of node.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the clause of a CLAUSE node.
+     *
+     * @return the clause, or null for other kinds
+     */
+    public Filter getClause() {
+        return clause;
+    }
+
+    /**
+     * Gets the interval of a RANGE node.
+     *
+     * @return the interval, or null for other kinds
+     */
+    public ColumnRange getRange() {
+        return range;
+    }
+
+    /**
+     * Gets the children of an AND, OR or NOT node, or the fused clauses of a RANGE node.
+     *
+     * @return the children, empty for CLAUSE nodes
+     */
+    public List<FilterExpression> getChildren() {
+        return children;
+    }
+
+    /**
+     * Counts the clauses in the tree.
+     *
+     * @return the number of CLAUSE nodes
+     */
+    public int clauseCount() {
+        return kind == Kind.CLAUSE ? 1
+                : children.stream().mapToInt(FilterExpression::clauseCount).sum();
+    }
+
+    /**
+     * Gets every clause in the expression, left to right.
+     *
+     * @return the clauses
+     */
+    public List<Filter> clauses() {
+        if (kind == Kind.CLAUSE) {
+            return List.of(clause);
+        }
+        List<Filter> clauses = new ArrayList<>();
+        children.forEach(child -> clauses.addAll(child.clauses()));
+        return clauses;
+    }
+
+    /**
+     * Checks a single game against the expression.
+     *
+     * @param game the game to check
+     * @return true if the game matches
+     */
+    public boolean apply(Game game) {
+        return switch (kind) {
+            case CLAUSE -> clause.apply(game);
+            case AND, RANGE -> children.stream().allMatch(child -> child.apply(game));
+            case OR -> children.stream().anyMatch(child -> child.apply(game));
+            case NOT -> !children.get(0).apply(game);
+        };
+    }
+
+    /**
+     * Checks a single row of a catalog against the expression.
+     *
+     * @param catalog the catalog
+     * @param row the row id
+     * @return true if the row matches
+     */
+    public boolean apply(GameCatalog catalog, int row) {
+        return switch (kind) {
+            case CLAUSE -> clause.apply(catalog, row);
+            case AND, RANGE -> children.stream().allMatch(child -> child.apply(catalog, row));
+            case OR -> children.stream().anyMatch(child -> child.apply(catalog, row));
+            case NOT -> !children.get(0).apply(catalog, row);
+        };
+    }
+
+    /**
+     * Gets the expression written back out as filter text.
+     *
+     * @return the filter text
+     */
+    @Override
+    public String toString() {
+        return switch (kind) {
+            case CLAUSE -> clause.toString();
+            case RANGE -> range.toString();
+            case AND -> children.stream().map(FilterExpression::toString)
+                    .collect(Collectors.joining(",", "(", ")"));
+            case OR -> children.stream().map(FilterExpression::toString)
+                    .collect(Collectors.joining("|", "(", ")"));
+            case NOT -> "!" + children.get(0);
+        };
+    }
+}
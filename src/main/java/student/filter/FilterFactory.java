@@ -1,5 +1,7 @@
 package student.filter;
 
+import java.util.ArrayList;
+import java.util.List;
 import student.GameData;
 import student.Operations;
 
@@ -7,33 +9,259 @@ import student.Operations;
  * Factory for creating filters.
  */
 public final class FilterFactory {
-    
+
     // Add private constructor to prevent instantiation
     private FilterFactory() {
         // Utility class should not be instantiated
     }
-    
+
     /**
      * Create a filter from a filter string.
      *
+     * The operator is the first run of operator characters in the string, so values may contain
+     * operator characters (name~=BANG!). Both = and == mean equals. The column may be written as
+     * the GameData name or the csv column name, ignoring case and anything that is not a letter,
+     * so min_players, minPlayers and MINPLAYERS are all the same column. Any other column name
+     * gives an {@link ExtraFilter}, for the extra columns the catalog may have.
+     *
      * @param filterStr the filter string (e.g., "name=Catan" or "maxPlayers<=4")
      * @return the appropriate filter
+     * @throws IllegalArgumentException if the operator or value is not valid, or there is no
+     *         column name
      */
     public static Filter createFilter(String filterStr) {
-        Operations operator = Operations.getOperatorFromStr(filterStr);
-        String[] parts = filterStr.replaceAll(" ", "").split(operator.getOperator());
-        
-        if (parts.length != 2) {
+        int at = indexOfOperator(filterStr);
+        if (at <= 0) {
             throw new IllegalArgumentException("Invalid filter format: " + filterStr);
         }
-
-        GameData column = GameData.fromString(parts[0]);
-        String value = parts[1];
+        int end = at + 1;
+        if (end < filterStr.length() && filterStr.charAt(end) == '=') {
+            end++;
+        }
+        String symbol = filterStr.substring(at, end);
+        Operations operator = Operations.fromOperator("==".equals(symbol) ? "=" : symbol);
+        String name = filterStr.substring(0, at);
+        String value = filterStr.substring(end).trim();
+        GameData column;
+        try {
+            column = columnFor(name);
+        } catch (IllegalArgumentException e) {
+            if (name.replaceAll("[^A-Za-z]", "").isEmpty()) {
+                throw e;
+            }
+            // may be an extra column; the planner checks the catalog has it
+            return new ExtraFilter(name, operator, value);
+        }
 
         return switch (column) {
             case NAME -> new StringFilter(column, operator, value);
             default -> new NumberFilter(column, operator, value);
         };
     }
-} 
-// Add newline at end of file
+
+    /**
+     * Parses a full filter string into an expression tree.
+     *
+     * The grammar, loosest binding first:
+     *
+     * <pre>
+     *  expression := and ('|' and)*
+     *  and        := unary (',' unary)*
+     *  unary      := '!' unary | '(' expression ')' | clause
+     * </pre>
+     *
+     * So minplayers&gt;=2|(maxtime&lt;=30,!name~=war) reads as: two or more players, or short games
+     * without war in the name. A clause value may contain parentheses as long as they are
+     * balanced, such as name==Chess (Chess960).
+     *
+     * @param filter the filter string
+     * @return the parsed expression, or null if the filter has no clauses
+     * @throws IllegalArgumentException if the filter is not valid
+     */
+    public static FilterExpression createExpression(String filter) {
+        ExpressionParser parser = new ExpressionParser(filter);
+        FilterExpression expression = parser.expression();
+        parser.skipSpaces();
+        if (!parser.atEnd()) {
+            throw new IllegalArgumentException("Unexpected text at " + parser.pos + ": " + filter);
+        }
+        return expression;
+    }
+
+    /**
+     * Finds the column a filter refers to.
+     *
+     * @param name the column as written in the filter
+     * @return the matching column
+     * @throws IllegalArgumentException if no column matches
+     */
+    public static GameData columnFor(String name) {
+        String letters = name.replaceAll("[^A-Za-z]", "");
+        for (GameData col : GameData.values()) {
+            if (col.name().replace("_", "").equalsIgnoreCase(letters)
+                    || col.getColumnName().equalsIgnoreCase(letters)) {
+                return col;
+            }
+        }
+        throw new IllegalArgumentException("No column with name " + name);
+    }
+
+    /**
+     * Finds the first operator character in a filter string.
+     *
+     * @param filterStr the filter string
+     * @return the index of the operator, or -1 if there is none
+     */
+    private static int indexOfOperator(String filterStr) {
+        for (int i = 0; i < filterStr.length(); i++) {
+            switch (filterStr.charAt(i)) {
+                case '<', '>', '=':
+                    return i;
+                case '!', '~', '%':
+                    if (i + 1 < filterStr.length() && filterStr.charAt(i + 1) == '=') {
+                        return i;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recursive descent parser for {@link #createExpression(String)}.
+     */
+    private static final class ExpressionParser {
+        /** The text being parsed. */
+        private final String text;
+        /** Current position in the text. */
+        private int pos;
+
+        /**
+         * Creates a parser.
+         *
+         * @param text the filter string
+         */
+        ExpressionParser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Parses an or of ands.
+         *
+         * @return the expression, or null if empty
+         */
+        FilterExpression expression() {
+            List<FilterExpression> terms = new ArrayList<>();
+            FilterExpression term = and();
+            while (accept('|')) {
+                terms.add(term);
+                term = and();
+                if (terms.get(terms.size() - 1) == null || term == null) {
+                    throw new IllegalArgumentException("Empty side of | in: " + text);
+                }
+            }
+            if (terms.isEmpty()) {
+                return term;
+            }
+            terms.add(term);
+            return FilterExpression.or(terms);
+        }
+
+        /**
+         * Parses comma separated unary expressions. Empty items are skipped, as they were
+         * before the filter language had or and not.
+         *
+         * @return the expression, or null if every item was empty
+         */
+        private FilterExpression and() {
+            List<FilterExpression> factors = new ArrayList<>();
+            do {
+                FilterExpression factor = unary();
+                if (factor != null) {
+                    factors.add(factor);
+                }
+            } while (accept(','));
+            return factors.isEmpty() ? null : FilterExpression.and(factors);
+        }
+
+        /**
+         * Parses a not, a group in parentheses or a single clause.
+         *
+         * @return the expression, or null if there was nothing before the next separator
+         */
+        private FilterExpression unary() {
+            if (accept('!')) {
+                FilterExpression inner = unary();
+                if (inner == null) {
+                    throw new IllegalArgumentException("Nothing after ! in: " + text);
+                }
+                return FilterExpression.not(inner);
+            }
+            if (accept('(')) {
+                FilterExpression inner = expression();
+                if (!accept(')')) {
+                    throw new IllegalArgumentException("Missing ) in: " + text);
+                }
+                return inner;
+            }
+            String clause = clauseText();
+            return clause.isBlank() ? null : FilterExpression.clause(createFilter(clause.trim()));
+        }
+
+        /**
+         * Reads a clause, up to a separator or a ) that closes a group.
+         *
+         * @return the clause text
+         */
+        private String clauseText() {
+            int start = pos;
+            int depth = 0;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == ',' || c == '|' || (c == ')' && depth == 0)) {
+                    break;
+                }
+                if (c == '(') {
+                    depth++;
+                } else if (c == ')') {
+                    depth--;
+                }
+                pos++;
+            }
+            return text.substring(start, pos);
+        }
+
+        /**
+         * Consumes a character if it is next, ignoring spaces.
+         *
+         * @param c the character
+         * @return true if it was consumed
+         */
+        private boolean accept(char c) {
+            skipSpaces();
+            if (pos < text.length() && text.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        /** Moves past any spaces. */
+        void skipSpaces() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        /**
+         * Whether the whole text was parsed.
+         *
+         * @return true at the end of the text
+         */
+        boolean atEnd() {
+            return pos >= text.length();
+        }
+    }
+}
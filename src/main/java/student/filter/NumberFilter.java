@@ -1,23 +1,33 @@
 package student.filter;
 
+import student.BoardGame;
 import student.Game;
 import student.GameData;
 import student.Operations;
 
 /**
- * Filter for numeric values (players, time, rating, difficulty).
+ * Filter for numeric values (players, time, rating, difficulty, rank, year), and for the
+ * players and time ranges.
  */
 public class NumberFilter extends Filter {
-    
+    /** The value parsed once, instead of for every game. */
+    private final double number;
+
     /**
      * Constructs a new NumberFilter.
      *
      * @param column The game data column to filter on
      * @param operator The operation to apply in the filter
      * @param value The value to compare against
+     * @throws IllegalArgumentException if the value is not a number or the operator is contains
+     *         or fuzzy
      */
     public NumberFilter(GameData column, Operations operator, String value) {
         super(column, operator, value);
+        if (operator == Operations.CONTAINS || operator == Operations.FUZZY) {
+            throw new IllegalArgumentException(operator + " is only available for name: " + column);
+        }
+        this.number = Double.parseDouble(value);
     }
 
     /**
@@ -28,6 +38,9 @@ public class NumberFilter extends Filter {
      */
     @Override
     public boolean apply(Game game) {
+        if (getColumn().isInterval()) {
+            return applyRange(game);
+        }
         double gameValue = switch (getColumn()) {
             case MIN_PLAYERS -> game.getMinPlayers();
             case MAX_PLAYERS -> game.getMaxPlayers();
@@ -35,17 +48,59 @@ public class NumberFilter extends Filter {
             case MAX_TIME -> game.getMaxPlayTime();
             case RATING -> game.getRating();
             case DIFFICULTY -> game.getDifficulty();
+            case RANK, YEAR, ID -> boardGameValue(game);
             default -> throw new IllegalArgumentException("Invalid column for number comparison: " + getColumn());
         };
 
-        double compareValue = Double.parseDouble(getValue());
-        
         return switch (getOperator()) {
-            case EQUALS -> gameValue == compareValue;
-            case GREATER_THAN -> gameValue > compareValue;
-            case LESS_THAN -> gameValue < compareValue;
-            case GREATER_THAN_EQUALS -> gameValue >= compareValue;
-            case LESS_THAN_EQUALS -> gameValue <= compareValue;
+            case EQUALS -> gameValue == number;
+            case NOT_EQUALS -> gameValue != number;
+            case GREATER_THAN -> gameValue > number;
+            case LESS_THAN -> gameValue < number;
+            case GREATER_THAN_EQUALS -> gameValue >= number;
+            case LESS_THAN_EQUALS -> gameValue <= number;
+            case CONTAINS, FUZZY -> false;
+        };
+    }
+
+    /**
+     * Applies the filter to a range column: == checks the value is within the game's range and
+     * != that it is outside it, &gt; and &gt;= compare with the high end, &lt; and &lt;= with the
+     * low end.
+     *
+     * @param game The game to filter
+     * @return true if the game matches the filter criteria, false otherwise
+     */
+    private boolean applyRange(Game game) {
+        boolean players = getColumn() == GameData.PLAYERS;
+        double low = players ? game.getMinPlayers() : game.getMinPlayTime();
+        double high = players ? game.getMaxPlayers() : game.getMaxPlayTime();
+        return switch (getOperator()) {
+            case EQUALS -> low <= number && number <= high;
+            case NOT_EQUALS -> number < low || number > high;
+            case GREATER_THAN -> high > number;
+            case GREATER_THAN_EQUALS -> high >= number;
+            case LESS_THAN -> low < number;
+            case LESS_THAN_EQUALS -> low <= number;
+            case CONTAINS, FUZZY -> false;
+        };
+    }
+
+    /**
+     * Gets the value of a column that only board games have.
+     *
+     * @param game The game to read
+     * @return the value of the column
+     */
+    private double boardGameValue(Game game) {
+        if (!(game instanceof BoardGame boardGame)) {
+            throw new IllegalArgumentException("Column only available for board games: "
+                    + getColumn());
+        }
+        return switch (getColumn()) {
+            case RANK -> boardGame.getRank();
+            case YEAR -> boardGame.getYearPublished();
+            default -> boardGame.getId();
         };
     }
-} 
+}
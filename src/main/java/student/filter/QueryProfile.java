@@ -0,0 +1,181 @@
+package student.filter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records how a filter query was run, for the explain command.
+ *
+ * The planner fills one of these in while it runs a query (only when asked to explain), and
+ * toString prints it as a small table: one line per filter step with the access path, the
+ * estimated and actual rows after the step, and the time the step took.
+ */
+public class QueryProfile {
+    /** Narrowest the clause column of the table is. */
+    private static final int CLAUSE_WIDTH = 28;
+    /** Narrowest the access column of the table is. */
+    private static final int ACCESS_WIDTH = 12;
+    /** The filter being explained. */
+    private final String filter;
+    /** Rows in the catalog before any filter. */
+    private final int catalogRows;
+    /** The steps, in the order they ran. */
+    private final List<Step> steps = new ArrayList<>();
+    /** Number of clauses parsed, or -1 if the filter did not parse. */
+    private int clauses = -1;
+    /** Time spent parsing. */
+    private long parseNanos;
+    /** Description of how the steps were run. */
+    private String scan = "";
+    /** Rows looked at, summed over every step. */
+    private long scanRows;
+    /** Description of the sort. */
+    private String sort = "";
+    /** Rows sorted. */
+    private int sortRows;
+    /** Time spent sorting. */
+    private long sortNanos;
+
+    /**
+     * Creates an empty profile.
+     *
+     * @param filter the filter being explained
+     * @param catalogRows rows in the catalog before any filter
+     */
+    public QueryProfile(String filter, int catalogRows) {
+        this.filter = filter;
+        this.catalogRows = catalogRows;
+    }
+
+    /**
+     * Records the parse stage.
+     *
+     * @param clauses number of clauses, or -1 if the filter did not parse
+     * @param nanos time spent parsing
+     */
+    public void parsed(int clauses, long nanos) {
+        this.clauses = clauses;
+        this.parseNanos = nanos;
+    }
+
+    /**
+     * Records a filter step.
+     *
+     * @param clause the clause as filter text
+     * @param accessPath how the rows were found (scan, range index, ...)
+     * @param estimatedRows rows the planner expected after the step
+     * @param actualRows rows left after the step
+     * @param nanos time the step took, or -1 if the step was not timed on its own
+     */
+    public void step(String clause, String accessPath, long estimatedRows, int actualRows,
+            long nanos) {
+        steps.add(new Step(clause, accessPath, estimatedRows, actualRows, nanos));
+    }
+
+    /**
+     * Records the scan stage: how the steps were run and how much they looked at. The time is
+     * already in the steps.
+     *
+     * @param strategy description of how the steps were run
+     * @param rows rows looked at, summed over every step
+     */
+    public void scanned(String strategy, long rows) {
+        this.scan = strategy;
+        this.scanRows = rows;
+    }
+
+    /**
+     * Records the sort stage.
+     *
+     * @param strategy description of how the rows were sorted
+     * @param rows rows sorted
+     * @param nanos time spent sorting
+     */
+    public void sorted(String strategy, int rows, long nanos) {
+        this.sort = strategy;
+        this.sortRows = rows;
+        this.sortNanos = nanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("explain: %s%n", filter == null ? "" : filter));
+        sb.append(String.format("catalog rows: %d%n", catalogRows));
+        if (clauses < 0) {
+            sb.append(String.format("parse: invalid filter, no rows can match (%s)%n",
+                    millis(parseNanos)));
+        } else {
+            sb.append(String.format("parse: %d clause(s) (%s)%n", clauses, millis(parseNanos)));
+        }
+        long total = parseNanos + sortNanos;
+        if (!steps.isEmpty()) {
+            // the clause and access columns are as wide as their widest entry, so the rest line up
+            int clauseWidth = CLAUSE_WIDTH;
+            int accessWidth = ACCESS_WIDTH;
+            for (Step step : steps) {
+                clauseWidth = Math.max(clauseWidth, step.clause.length());
+                accessWidth = Math.max(accessWidth, step.accessPath.length());
+            }
+            String columns = "%-" + clauseWidth + "s %-" + accessWidth + "s";
+            sb.append(String.format("%-4s " + columns + " %9s %9s %12s%n",
+                    "step", "clause", "access", "est rows", "rows", "time"));
+            int n = 1;
+            for (Step step : steps) {
+                sb.append(String.format("%-4d " + columns + " %9d %9d %12s%n", n++, step.clause,
+                        step.accessPath, step.estimatedRows, step.actualRows,
+                        step.nanos < 0 ? "-" : millis(step.nanos)));
+                total += Math.max(0, step.nanos);
+            }
+        }
+        if (!scan.isEmpty()) {
+            sb.append(String.format("scan: %s, %d row(s) looked at%n", scan, scanRows));
+        }
+        sb.append(String.format("sort: %s, %d row(s) (%s)%n", sort, sortRows, millis(sortNanos)));
+        sb.append(String.format("total: %s", millis(total)));
+        return sb.toString();
+    }
+
+    /**
+     * Formats nanoseconds as milliseconds.
+     *
+     * @param nanos the time in nanoseconds
+     * @return the time as text
+     */
+    private static String millis(long nanos) {
+        return String.format("%.3f ms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * One filter step of the query.
+     */
+    private static final class Step {
+        /** The clause as filter text. */
+        private final String clause;
+        /** How the rows were found. */
+        private final String accessPath;
+        /** Rows the planner expected after the step. */
+        private final long estimatedRows;
+        /** Rows left after the step. */
+        private final int actualRows;
+        /** Time the step took. */
+        private final long nanos;
+
+        /**
+         * Creates a step.
+         *
+         * @param clause the clause as filter text
+         * @param accessPath how the rows were found
+         * @param estimatedRows rows the planner expected after the step
+         * @param actualRows rows left after the step
+         * @param nanos time the step took
+         */
+        Step(String clause, String accessPath, long estimatedRows, int actualRows, long nanos) {
+            this.clause = clause;
+            this.accessPath = accessPath;
+            this.estimatedRows = estimatedRows;
+            this.actualRows = actualRows;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -3,12 +3,22 @@ package student.filter;
 import student.Game;
 import student.GameData;
 import student.Operations;
+import student.catalog.EditDistance;
+import student.catalog.NameKey;
 
 /**
  * Filter for string values (game names).
+ *
+ * All comparisons ignore case and accents: they compare the folded name keys of {@link NameKey},
+ * computed once per game. Fuzzy (%=) matches names within a few typos of the value, see
+ * {@link EditDistance#limitFor(String)}.
  */
 public class StringFilter extends Filter {
-    
+    /** The value folded like the game names, see {@link NameKey}. */
+    private final String key;
+    /** The edit distance a fuzzy match allows. */
+    private final int limit;
+
     /**
      * Constructs a StringFilter with the specified column, operator, and value.
      * @param column The game data column to filter on
@@ -17,6 +27,8 @@ public class StringFilter extends Filter {
      */
     public StringFilter(GameData column, Operations operator, String value) {
         super(column, operator, value);
+        this.key = NameKey.of(value);
+        this.limit = EditDistance.limitFor(value);
     }
 
     /**
@@ -26,11 +38,17 @@ public class StringFilter extends Filter {
      */
     @Override
     public boolean apply(Game game) {
-        String gameValue = game.getName();
-        
+        String gameKey = game.getNameKey();
+
         return switch (getOperator()) {
-            case EQUALS -> gameValue.equalsIgnoreCase(getValue());
-            default -> throw new IllegalArgumentException("Invalid operator for string comparison: " + getOperator());
+            case EQUALS -> gameKey.equals(key);
+            case NOT_EQUALS -> !gameKey.equals(key);
+            case CONTAINS -> gameKey.contains(key);
+            case FUZZY -> EditDistance.bounded(gameKey, key, limit) <= limit;
+            case GREATER_THAN -> gameKey.compareTo(key) > 0;
+            case LESS_THAN -> gameKey.compareTo(key) < 0;
+            case GREATER_THAN_EQUALS -> gameKey.compareTo(key) >= 0;
+            case LESS_THAN_EQUALS -> gameKey.compareTo(key) <= 0;
         };
     }
-} 
+}
@@ -0,0 +1,27 @@
+package student.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for loading the game collection.
+ */
+@Name("student.CatalogLoad")
+@Label("Catalog Load")
+@Category("BG Arena Planner")
+@Description("Reading and parsing a game collection file")
+public class CatalogLoadEvent extends jdk.jfr.Event {
+    /** The file or resource that was loaded. */
+    @Label("Source")
+    public String source;
+
+    /** Lines read from the source, not counting the header. */
+    @Label("Lines Read")
+    public int linesRead;
+
+    /** Games that parsed successfully. */
+    @Label("Games Loaded")
+    public int gamesLoaded;
+}
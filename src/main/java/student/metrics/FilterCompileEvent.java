@@ -0,0 +1,27 @@
+package student.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for turning a filter string into filter clauses.
+ */
+@Name("student.FilterCompile")
+@Label("Filter Compile")
+@Category("BG Arena Planner")
+@Description("Parsing a filter string into clauses")
+public class FilterCompileEvent extends jdk.jfr.Event {
+    /** The filter string as passed to the planner. */
+    @Label("Filter")
+    public String filter;
+
+    /** Number of clauses in the filter. */
+    @Label("Clause Count")
+    public int clauses;
+
+    /** Whether the filter parsed. */
+    @Label("Valid")
+    public boolean valid;
+}
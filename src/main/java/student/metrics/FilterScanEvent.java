@@ -0,0 +1,35 @@
+package student.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for running the compiled clauses of a filter over the games.
+ */
+@Name("student.FilterScan")
+@Label("Filter Scan")
+@Category("BG Arena Planner")
+@Description("Applying the clauses of a filter to the games")
+public class FilterScanEvent extends jdk.jfr.Event {
+    /** The filter string as passed to the planner. */
+    @Label("Filter")
+    public String filter;
+
+    /** Number of clauses applied. */
+    @Label("Clause Count")
+    public int clauses;
+
+    /** How the rows were found. */
+    @Label("Access Path")
+    public String accessPath;
+
+    /** Rows looked at, summed over every clause. */
+    @Label("Rows Scanned")
+    public long rowsScanned;
+
+    /** Rows that matched every clause. */
+    @Label("Rows Returned")
+    public int rowsReturned;
+}
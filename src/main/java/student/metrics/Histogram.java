@@ -0,0 +1,140 @@
+package student.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free log-linear histogram of non-negative long values (latencies in nanoseconds, byte
+ * counts).
+ *
+ * Works like a very small HDR histogram: every power of two is split into eight sub-buckets, so
+ * a recorded value is off by at most 12.5% when it is read back as a percentile, and the whole
+ * histogram is a fixed array of counters no matter how many values are recorded.
+ */
+public final class Histogram {
+    /** Sub-buckets per power of two, as a power of two. */
+    private static final int SUB_BITS = 3;
+    /** Sub-buckets per power of two. */
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    /** Values below this are counted exactly, one bucket each. */
+    private static final int LINEAR = SUB_COUNT * 2;
+    /** Total number of buckets, enough for any positive long. */
+    private static final int BUCKETS = LINEAR + (Long.SIZE - SUB_BITS - 1) * SUB_COUNT;
+
+    /** Count per bucket. */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    /** Number of values recorded. */
+    private final LongAdder count = new LongAdder();
+    /** Sum of the values recorded. */
+    private final LongAdder sum = new LongAdder();
+    /** Largest value recorded. */
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a value. Negative values are counted as zero.
+     *
+     * @param value the value to record
+     */
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(bucketOf(v));
+        count.increment();
+        sum.add(v);
+        long current = max.get();
+        while (v > current && !max.compareAndSet(current, v)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Number of values recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Mean of the values recorded.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    /**
+     * Largest value recorded.
+     *
+     * @return the max, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets the value at a percentile, as the upper bound of the bucket it falls in.
+     *
+     * @param percentile the percentile, 0 to 100
+     * @return the value at that percentile, or 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long n = count.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(n * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /** Clears every recorded value. */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * Finds the bucket of a value.
+     *
+     * @param v the value, not negative
+     * @return the bucket index
+     */
+    static int bucketOf(long v) {
+        if (v < LINEAR) {
+            return (int) v;
+        }
+        int exp = Long.SIZE - 1 - Long.numberOfLeadingZeros(v);
+        int sub = (int) (v >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+        return LINEAR + (exp - SUB_BITS - 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * Largest value that falls in a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the upper bound of the bucket
+     */
+    static long upperBound(int bucket) {
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+        int exp = (bucket - LINEAR) / SUB_COUNT + SUB_BITS + 1;
+        long sub = (bucket - LINEAR) % SUB_COUNT;
+        long width = 1L << (exp - SUB_BITS);
+        return (1L << exp) + (sub + 1) * width - 1;
+    }
+}
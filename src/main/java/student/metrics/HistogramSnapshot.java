@@ -0,0 +1,113 @@
+package student.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point in time summary of a {@link Histogram}, shaped so JMX can show it as composite data.
+ */
+public final class HistogramSnapshot {
+    /** Number of values recorded. */
+    private final long count;
+    /** Mean value. */
+    private final double mean;
+    /** 50th percentile. */
+    private final long p50;
+    /** 90th percentile. */
+    private final long p90;
+    /** 99th percentile. */
+    private final long p99;
+    /** Largest value. */
+    private final long max;
+
+    /**
+     * Creates a snapshot from its values.
+     *
+     * @param count number of values recorded
+     * @param mean the mean value
+     * @param p50 the 50th percentile
+     * @param p90 the 90th percentile
+     * @param p99 the 99th percentile
+     * @param max the largest value
+     */
+    @ConstructorProperties({"count", "mean", "p50", "p90", "p99", "max"})
+    public HistogramSnapshot(long count, double mean, long p50, long p90, long p99, long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    /**
+     * Takes a snapshot of a histogram.
+     *
+     * @param histogram the histogram to summarize
+     * @return the snapshot
+     */
+    static HistogramSnapshot of(Histogram histogram) {
+        return new HistogramSnapshot(histogram.getCount(), histogram.getMean(),
+                histogram.percentile(50), histogram.percentile(90), histogram.percentile(99),
+                histogram.getMax());
+    }
+
+    /**
+     * Number of values recorded.
+     *
+     * @return the count
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Mean value.
+     *
+     * @return the mean
+     */
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * 50th percentile.
+     *
+     * @return the median
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * 90th percentile.
+     *
+     * @return the 90th percentile
+     */
+    public long getP90() {
+        return p90;
+    }
+
+    /**
+     * 99th percentile.
+     *
+     * @return the 99th percentile
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * Largest value.
+     *
+     * @return the max
+     */
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d mean=%.0f p50=%d p90=%d p99=%d max=%d",
+                count, mean, p50, p90, p99, max);
+    }
+}
@@ -0,0 +1,23 @@
+package student.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for writing a game list to a file.
+ */
+@Name("student.ListSave")
+@Label("List Save")
+@Category("BG Arena Planner")
+@Description("Saving a game list to a file")
+public class ListSaveEvent extends jdk.jfr.Event {
+    /** The file written. */
+    @Label("File")
+    public String file;
+
+    /** Number of games written. */
+    @Label("Games")
+    public int games;
+}
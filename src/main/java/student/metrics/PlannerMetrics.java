@@ -0,0 +1,256 @@
+package student.metrics;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Process wide latency histograms and counters for the planner.
+ *
+ * Recording is off unless the {@code planner.metrics} system property is true (or it is turned on
+ * through JMX). While it is off, {@link #start()} returns 0 without reading the clock and every
+ * record call returns right away, so the hooks left in the planner cost a single volatile read.
+ *
+ * Typical use:
+ *
+ * <pre>
+ *  long start = PlannerMetrics.start();
+ *  // ... do the work ...
+ *  PlannerMetrics.record(PlannerMetrics.Operation.FILTER, start);
+ * </pre>
+ */
+public final class PlannerMetrics implements PlannerMetricsMXBean {
+    /** Name the metrics are registered under in the platform MBean server. */
+    public static final String OBJECT_NAME = "student:type=PlannerMetrics";
+
+    /** The operations that are timed. */
+    public enum Operation {
+        /** Loading the game collection. */
+        LOAD,
+        /** Running the filter clauses. */
+        FILTER,
+        /** Sorting filter results. */
+        SORT,
+        /** Game list changes and saves. */
+        LIST
+    }
+
+    /** The single instance, also the registered MBean. */
+    private static final PlannerMetrics INSTANCE = new PlannerMetrics();
+    /** Whether metrics are being recorded. */
+    private static volatile boolean enabled = Boolean.getBoolean("planner.metrics");
+
+    /** Latency per operation. */
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    /** Bytes allocated per filter query. */
+    private final Histogram allocated = new Histogram();
+    /** Rows looked at by filter clauses. */
+    private final LongAdder rowsScanned = new LongAdder();
+    /** Rows returned by filter queries. */
+    private final LongAdder rowsReturned = new LongAdder();
+    /** Thread bean used to read per thread allocation, null if the JVM does not support it. */
+    private final com.sun.management.ThreadMXBean threads;
+
+    /** Private constructor, use the static methods. */
+    private PlannerMetrics() {
+        for (Operation op : Operation.values()) {
+            latencies.put(op, new Histogram());
+        }
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sunBean
+                && sunBean.isThreadAllocatedMemorySupported()) {
+            this.threads = sunBean;
+        } else {
+            this.threads = null;
+        }
+    }
+
+    /**
+     * Gets the metrics instance, mostly for JMX and tests.
+     *
+     * @return the planner metrics
+     */
+    public static PlannerMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts timing an operation.
+     *
+     * @return the start time in nanoseconds, or 0 if metrics are off
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records the latency of an operation started with {@link #start()}.
+     *
+     * @param op the operation
+     * @param start the value returned by start
+     */
+    public static void record(Operation op, long start) {
+        if (start != 0L && enabled) {
+            INSTANCE.latencies.get(op).record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Adds to the rows scanned counter.
+     *
+     * @param rows the number of rows a clause looked at
+     */
+    public static void rowsScanned(long rows) {
+        if (enabled) {
+            INSTANCE.rowsScanned.add(rows);
+        }
+    }
+
+    /**
+     * Adds to the rows returned counter.
+     *
+     * @param rows the number of rows a query returned
+     */
+    public static void rowsReturned(long rows) {
+        if (enabled) {
+            INSTANCE.rowsReturned.add(rows);
+        }
+    }
+
+    /**
+     * Reads how many bytes the current thread has allocated so far.
+     *
+     * @return the allocated bytes, or -1 if metrics are off or not supported
+     */
+    public static long allocationMark() {
+        if (!enabled || INSTANCE.threads == null) {
+            return -1L;
+        }
+        return INSTANCE.threads.getCurrentThreadAllocatedBytes();
+    }
+
+    /**
+     * Records the bytes allocated by the current thread since a mark.
+     *
+     * @param mark the value returned by allocationMark
+     */
+    public static void recordAllocation(long mark) {
+        if (mark >= 0 && enabled) {
+            INSTANCE.allocated.record(INSTANCE.threads.getCurrentThreadAllocatedBytes() - mark);
+        }
+    }
+
+    /**
+     * Registers the metrics in the platform MBean server. Safe to call more than once.
+     */
+    public static void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+        } catch (JMException e) {
+            System.err.println("Unable to register planner metrics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Prints a text dump of the metrics on a fixed period from a daemon thread.
+     *
+     * @param period time between dumps
+     * @param out where to print the dump
+     * @return the scheduler, so the caller can shut it down
+     */
+    public static ScheduledExecutorService startDump(Duration period, PrintStream out) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "planner-metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        long millis = period.toMillis();
+        scheduler.scheduleAtFixedRate(() -> out.print(INSTANCE.dump()), millis, millis,
+                TimeUnit.MILLISECONDS);
+        return scheduler;
+    }
+
+    /**
+     * Text dump of every metric, one per line.
+     *
+     * @return the dump
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder();
+        for (Operation op : Operation.values()) {
+            sb.append(String.format("planner.%s.nanos %s%n", op.name().toLowerCase(),
+                    HistogramSnapshot.of(latencies.get(op))));
+        }
+        sb.append(String.format("planner.filter.allocated.bytes %s%n", getAllocatedBytes()));
+        sb.append(String.format("planner.rows scanned=%d returned=%d%n", getRowsScanned(),
+                getRowsReturned()));
+        return sb.toString();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    @Override
+    public HistogramSnapshot getLoad() {
+        return HistogramSnapshot.of(latencies.get(Operation.LOAD));
+    }
+
+    @Override
+    public HistogramSnapshot getFilter() {
+        return HistogramSnapshot.of(latencies.get(Operation.FILTER));
+    }
+
+    @Override
+    public HistogramSnapshot getSort() {
+        return HistogramSnapshot.of(latencies.get(Operation.SORT));
+    }
+
+    @Override
+    public HistogramSnapshot getList() {
+        return HistogramSnapshot.of(latencies.get(Operation.LIST));
+    }
+
+    @Override
+    public HistogramSnapshot getAllocatedBytes() {
+        return HistogramSnapshot.of(allocated);
+    }
+
+    @Override
+    public long getRowsScanned() {
+        return rowsScanned.sum();
+    }
+
+    @Override
+    public long getRowsReturned() {
+        return rowsReturned.sum();
+    }
+
+    @Override
+    public void reset() {
+        latencies.values().forEach(Histogram::reset);
+        allocated.reset();
+        rowsScanned.reset();
+        rowsReturned.reset();
+    }
+}
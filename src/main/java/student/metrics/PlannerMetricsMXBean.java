@@ -0,0 +1,72 @@
+package student.metrics;
+
+/**
+ * JMX view of the planner metrics. Latencies are in nanoseconds.
+ */
+public interface PlannerMetricsMXBean {
+    /**
+     * Whether metrics are being recorded.
+     *
+     * @return true if sampling is on
+     */
+    boolean isEnabled();
+
+    /**
+     * Turns recording on or off.
+     *
+     * @param enabled true to start sampling
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Latency of loading the collection.
+     *
+     * @return the load histogram
+     */
+    HistogramSnapshot getLoad();
+
+    /**
+     * Latency of applying filters (excluding the sort).
+     *
+     * @return the filter histogram
+     */
+    HistogramSnapshot getFilter();
+
+    /**
+     * Latency of sorting filter results.
+     *
+     * @return the sort histogram
+     */
+    HistogramSnapshot getSort();
+
+    /**
+     * Latency of game list operations (add, remove, save).
+     *
+     * @return the list histogram
+     */
+    HistogramSnapshot getList();
+
+    /**
+     * Bytes allocated by the calling thread per filter query.
+     *
+     * @return the allocation histogram
+     */
+    HistogramSnapshot getAllocatedBytes();
+
+    /**
+     * Total rows looked at by filter clauses.
+     *
+     * @return rows scanned
+     */
+    long getRowsScanned();
+
+    /**
+     * Total rows returned by filter queries.
+     *
+     * @return rows returned
+     */
+    long getRowsReturned();
+
+    /** Clears every metric. */
+    void reset();
+}
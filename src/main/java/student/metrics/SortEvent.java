@@ -0,0 +1,27 @@
+package student.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event for sorting filter results.
+ */
+@Name("student.Sort")
+@Label("Sort")
+@Category("BG Arena Planner")
+@Description("Sorting the games that matched a filter")
+public class SortEvent extends jdk.jfr.Event {
+    /** The column sorted on. */
+    @Label("Column")
+    public String column;
+
+    /** Whether the sort was ascending. */
+    @Label("Ascending")
+    public boolean ascending;
+
+    /** Rows sorted. */
+    @Label("Rows")
+    public int rows;
+}
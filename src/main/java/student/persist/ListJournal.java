@@ -0,0 +1,297 @@
+package student.persist;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A game list kept on disk as an append-only journal of changes by BGG id, compacted now and
+ * then into a snapshot.
+ *
+ * Each add, remove or clear is one 8-byte record (an op and an id) appended to list.journal,
+ * and the changes of one edit are appended in one write. Once the journal holds more than
+ * four records per id listed (and at least {@link #MIN_COMPACT} of them), the ids listed are
+ * written to list.snapshot, which replaces the old one atomically, and the journal is emptied.
+ *
+ * Opening a journal reads both files, each in one read, and replays the snapshot and then the
+ * journal. Every record sets whether one id is listed, or clears them all, so replaying a
+ * journal onto a snapshot that already includes it changes nothing. A crash between writing a
+ * snapshot and emptying the journal therefore loses nothing. A torn record at the end of the
+ * journal is dropped. The files are read rather than mapped: a mapping cannot be released on
+ * demand, and a file that is still mapped cannot be truncated or replaced on every platform.
+ *
+ * The ids listed follow the journal on disk: records are applied to them only once their
+ * write succeeds, and a failed write is cut back off the journal.
+ *
+ * Records are not forced to disk as they are appended, so they survive the process stopping,
+ * but not necessarily the machine; snapshots are forced.
+ */
+public final class ListJournal implements Closeable {
+    /** Fewest records in the journal before it is compacted. */
+    static final int MIN_COMPACT = 1024;
+    /** Records per id listed the journal may hold before it is compacted. */
+    private static final int COMPACT_RATIO = 4;
+    /** The first int of a snapshot. */
+    private static final int SNAPSHOT_MAGIC = 0x4c495354;
+    /** Bytes per record: the op, then the id. */
+    private static final int RECORD = 2 * Integer.BYTES;
+    /** Op of a record listing an id. */
+    private static final int ADD = 1;
+    /** Op of a record unlisting an id. */
+    private static final int REMOVE = 2;
+    /** Op of a record unlisting every id. */
+    private static final int CLEAR = 3;
+
+    /** The snapshot file. */
+    private final Path snapshot;
+    /** The journal, open for appending. */
+    private final FileChannel journal;
+    /** The ids listed as of the last commit, in the order they were added. */
+    private final Set<Integer> ids = new LinkedHashSet<>();
+    /** Records waiting for {@link #commit()}. */
+    private ByteBuffer batch = ByteBuffer.allocate(16 * RECORD);
+    /** Number of records in the journal. */
+    private long records;
+
+    /**
+     * Opens a journal, replaying it.
+     *
+     * @param snapshot the snapshot file
+     * @param journal the journal, open for writing
+     * @param records the records in the journal after replay
+     */
+    private ListJournal(Path snapshot, FileChannel journal, long records) {
+        this.snapshot = snapshot;
+        this.journal = journal;
+        this.records = records;
+    }
+
+    /**
+     * Opens the journal in a directory, creating the directory and an empty journal if there
+     * is none, and replays it.
+     *
+     * @param dir the directory of list.snapshot and list.journal
+     * @return the journal
+     * @throws IOException if the files cannot be read or written, or the snapshot is not one
+     */
+    public static ListJournal open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        Path snapshot = dir.resolve("list.snapshot");
+        FileChannel channel = FileChannel.open(dir.resolve("list.journal"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ListJournal opened = new ListJournal(snapshot, channel, 0);
+            opened.readSnapshot();
+            IntBuffer log = read(channel, channel.size() / RECORD * RECORD).asIntBuffer();
+            long good = 0;
+            while (log.hasRemaining() && opened.apply(log.get(), log.get())) {
+                good++;
+            }
+            // drop a torn or unreadable tail, so appends follow the last good record
+            if (channel.size() > good * RECORD) {
+                channel.truncate(good * RECORD);
+            }
+            channel.position(good * RECORD);
+            opened.records = good;
+            return opened;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the ids of the snapshot, if there is one.
+     *
+     * @throws IOException if it cannot be read or is not a snapshot
+     */
+    private void readSnapshot() throws IOException {
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            IntBuffer in = read(channel, channel.size()).asIntBuffer();
+            if (in.remaining() < 2 || in.get() != SNAPSHOT_MAGIC || in.get() != in.remaining()) {
+                throw new IOException("Not a list snapshot: " + snapshot);
+            }
+            while (in.hasRemaining()) {
+                ids.add(in.get());
+            }
+        }
+    }
+
+    /**
+     * Reads the start of a file in one buffer.
+     *
+     * @param channel the file
+     * @param length the bytes to read
+     * @return the bytes, ready to get
+     * @throws IOException if the file cannot be read or is shorter than the length
+     */
+    private static ByteBuffer read(FileChannel channel, long length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(length));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                throw new IOException("File ended early");
+            }
+        }
+        return buffer.flip();
+    }
+
+    /**
+     * Gets the ids listed as of the last commit.
+     *
+     * @return the ids, in the order they were added
+     */
+    public List<Integer> ids() {
+        return List.copyOf(ids);
+    }
+
+    /**
+     * Records that an id was added to the list, as of the next commit.
+     *
+     * @param id the BGG id
+     */
+    public void add(int id) {
+        put(ADD, id);
+    }
+
+    /**
+     * Records that an id was removed from the list, as of the next commit.
+     *
+     * @param id the BGG id
+     */
+    public void remove(int id) {
+        put(REMOVE, id);
+    }
+
+    /**
+     * Records that the list was cleared, as of the next commit.
+     */
+    public void clear() {
+        put(CLEAR, 0);
+    }
+
+    /**
+     * Appends the records since the last commit in one write and applies them to the ids
+     * listed, then compacts the journal if it has grown long enough. If the write fails, the
+     * records are dropped and whatever part of them reached the journal is cut off again.
+     *
+     * @throws IOException if the journal cannot be written
+     */
+    public void commit() throws IOException {
+        long end = journal.position();
+        batch.flip();
+        try {
+            while (batch.hasRemaining()) {
+                journal.write(batch);
+            }
+        } catch (IOException e) {
+            batch.clear();
+            try {
+                journal.truncate(end);
+                journal.position(end);
+            } catch (IOException again) {
+                e.addSuppressed(again);
+            }
+            throw e;
+        }
+        batch.rewind();
+        while (batch.hasRemaining()) {
+            apply(batch.getInt(), batch.getInt());
+            records++;
+        }
+        batch.clear();
+        if (records >= Math.max(MIN_COMPACT, (long) COMPACT_RATIO * ids.size())) {
+            compact();
+        }
+    }
+
+    /**
+     * Writes the ids listed to a new snapshot, replacing the old one, then empties the journal.
+     *
+     * @throws IOException if the files cannot be written
+     */
+    public void compact() throws IOException {
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        ByteBuffer out = ByteBuffer.allocate((ids.size() + 2) * Integer.BYTES);
+        out.putInt(SNAPSHOT_MAGIC).putInt(ids.size());
+        ids.forEach(out::putInt);
+        out.flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(temp, snapshot, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING);
+        }
+        journal.truncate(0);
+        journal.position(0);
+        journal.force(true);
+        records = 0;
+    }
+
+    /**
+     * Gets the number of records in the journal since the last snapshot.
+     *
+     * @return the record count
+     */
+    public long records() {
+        return records;
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+    /**
+     * Queues a record for the next commit.
+     *
+     * @param op the op
+     * @param id the BGG id
+     */
+    private void put(int op, int id) {
+        if (batch.remaining() < RECORD) {
+            ByteBuffer bigger = ByteBuffer.allocate(batch.capacity() * 2);
+            bigger.put(batch.flip());
+            batch = bigger;
+        }
+        batch.putInt(op).putInt(id);
+    }
+
+    /**
+     * Applies a record to the ids listed.
+     *
+     * @param op the op
+     * @param id the BGG id
+     * @return false if the op is not one
+     */
+    private boolean apply(int op, int id) {
+        switch (op) {
+            case ADD -> ids.add(id);
+            case REMOVE -> ids.remove(id);
+            case CLEAR -> ids.clear();
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,186 @@
+package student.persist;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes text files, such as saved game lists, on a background thread.
+ *
+ * A save returns at once with a future that completes when the file is on disk. Saves to the
+ * same file that arrive before the write starts are grouped into one write of the latest
+ * content, and every one of their futures completes with it. Each write goes to a temporary file
+ * next to the target through a buffered channel, is forced to disk, and is then moved over the
+ * target atomically, so a reader sees either the old file or the new one, never part of it.
+ *
+ * Writes run one at a time, in the order their files were first saved. The writer thread stops
+ * when it has been idle for a second, and it is not a daemon thread, so saves in progress
+ * finish before the JVM exits.
+ */
+public final class ListWriter {
+    /** Size of the write buffer. */
+    private static final int BUFFER = 1 << 16;
+    /** The line separator written after every line. */
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /** Runs the writes, one at a time. */
+    private final Executor executor;
+    /** The save waiting to be written for each file, guarded by itself. */
+    private final Map<Path, Batch> pending = new HashMap<>();
+
+    /**
+     * Creates a writer with its own background thread, started when first needed.
+     */
+    public ListWriter() {
+        this(new ThreadPoolExecutor(0, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                task -> new Thread(task, "list-writer")));
+    }
+
+    /**
+     * Creates a writer running its writes on an executor, used for testing. The executor must
+     * run tasks one at a time, in order.
+     *
+     * @param executor runs the writes
+     */
+    ListWriter(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Saves lines to a file, replacing it, in the background. Parent directories are created
+     * as needed.
+     *
+     * @param file the file
+     * @param lines the lines, copied before this returns
+     * @return completes with the file written, or exceptionally if it could not be written
+     */
+    public CompletableFuture<Path> save(Path file, List<String> lines) {
+        Path target = file.toAbsolutePath().normalize();
+        CompletableFuture<Path> done = new CompletableFuture<>();
+        List<String> copy = List.copyOf(lines);
+        synchronized (pending) {
+            Batch batch = pending.get(target);
+            if (batch == null) {
+                batch = new Batch();
+                pending.put(target, batch);
+                executor.execute(() -> flush(target));
+            }
+            batch.lines = copy;
+            batch.waiting.add(done);
+        }
+        return done;
+    }
+
+    /**
+     * Writes the save waiting for a file and completes every future grouped into it.
+     *
+     * @param target the file
+     */
+    private void flush(Path target) {
+        Batch batch;
+        synchronized (pending) {
+            batch = pending.remove(target);
+        }
+        try {
+            write(target, batch.lines);
+            batch.waiting.forEach(done -> done.complete(target));
+        } catch (IOException | RuntimeException e) {
+            batch.waiting.forEach(done -> done.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Writes lines to a temporary file next to the target, then moves it over the target.
+     *
+     * @param target the file
+     * @param lines the lines
+     * @throws IOException if the file cannot be written
+     */
+    static void write(Path target, List<String> lines) throws IOException {
+        Path dir = target.getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+                for (String line : lines) {
+                    put(channel, buffer, line.getBytes(StandardCharsets.UTF_8));
+                    put(channel, buffer, NEWLINE);
+                }
+                drain(channel, buffer);
+                channel.force(false);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Appends bytes to the buffer, writing it out whenever it fills.
+     *
+     * @param channel the file
+     * @param buffer the buffer
+     * @param bytes the bytes
+     * @throws IOException if the file cannot be written
+     */
+    private static void put(FileChannel channel, ByteBuffer buffer, byte[] bytes)
+            throws IOException {
+        for (int from = 0; from < bytes.length;) {
+            if (!buffer.hasRemaining()) {
+                drain(channel, buffer);
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - from);
+            buffer.put(bytes, from, length);
+            from += length;
+        }
+    }
+
+    /**
+     * Writes out the buffer.
+     *
+     * @param channel the file
+     * @param buffer the buffer
+     * @throws IOException if the file cannot be written
+     */
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * The latest save to a file that has not been written yet, and everyone waiting for it.
+     */
+    private static final class Batch {
+        /** The lines of the latest save. */
+        private List<String> lines;
+        /** The futures of every save grouped into this write. */
+        private final List<CompletableFuture<Path>> waiting = new ArrayList<>();
+    }
+}
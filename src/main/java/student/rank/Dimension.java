@@ -0,0 +1,67 @@
+package student.rank;
+
+import student.GameData;
+
+/**
+ * One column of a skyline query, and which way is better on it.
+ */
+public final class Dimension {
+    /** The column compared. */
+    private final GameData column;
+    /** Whether a higher value is better. */
+    private final boolean higherIsBetter;
+
+    /**
+     * Creates a dimension.
+     *
+     * @param column the column compared
+     * @param higherIsBetter whether a higher value is better
+     */
+    private Dimension(GameData column, boolean higherIsBetter) {
+        this.column = column;
+        this.higherIsBetter = higherIsBetter;
+    }
+
+    /**
+     * A column where higher is better, such as rating.
+     *
+     * @param column the column
+     * @return the dimension
+     */
+    public static Dimension high(GameData column) {
+        return new Dimension(column, true);
+    }
+
+    /**
+     * A column where lower is better, such as difficulty or play time.
+     *
+     * @param column the column
+     * @return the dimension
+     */
+    public static Dimension low(GameData column) {
+        return new Dimension(column, false);
+    }
+
+    /**
+     * Gets the column compared.
+     *
+     * @return the column
+     */
+    public GameData getColumn() {
+        return column;
+    }
+
+    /**
+     * Whether a higher value is better.
+     *
+     * @return true if higher is better, false if lower is
+     */
+    public boolean isHigherBetter() {
+        return higherIsBetter;
+    }
+
+    @Override
+    public String toString() {
+        return (higherIsBetter ? "high " : "low ") + column;
+    }
+}
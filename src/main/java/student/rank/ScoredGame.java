@@ -0,0 +1,47 @@
+package student.rank;
+
+import student.BoardGame;
+
+/**
+ * A game with the score a ranked query gave it.
+ */
+public final class ScoredGame {
+    /** The game. */
+    private final BoardGame game;
+    /** Its score, higher is better. */
+    private final double score;
+
+    /**
+     * Creates a scored game.
+     *
+     * @param game the game
+     * @param score its score, higher is better
+     */
+    public ScoredGame(BoardGame game, double score) {
+        this.game = game;
+        this.score = score;
+    }
+
+    /**
+     * Gets the game.
+     *
+     * @return the game
+     */
+    public BoardGame getGame() {
+        return game;
+    }
+
+    /**
+     * Gets the score.
+     *
+     * @return the score, higher is better
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (%.3f)", game.getName(), score);
+    }
+}
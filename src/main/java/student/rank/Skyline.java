@@ -0,0 +1,210 @@
+package student.rank;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import student.catalog.ColumnStats;
+import student.catalog.GameCatalog;
+
+/**
+ * Finds the skyline of some rows: the rows no other row beats on every dimension at once, with
+ * sort-filter-skyline.
+ *
+ * A row is dominated when another row is at least as good on every dimension and better on at
+ * least one. The values are first flipped so higher is always better and scaled to 0..1, and the
+ * rows are sorted by the sum of their values, best first. A row can only be dominated by a row
+ * with a bigger sum (or one that rounds to the same sum), so it only has to be compared with the
+ * skyline rows found before it, and every row that survives that is final. That is one pass over
+ * the sorted rows, comparing each one with the (usually small) skyline instead of with every
+ * other row.
+ *
+ * The values are copied out of the catalog's primitive columns into one array per dimension, so
+ * the pass never touches a game object.
+ */
+public final class Skyline {
+    /** Ranges at most this long are sorted by insertion. */
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    /** Utility class. */
+    private Skyline() {
+    }
+
+    /**
+     * Finds the skyline of some catalog rows.
+     *
+     * @param catalog the catalog
+     * @param rows the rows to consider
+     * @param dimensions the dimensions, each a single numeric column
+     * @return the skyline rows, ascending
+     * @throws IllegalArgumentException if there are no dimensions or a column is not a single
+     *         numeric value
+     */
+    public static int[] of(GameCatalog catalog, BitSet rows, Dimension... dimensions) {
+        if (dimensions.length == 0) {
+            throw new IllegalArgumentException("A skyline needs at least one dimension");
+        }
+        int n = rows.cardinality();
+        int[] ids = new int[n];
+        double[][] values = new double[dimensions.length][n];
+        for (int d = 0; d < dimensions.length; d++) {
+            if (catalog.index(dimensions[d].getColumn()) == null) {
+                throw new IllegalArgumentException("Cannot compare on "
+                        + dimensions[d].getColumn());
+            }
+            ColumnStats stats = catalog.stats(dimensions[d].getColumn());
+            double range = stats.max() - stats.min();
+            double scale = (range > 0 ? 1 / range : 0) * (dimensions[d].isHigherBetter() ? 1 : -1);
+            int i = 0;
+            for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+                ids[i] = row;
+                double value = catalog.value(row, dimensions[d].getColumn());
+                values[d][i++] = (value - stats.min()) * scale;
+            }
+        }
+        int[] skyline = of(values, n);
+        for (int i = 0; i < skyline.length; i++) {
+            skyline[i] = ids[skyline[i]];
+        }
+        Arrays.sort(skyline);
+        return skyline;
+    }
+
+    /**
+     * Finds the skyline of points given as one array per dimension, higher being better.
+     *
+     * @param values the points, values[dimension][point]
+     * @param n the number of points
+     * @return the positions of the skyline points, in no particular order
+     */
+    static int[] of(double[][] values, int n) {
+        int m = values.length;
+        double[] sum = new double[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            for (int d = 0; d < m; d++) {
+                sum[i] += values[d][i];
+            }
+        }
+        sortDescending(order, sum, 0, n - 1);
+
+        // the skyline found so far, stored by dimension like the input
+        double[][] window = new double[m][16];
+        int[] found = new int[16];
+        int size = 0;
+        for (int p : order) {
+            if (dominated(window, size, values, p)) {
+                continue;
+            }
+            // a dominating point may round to the same sum and come later; such points are at the
+            // end of the window, so drop any of those p dominates
+            int keep = size;
+            while (keep > 0 && sum[found[keep - 1]] == sum[p]) {
+                keep--;
+            }
+            for (int w = keep; w < size; w++) {
+                if (!dominates(values, p, window, w)) {
+                    for (int d = 0; d < m; d++) {
+                        window[d][keep] = window[d][w];
+                    }
+                    found[keep++] = found[w];
+                }
+            }
+            size = keep;
+            if (size == found.length) {
+                found = Arrays.copyOf(found, size * 2);
+                for (int d = 0; d < m; d++) {
+                    window[d] = Arrays.copyOf(window[d], size * 2);
+                }
+            }
+            for (int d = 0; d < m; d++) {
+                window[d][size] = values[d][p];
+            }
+            found[size++] = p;
+        }
+        return Arrays.copyOf(found, size);
+    }
+
+    /**
+     * Checks a point against the skyline found so far.
+     *
+     * @param window the skyline so far, by dimension
+     * @param size the number of skyline points
+     * @param values the points, by dimension
+     * @param p the point to check
+     * @return true if a skyline point dominates p
+     */
+    private static boolean dominated(double[][] window, int size, double[][] values, int p) {
+        for (int w = 0; w < size; w++) {
+            if (dominates(window, w, values, p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether point a is at least as good as point b on every dimension and better on one.
+     *
+     * @param as the points a is in, by dimension
+     * @param a the first point
+     * @param bs the points b is in, by dimension
+     * @param b the second point
+     * @return true if a dominates b
+     */
+    private static boolean dominates(double[][] as, int a, double[][] bs, int b) {
+        boolean better = false;
+        for (int d = 0; d < as.length; d++) {
+            if (as[d][a] < bs[d][b]) {
+                return false;
+            }
+            better |= as[d][a] > bs[d][b];
+        }
+        return better;
+    }
+
+    /**
+     * Sorts positions by key, largest first, without boxing them.
+     *
+     * @param order the positions to sort
+     * @param key the key of each position
+     * @param lo the first index of the range to sort
+     * @param hi the last index of the range to sort
+     */
+    private static void sortDescending(int[] order, double[] key, int lo, int hi) {
+        while (hi - lo > INSERTION_SORT_SIZE) {
+            double pivot = key[order[(lo + hi) >>> 1]];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (key[order[i]] > pivot) {
+                    i++;
+                }
+                while (key[order[j]] < pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int t = order[i];
+                    order[i++] = order[j];
+                    order[j--] = t;
+                }
+            }
+            // recurse into the smaller side to keep the stack shallow
+            if (j - lo < hi - i) {
+                sortDescending(order, key, lo, j);
+                lo = i;
+            } else {
+                sortDescending(order, key, i, hi);
+                hi = j;
+            }
+        }
+        for (int i = lo + 1; i <= hi; i++) {
+            int p = order[i];
+            int j = i - 1;
+            while (j >= lo && key[order[j]] < key[p]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = p;
+        }
+    }
+}
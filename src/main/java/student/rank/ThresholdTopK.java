@@ -0,0 +1,138 @@
+package student.rank;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import student.GameData;
+import student.catalog.ColumnStats;
+import student.catalog.GameCatalog;
+import student.catalog.SortedIndex;
+
+/**
+ * Finds the K best games by a weighted sum of columns, with the threshold algorithm.
+ *
+ * Every column is first scaled to 0..1 over the catalog (min to max), so weights are comparable
+ * whatever the column's units: 0.6 rating - 0.3 difficulty + 0.1 year blends three columns
+ * measured in points, weight and years.
+ *
+ * The range index of every weighted column already has the rows in value order. The algorithm
+ * walks all of them in parallel, best contribution first (highest value for a positive weight,
+ * lowest for a negative one), and scores each new row it meets in full. After each round, the
+ * weighted sum of the values just seen is the best score any row not seen yet could have; once
+ * the K best scores found are at least that, no unseen row can make the top K and the walk stops.
+ * When the columns agree with each other, this scores a small part of the catalog.
+ *
+ * One instance is used per query, as it keeps count of the work done.
+ */
+public final class ThresholdTopK {
+    /** Best first, then by name so equal scores come out in a stable order. */
+    private static final Comparator<ScoredGame> BEST_FIRST = Comparator
+            .comparingDouble(ScoredGame::getScore).reversed()
+            .thenComparing(scored -> scored.getGame().getNameKey());
+
+    /** The catalog ranked. */
+    private final GameCatalog catalog;
+    /** Rows scored in full. */
+    private int rowsScored;
+    /** Rows walked in each column before stopping. */
+    private int depth;
+
+    /**
+     * Creates a query over a catalog.
+     *
+     * @param catalog the catalog ranked
+     */
+    public ThresholdTopK(GameCatalog catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Finds the K best rows among some rows.
+     *
+     * @param rows the rows that may be returned
+     * @param weights the weight of each column, negative when lower is better
+     * @param k the number of games wanted
+     * @return up to k games, best first
+     * @throws IllegalArgumentException if there are no weights or a column is not a single
+     *         numeric value
+     */
+    public List<ScoredGame> top(BitSet rows, Map<GameData, Double> weights, int k) {
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("No columns to score on");
+        }
+        int m = weights.size();
+        SortedIndex[] indexes = new SortedIndex[m];
+        GameData[] columns = new GameData[m];
+        double[] scale = new double[m];
+        double[] offset = new double[m];
+        boolean[] descending = new boolean[m];
+        int c = 0;
+        for (Map.Entry<GameData, Double> weight : weights.entrySet()) {
+            columns[c] = weight.getKey();
+            indexes[c] = catalog.index(weight.getKey());
+            if (indexes[c] == null) {
+                throw new IllegalArgumentException("Cannot score on column " + weight.getKey());
+            }
+            ColumnStats stats = catalog.stats(weight.getKey());
+            double range = stats.max() - stats.min();
+            // score = sum of scale * value + offset, which is weight * (value - min) / range
+            scale[c] = range > 0 ? weight.getValue() / range : 0;
+            offset[c] = -scale[c] * stats.min();
+            descending[c] = weight.getValue() > 0;
+            c++;
+        }
+
+        PriorityQueue<ScoredGame> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        BitSet seen = new BitSet(catalog.size());
+        int n = catalog.size();
+        for (depth = 0; depth < n && k > 0; depth++) {
+            double threshold = 0;
+            for (int i = 0; i < m; i++) {
+                int position = descending[i] ? n - 1 - depth : depth;
+                int row = indexes[i].rowAt(position);
+                threshold += scale[i] * indexes[i].valueAt(position) + offset[i];
+                if (seen.get(row) || !rows.get(row)) {
+                    continue;
+                }
+                seen.set(row);
+                double score = 0;
+                for (int j = 0; j < m; j++) {
+                    score += scale[j] * catalog.value(row, columns[j]) + offset[j];
+                }
+                rowsScored++;
+                best.add(new ScoredGame(catalog.get(row), score));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+            if (best.size() == k && best.peek().getScore() >= threshold) {
+                depth++;
+                break;
+            }
+        }
+        List<ScoredGame> result = new ArrayList<>(best);
+        result.sort(BEST_FIRST);
+        return result;
+    }
+
+    /**
+     * Rows scored in full by the last query.
+     *
+     * @return the rows scored
+     */
+    public int getRowsScored() {
+        return rowsScored;
+    }
+
+    /**
+     * Rows walked in each column by the last query before it could stop.
+     *
+     * @return the depth reached
+     */
+    public int getDepth() {
+        return depth;
+    }
+}
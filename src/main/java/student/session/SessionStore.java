@@ -0,0 +1,486 @@
+package student.session;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+import student.BoardGame;
+import student.IGameList;
+import student.catalog.GameCatalog;
+import student.catalog.NameKey;
+
+/**
+ * Holds a separate game list for every user session of a multi-user service.
+ *
+ * Each list is stored as a sorted int array of catalog row ids instead of a list of Game
+ * objects, so a session costs a small fixed overhead plus four bytes per listed game. Updates
+ * to a session are guarded by one of a fixed set of lock stripes (picked by the session id),
+ * so sessions that do not share a stripe never contend.
+ *
+ * The sessions are also kept in access order, so the least recently used one is always first.
+ * Whenever the estimated memory used by all sessions goes over the memory budget, the first
+ * sessions are evicted until it fits again, one step each. Sessions that have not been used for
+ * the idle timeout are evicted by {@link #evictIdle()}, which a store made with the public
+ * constructor runs on a background timer until it is closed.
+ */
+public final class SessionStore implements AutoCloseable {
+    /** Number of lock stripes, must be a power of two. */
+    private static final int STRIPES = 64;
+    /** Estimated bytes used by a session before any games are added (map entry, key, object). */
+    static final long SESSION_OVERHEAD = 128;
+    /** Capacity given to a list the first time a game is added. */
+    private static final int INITIAL_CAPACITY = 8;
+    /** Shared empty array for sessions with no games. */
+    private static final int[] EMPTY = new int[0];
+    /** Shortest time between idle sweeps, in nanoseconds. */
+    private static final long MIN_SWEEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+    /** Runs the idle sweeps of every store, on one daemon thread. */
+    private static final ScheduledExecutorService SWEEPER =
+            Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "session-sweeper");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    /** The catalog the row ids refer to. */
+    private final GameCatalog catalog;
+    /** Maximum estimated bytes all sessions may use together. */
+    private final long memoryBudget;
+    /** How long a session may go unused before it can be evicted, in nanoseconds. */
+    private final long idleTimeoutNanos;
+    /** Source of time, in nanoseconds. */
+    private final LongSupplier clock;
+    /** The live sessions by session id. */
+    private final ConcurrentHashMap<String, SessionList> sessions = new ConcurrentHashMap<>();
+    /** The live sessions in access order, least recently used first, guarded by itself. */
+    private final LinkedHashMap<String, SessionList> order = new LinkedHashMap<>(16, 0.75f, true);
+    /** Lock stripes guarding the session lists. */
+    private final Object[] stripes = new Object[STRIPES];
+    /** Estimated bytes currently used by all sessions. */
+    private final AtomicLong memoryUsed = new AtomicLong();
+    /** The scheduled idle sweep, null if the store does not sweep on its own. */
+    private ScheduledFuture<?> sweep;
+
+    /**
+     * Creates a session store that evicts idle sessions every idle timeout (at most once a
+     * second) until it is closed.
+     *
+     * @param catalog the catalog all sessions pick games from
+     * @param memoryBudget the maximum estimated bytes all sessions may use together
+     * @param idleTimeout how long a session may go unused before it can be evicted
+     */
+    public SessionStore(GameCatalog catalog, long memoryBudget, Duration idleTimeout) {
+        this(catalog, memoryBudget, idleTimeout, System::nanoTime);
+        long period = Math.max(idleTimeoutNanos, MIN_SWEEP_NANOS);
+        sweep = SWEEPER.scheduleWithFixedDelay(this::evictIdle, period, period,
+                TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates a session store with a specific clock and no idle sweep, used for testing.
+     *
+     * @param catalog the catalog all sessions pick games from
+     * @param memoryBudget the maximum estimated bytes all sessions may use together
+     * @param idleTimeout how long a session may go unused before it can be evicted
+     * @param clock source of time in nanoseconds
+     */
+    SessionStore(GameCatalog catalog, long memoryBudget, Duration idleTimeout, LongSupplier clock) {
+        this.catalog = catalog;
+        this.memoryBudget = memoryBudget;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+    }
+
+    /**
+     * Gets the game list for a session, creating an empty one if the session is new.
+     *
+     * @param sessionId the id of the session
+     * @return the game list of the session
+     */
+    public IGameList session(String sessionId) {
+        while (true) {
+            SessionList list = sessions.computeIfAbsent(sessionId, id -> {
+                memoryUsed.addAndGet(SESSION_OVERHEAD);
+                SessionList created = new SessionList(id);
+                synchronized (order) {
+                    order.put(id, created);
+                }
+                return created;
+            });
+            synchronized (lockFor(sessionId)) {
+                if (list.evicted) {
+                    continue; // evicted since it was looked up, make a new one
+                }
+                list.touch();
+            }
+            enforceBudget(list);
+            return list;
+        }
+    }
+
+    /**
+     * Removes a session and its list.
+     *
+     * @param sessionId the id of the session
+     * @return true if the session existed
+     */
+    public boolean remove(String sessionId) {
+        SessionList list = sessions.get(sessionId);
+        return list != null && evict(list, false, 0);
+    }
+
+    /**
+     * Evicts every session that has not been used for longer than the idle timeout. Sessions are
+     * checked least recently used first, stopping at the first one still in use. Each is checked
+     * again under its lock, so a session used since it was looked at is kept.
+     *
+     * @return the number of sessions evicted
+     */
+    public int evictIdle() {
+        long now = clock.getAsLong();
+        int evicted = 0;
+        while (true) {
+            SessionList oldest = eldest(null);
+            if (oldest == null || now - oldest.lastAccess <= idleTimeoutNanos) {
+                return evicted;
+            }
+            // if it was used or removed meanwhile it has left the front, so go on to the next
+            if (evict(oldest, true, now)) {
+                evicted++;
+            }
+        }
+    }
+
+    /**
+     * Stops the idle sweep. The sessions stay usable.
+     */
+    @Override
+    public void close() {
+        if (sweep != null) {
+            sweep.cancel(false);
+        }
+    }
+
+    /**
+     * Number of live sessions.
+     *
+     * @return the number of sessions in the store
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * Estimated memory used by all sessions.
+     *
+     * @return the estimated bytes used
+     */
+    public long memoryUsed() {
+        return memoryUsed.get();
+    }
+
+    /**
+     * Evicts the least recently used sessions until the store is within its memory budget. The
+     * session being worked on is never evicted.
+     *
+     * @param keep the session that triggered the check
+     * @throws IllegalStateException if the session on its own is larger than the budget
+     */
+    private void enforceBudget(SessionList keep) {
+        while (memoryUsed.get() > memoryBudget) {
+            SessionList oldest = eldest(keep);
+            if (oldest == null) {
+                throw new IllegalStateException("Session memory budget exceeded by " + keep.id);
+            }
+            evict(oldest, false, 0);
+        }
+    }
+
+    /**
+     * Gets the least recently used session. Only the first two entries are ever looked at.
+     *
+     * @param skip a session to pass over, or null
+     * @return the session, or null if there is no other
+     */
+    private SessionList eldest(SessionList skip) {
+        synchronized (order) {
+            for (SessionList list : order.values()) {
+                if (list != skip) {
+                    return list;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Removes a session from the store and releases its memory. Sessions are used under their
+     * lock, so an idle session is checked again here.
+     *
+     * @param list the session to remove
+     * @param idleOnly whether to keep the session if it is no longer idle
+     * @param now the time of the idle sweep, from the store clock; unused if not idleOnly
+     * @return true if this call removed it
+     */
+    private boolean evict(SessionList list, boolean idleOnly, long now) {
+        synchronized (lockFor(list.id)) {
+            if (list.evicted || (idleOnly && now - list.lastAccess <= idleTimeoutNanos)
+                    || !sessions.remove(list.id, list)) {
+                return false;
+            }
+            list.evicted = true;
+            synchronized (order) {
+                order.remove(list.id, list);
+            }
+            memoryUsed.addAndGet(-(SESSION_OVERHEAD + 4L * list.rows.length));
+            return true;
+        }
+    }
+
+    /**
+     * Gets the lock stripe for a session.
+     *
+     * @param sessionId the id of the session
+     * @return the lock guarding that session
+     */
+    private Object lockFor(String sessionId) {
+        int h = sessionId.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    /**
+     * The game list of a single session, stored as sorted catalog row ids.
+     */
+    private final class SessionList implements IGameList {
+        /** The session id. */
+        private final String id;
+        /** Sorted catalog row ids, only the first size entries are used. */
+        private int[] rows = EMPTY;
+        /** Number of games in the list. */
+        private int size;
+        /** Last time the session was used, from the store clock. */
+        private volatile long lastAccess;
+        /** Set once the session has been evicted. */
+        private boolean evicted;
+
+        /**
+         * Creates an empty session list.
+         *
+         * @param id the session id
+         */
+        SessionList(String id) {
+            this.id = id;
+        }
+
+        /**
+         * Marks the session as used now, moving it to the end of the access order. Caller must
+         * hold the stripe lock.
+         */
+        private void touch() {
+            lastAccess = clock.getAsLong();
+            synchronized (order) {
+                order.get(id);
+            }
+        }
+
+        @Override
+        public List<String> getGameNames() {
+            return sortedGames().stream().map(BoardGame::getName).toList();
+        }
+
+        @Override
+        public void clear() {
+            synchronized (lockFor(id)) {
+                checkLive();
+                touch();
+                memoryUsed.addAndGet(-4L * rows.length);
+                rows = EMPTY;
+                size = 0;
+            }
+        }
+
+        @Override
+        public int count() {
+            synchronized (lockFor(id)) {
+                return size;
+            }
+        }
+
+        @Override
+        public void saveGame(String filename) {
+            Path path = Path.of(filename);
+            try {
+                if (path.getParent() != null) {
+                    Files.createDirectories(path.getParent());
+                }
+                Files.write(path, getGameNames(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error saving file: " + filename, e);
+            }
+        }
+
+        @Override
+        public void addToList(String str, Stream<BoardGame> filtered)
+                throws IllegalArgumentException {
+            List<BoardGame> filteredList = filtered.toList();
+            if (filteredList.isEmpty()) {
+                throw new IllegalArgumentException("No games to add");
+            }
+            List<BoardGame> toAdd = select(str, filteredList);
+            if (toAdd.isEmpty()) {
+                throw new IllegalArgumentException("Game not found");
+            }
+            int[] found = new int[toAdd.size()];
+            for (int i = 0; i < found.length; i++) {
+                found[i] = catalog.rowOf(toAdd.get(i));
+                if (found[i] < 0) {
+                    throw new IllegalArgumentException("Game not in catalog: "
+                            + toAdd.get(i).getName());
+                }
+            }
+            synchronized (lockFor(id)) {
+                checkLive();
+                touch();
+                for (int row : found) {
+                    insert(row);
+                }
+            }
+            enforceBudget(this);
+        }
+
+        @Override
+        public void removeFromList(String str) throws IllegalArgumentException {
+            if (str.equalsIgnoreCase(ADD_ALL)) {
+                clear();
+                return;
+            }
+            List<BoardGame> toRemove = select(str, sortedGames());
+            synchronized (lockFor(id)) {
+                checkLive();
+                touch();
+                for (BoardGame game : toRemove) {
+                    delete(catalog.rowOf(game));
+                }
+            }
+        }
+
+        /**
+         * Picks games out of a list using the list command syntax (all, 1, 1-3 or a name).
+         *
+         * @param str the selection
+         * @param from the games to select from, in display order
+         * @return the selected games
+         * @throws IllegalArgumentException if an index or range is out of bounds
+         */
+        private List<BoardGame> select(String str, List<BoardGame> from) {
+            if (str.equalsIgnoreCase(ADD_ALL)) {
+                return from;
+            }
+            try {
+                if (str.matches("\\d+")) {
+                    int index = Integer.parseInt(str) - 1;
+                    if (index < 0 || index >= from.size()) {
+                        throw new IllegalArgumentException("Invalid index");
+                    }
+                    return List.of(from.get(index));
+                }
+                if (str.matches("\\d+-\\d+")) {
+                    String[] parts = str.split("-");
+                    int start = Integer.parseInt(parts[0]) - 1;
+                    int end = Integer.parseInt(parts[1]) - 1;
+                    if (start < 0 || end >= from.size() || start > end) {
+                        throw new IllegalArgumentException("Invalid range");
+                    }
+                    return from.subList(start, end + 1);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid number format");
+            }
+            String key = NameKey.of(str);
+            return from.stream().filter(g -> g.getNameKey().equals(key)).toList();
+        }
+
+        /**
+         * Gets the games in the list, sorted by name ignoring case.
+         *
+         * @return the games in display order
+         */
+        private List<BoardGame> sortedGames() {
+            int[] snapshot;
+            synchronized (lockFor(id)) {
+                touch();
+                snapshot = Arrays.copyOf(rows, size);
+            }
+            List<BoardGame> result = new ArrayList<>(snapshot.length);
+            for (int row : snapshot) {
+                result.add(catalog.get(row));
+            }
+            result.sort(Comparator.comparing(BoardGame::getNameKey));
+            return result;
+        }
+
+        /**
+         * Adds a row keeping the array sorted. Caller must hold the stripe lock.
+         *
+         * @param row the catalog row id
+         */
+        private void insert(int row) {
+            int pos = Arrays.binarySearch(rows, 0, size, row);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+            if (size == rows.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, rows.length + (rows.length >> 1));
+                memoryUsed.addAndGet(4L * (capacity - rows.length));
+                rows = Arrays.copyOf(rows, capacity);
+            }
+            System.arraycopy(rows, pos, rows, pos + 1, size - pos);
+            rows[pos] = row;
+            size++;
+        }
+
+        /**
+         * Removes a row if present. Caller must hold the stripe lock.
+         *
+         * @param row the catalog row id
+         */
+        private void delete(int row) {
+            int pos = Arrays.binarySearch(rows, 0, size, row);
+            if (pos < 0) {
+                return;
+            }
+            System.arraycopy(rows, pos + 1, rows, pos, size - pos - 1);
+            size--;
+        }
+
+        /**
+         * Makes sure the session has not been evicted. Caller must hold the stripe lock.
+         *
+         * @throws IllegalStateException if the session was evicted
+         */
+        private void checkLive() {
+            if (evicted) {
+                throw new IllegalStateException("Session expired: " + id);
+            }
+        }
+    }
+}
@@ -17,8 +17,7 @@ public class NameSortStrategy implements GameSortStrategy {
 
     @Override
     public Comparator<Game> getComparator() {
-        Comparator<Game> comparator = Comparator.comparing(Game::getName, 
-                String.CASE_INSENSITIVE_ORDER);
+        Comparator<Game> comparator = Comparator.comparing(Game::getNameKey);
         return ascending ? comparator : comparator.reversed();
     }
 } 
@@ -39,6 +39,16 @@ public class GameListTest {
         assertFalse(gameList.contains(testGame1));
     }
 
+    @Test
+    public void testRemoveOnlyExactName() {
+        gameList.addGame(testGame1);
+        gameList.addGame(testGame2);
+        gameList.removeFromList("catn");
+        assertEquals(2, gameList.size());
+        gameList.removeFromList("CATAN");
+        assertEquals(List.of("Chess"), gameList.getGameNames());
+    }
+
     @Test
     public void testGetGamesByName() {
         gameList.addGame(testGame1);
@@ -79,4 +89,29 @@ public class GameListTest {
         assertEquals("Catan", result.get(0));
         assertEquals("Chess", result.get(1));
     }
-} 
+
+    @Test
+    public void testGetGameInfoFoldsName() {
+        gameList.addGame(new Game("Café International", 2, 4, 60, 2.0, 6.0));
+        assertEquals("Café International (2-4 players, 60 minutes)", gameList.getGameInfo("CAFE INTERNATIONAL"));
+        assertNull(gameList.getGameInfo("cafe"));
+    }
+
+    @Test
+    public void testUndoRedo() {
+        assertFalse(gameList.undo());
+        gameList.addGame(testGame1);
+        gameList.addGame(testGame2);
+        gameList.clear();
+        assertTrue(gameList.undo());
+        assertEquals(List.of("Catan", "Chess"), gameList.getGameNames());
+        assertTrue(gameList.undo());
+        assertEquals(List.of("Catan"), gameList.getGameNames());
+        assertTrue(gameList.redo());
+        assertEquals(2, gameList.size());
+        gameList.removeGame(testGame1);
+        assertFalse(gameList.redo());
+        assertTrue(gameList.undo());
+        assertTrue(gameList.contains(testGame1));
+    }
+}
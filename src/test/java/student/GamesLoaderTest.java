@@ -0,0 +1,132 @@
+package student;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import student.catalog.GameCatalog;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GamesLoaderTest {
+
+    @Test
+    public void testSplitKeepsQuotedCommas() {
+        assertArrayEquals(new String[] {"Go", "1", "2,3,4", "4", ""},
+                GamesLoader.split("Go,1,\"2,3,4\",4,"));
+        assertArrayEquals(new String[] {"say \"hi\"", ""}, GamesLoader.split("\"say \"\"hi\"\"\","));
+        assertArrayEquals(new String[] {""}, GamesLoader.split(""));
+    }
+
+    @Test
+    public void testLoadsGzipFromFileSystem(@TempDir Path dir) throws IOException {
+        String csv = "objectname,objectid,minplayers,maxplayers,minplaytime,maxplaytime,avgweight,rank,average,"
+                + "yearpublished,bggbestplayers\n"
+                + "Go,1,2,2,30,30,8.0,100,7.5,2000,2\n"
+                + "\"Chess, Classic\",7,2,2,10,20,10.0,700,10.0,2006,\"2,3\"\n";
+        // named .csv on purpose: the magic bytes decide, not the extension
+        Path gz = dir.resolve("archive.csv");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gz))) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        Path plain = dir.resolve("plain.csv");
+        Files.writeString(plain, csv);
+
+        Set<BoardGame> fromGzip = GamesLoader.loadGamesFile(gz.toString());
+        assertEquals(2, fromGzip.size());
+        assertTrue(fromGzip.stream().anyMatch(g -> g.getName().equals("Chess, Classic")));
+        assertEquals(fromGzip, GamesLoader.loadGamesFile(plain.toString()));
+        assertEquals(1, new Planner(GamesLoader.loadCatalog(gz.toString())).count("bestat==3"));
+        assertTrue(GamesLoader.loadGamesFile(dir.resolve("missing.csv").toString()).isEmpty());
+    }
+
+    @Test
+    public void testMergeOnId(@TempDir Path dir) throws IOException {
+        String header = "objectname,objectid,minplayers,maxplayers,minplaytime,maxplaytime,avgweight,rank,average,"
+                + "yearpublished,own\n";
+        Path first = dir.resolve("first.csv");
+        Files.writeString(first, header
+                + "Go,1,2,2,30,30,8.0,100,7.5,2000,1\n"
+                + "Chess,7,2,2,10,20,10.0,700,9.0,2006,1\n");
+        Path second = dir.resolve("second.csv");
+        Files.writeString(second, header
+                + "Go (2nd edition),1,2,2,30,30,8.0,100,8.5,2001,0\n"
+                + "Chess,7,2,2,10,20,10.0,700,6.0,2006,0\n"
+                + "Tucano,5,10,20,60,90,6.0,500,8.0,2004,0\n");
+        List<String> files = List.of(first.toString(), second.toString());
+
+        GameCatalog latest = GamesLoader.loadCatalog(files, ConflictPolicy.LATEST);
+        assertEquals(3, latest.size());
+        assertEquals("Go (2nd edition)", latest.get(latest.rowOf(1)).getName());
+        assertEquals(0, new Planner(latest).count("own==1"));
+
+        GameCatalog firstWins = GamesLoader.loadCatalog(files, ConflictPolicy.FIRST_WINS);
+        assertEquals("Go", firstWins.get(firstWins.rowOf(1)).getName());
+        assertEquals(2, new Planner(firstWins).count("own==1"));
+
+        GameCatalog best = GamesLoader.loadCatalog(files, ConflictPolicy.MAX_RATING);
+        assertEquals(8.5, best.get(best.rowOf(1)).getRating());
+        assertEquals(9.0, best.get(best.rowOf(7)).getRating());
+        assertEquals(ConflictPolicy.MAX_RATING, ConflictPolicy.fromName("max-rating"));
+        assertThrows(IllegalArgumentException.class, () -> ConflictPolicy.fromName("newest"));
+    }
+
+    @Test
+    public void testMergeRepeatsWithinOneCollection(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("repeats.csv");
+        Files.writeString(file, "objectname,objectid,minplayers,maxplayers,minplaytime,maxplaytime,avgweight,"
+                + "rank,average,yearpublished,own\n"
+                + "Go,1,2,2,30,30,8.0,100,7.5,2000,1\n"
+                + "Go,1,2,2,30,30,8.0,100,8.5,2000,0\n"
+                + "Chess,7,2,2,10,20,10.0,700,9.0,2006,1\n"
+                + "Chess (deluxe),7,2,2,10,20,10.0,700,6.0,2006,0\n");
+        List<String> files = List.of(file.toString());
+
+        GameCatalog latest = GamesLoader.loadCatalog(files, ConflictPolicy.LATEST);
+        assertEquals(2, latest.size());
+        assertEquals(8.5, latest.get(latest.rowOf(1)).getRating());
+        assertEquals(0, new Planner(latest).count("own==1"));
+
+        GameCatalog best = GamesLoader.loadCatalog(files, ConflictPolicy.MAX_RATING);
+        assertEquals(8.5, best.get(best.rowOf(1)).getRating());
+        assertEquals("Chess", best.get(best.rowOf(7)).getName());
+
+        // the kept row keeps its own cells, not those of the last row with its id
+        GameCatalog firstWins = GamesLoader.loadCatalog(files, ConflictPolicy.FIRST_WINS);
+        assertEquals("Chess", firstWins.get(firstWins.rowOf(7)).getName());
+        assertEquals(2, new Planner(firstWins).count("own==1"));
+    }
+
+    @Test
+    public void testLoadDelta(@TempDir Path dir) throws IOException {
+        String header = "objectname,objectid,minplayers,maxplayers,minplaytime,maxplaytime,avgweight,rank,average,"
+                + "yearpublished,own";
+        Path collection = dir.resolve("collection.csv");
+        Files.writeString(collection, header + "\n"
+                + "Go,1,2,2,30,30,8.0,100,7.5,2000,1\n"
+                + "Chess,7,2,2,10,20,10.0,700,9.0,2006,1\n");
+        Path deltaFile = dir.resolve("delta.csv");
+        Files.writeString(deltaFile, header + ",op\n"
+                + "Go,1,2,2,30,30,8.0,90,7.9,2000,0,upsert\n"
+                + ",7,,,,,,,,,,delete\n"
+                + "Tucano,5,10,20,60,90,6.0,500,8.0,2004,1,\n"
+                + "Monopoly,8,6,10,20,1000,1.0,800,5.0,2007,1,rename\n");
+
+        GameCatalog catalog = GamesLoader.loadCatalog(collection.toString())
+                .apply(GamesLoader.loadDelta(deltaFile.toString()));
+        assertEquals(1, catalog.version());
+        assertEquals(List.of("Go", "Tucano"), catalog.stream().map(BoardGame::getName).toList());
+        assertEquals(7.9, catalog.get(catalog.rowOf(1)).getRating());
+        assertEquals(1, new Planner(catalog).count("own==1"));
+
+        Path noId = dir.resolve("noid.csv");
+        Files.writeString(noId, "id,op\n5,delete\n");
+        assertEquals(catalog.stream().toList(),
+                catalog.apply(GamesLoader.loadDelta(noId.toString())).stream().toList());
+    }
+}
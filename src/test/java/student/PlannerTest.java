@@ -6,11 +6,23 @@ import student.BoardGame;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
 import java.util.Set;
 import student.Planner;
 import student.IPlanner;
 import java.util.stream.Collectors;
+import student.aggregate.ColumnHistogram;
+import student.aggregate.ColumnSummary;
+import student.catalog.ColumnRegistry;
+import student.catalog.ColumnSpec;
+import student.catalog.GameCatalog;
+import student.filter.FilterExpression;
+import student.filter.FilterFactory;
+import student.rank.Dimension;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 
 /**
@@ -168,4 +180,273 @@ public class PlannerTest {
         expectedNames = Set.of("golang");
         assertEquals(expectedNames, actualNames);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testExplain() {
+        IPlanner planner = new Planner(games);
+
+        String report = planner.explain("minPlayers>5,name~=go", GameData.RATING, false);
+        assertTrue(report.contains("2 clause(s)"), report);
+        assertTrue(report.contains("minplayers>5"), report);
+        assertTrue(report.contains("name~=go"), report);
+        assertTrue(report.contains("RATING desc, 1 row(s)"), report);
+
+        assertTrue(planner.explain("nosuchcolumn>1").contains("invalid filter"));
+
+        // long clauses and access paths widen their columns, so the row counts still line up
+        List<String> table = planner.explain("players==3,rating>5|name~=game").lines()
+                .filter(line -> line.startsWith("step") || line.matches("\\d.*")).toList();
+        assertEquals(5, table.size(), table.toString());
+        assertEquals(1, table.stream().map(String::length).distinct().count(), table.toString());
+    }
+
+    @Test
+    public void testFilterOrNotAndGroups() {
+        IPlanner planner = new Planner(games);
+
+        List<String> either = planner.filter("minPlayers>5|name==Go").map(BoardGame::getName).toList();
+        assertEquals(List.of("Go", "GoRami", "Monopoly", "Tucano"), either);
+
+        List<String> without = planner.filter("!name~=go").map(BoardGame::getName).toList();
+        assertEquals(List.of("17 days", "Chess", "Monopoly", "Tucano"), without);
+
+        List<String> grouped = planner.filter("(minPlayers>5|name==Chess),!name~=o")
+                .map(BoardGame::getName).toList();
+        assertEquals(List.of("Chess"), grouped);
+
+        assertEquals(0, planner.filter("name==Go|").count());
+        assertEquals(0, planner.filter("(name==Go").count());
+
+        String report = planner.explain("minPlayers>5|!name~=go");
+        assertTrue(report.contains("range index"), report);
+        assertTrue(report.contains("bitmap or"), report);
+        assertTrue(report.contains("bitmap not"), report);
+    }
+
+    @Test
+    public void testFilterFusesRanges() {
+        IPlanner planner = new Planner(games);
+
+        List<String> ranged = planner.filter("minPlayers>=2,minPlayers<=5,rating>7,rating<9")
+                .map(BoardGame::getName).toList();
+        assertEquals(List.of("Go"), ranged);
+
+        String report = planner.explain("minPlayers>=2,minPlayers<=2,rating>7,rating<9");
+        assertTrue(report.contains("minplayers==2"), report);
+        assertTrue(report.contains("7<rating<9"), report);
+
+        assertEquals(0, planner.filter("minPlayers>4,name~=go,minPlayers<2").count());
+        assertTrue(planner.explain("minPlayers>4,minPlayers<2").contains("empty range"));
+    }
+
+    @Test
+    public void testFilterPlayersAndTime() {
+        IPlanner planner = new Planner(games);
+
+        List<String> five = planner.filter("players==5").map(BoardGame::getName).toList();
+        assertEquals(List.of("17 days", "Go", "Go Fish", "golang"), five);
+
+        List<String> both = planner.filter("players==5,time==45").map(BoardGame::getName).toList();
+        assertEquals(List.of("Go Fish"), both);
+
+        List<String> large = planner.filter("players>=10").map(BoardGame::getName).toList();
+        assertEquals(List.of("Go Fish", "Monopoly", "Tucano"), large);
+
+        assertTrue(planner.explain("players==5").contains("interval index"));
+
+        List<String> notFive = planner.filter("players!=5").map(BoardGame::getName).toList();
+        assertEquals(List.of("Chess", "GoRami", "Monopoly", "Tucano"), notFive);
+        assertEquals(planner.count("!players==5"), planner.count("players!=5"));
+        assertTrue(planner.explain("players!=5").matches("(?s).*players!=5 +interval index +4 +4 .*"));
+    }
+
+    @Test
+    public void testAggregations() {
+        IPlanner planner = new Planner(games);
+
+        assertEquals(7, planner.count("minPlayers>=2"));
+        assertEquals(0, planner.count("nosuchcolumn>1"));
+
+        ColumnSummary rating = planner.stats("", GameData.RATING);
+        assertEquals(8, rating.count());
+        assertEquals(5.0, rating.min());
+        assertEquals(10.0, rating.max());
+        assertEquals(8.0, rating.mean(), 0.0001);
+        assertEquals(8.0, rating.median());
+
+        ColumnHistogram histogram = planner.histogram("", GameData.MIN_PLAYERS, 3);
+        assertEquals(5, histogram.count(0));
+        assertEquals(2, histogram.count(1));
+        assertEquals(1, histogram.count(2));
+
+        assertEquals(Map.of(2000.0, 5, 2005.0, 3), planner.groupBy("", GameData.YEAR, 5));
+        SortedMap<Double, Integer> players = planner.groupBy("name~=go", GameData.PLAYERS, 1);
+        assertEquals(3, players.get(2.0));
+        assertEquals(3, players.get(6.0));
+        assertEquals(1, players.get(10.0));
+    }
+
+    @Test
+    public void testTopWeighted() {
+        IPlanner planner = new Planner(games);
+
+        List<String> best = planner.top("", Map.of(GameData.RATING, 1.0), 3).stream()
+                .map(scored -> scored.getGame().getName()).toList();
+        assertEquals(List.of("Chess", "golang", "17 days"), best);
+
+        List<String> easy = planner.top("minPlayers>=2", Map.of(GameData.RATING, 0.5,
+                GameData.DIFFICULTY, -0.5), 2).stream().map(scored -> scored.getGame().getName()).toList();
+        assertEquals(List.of("GoRami", "golang"), easy);
+    }
+
+    @Test
+    public void testSkyline() {
+        IPlanner planner = new Planner(games);
+
+        List<String> skyline = planner.skyline("", Dimension.high(GameData.RATING),
+                Dimension.low(GameData.DIFFICULTY)).stream().map(BoardGame::getName).toList();
+        assertEquals(List.of("Chess", "Go Fish", "golang", "GoRami", "Monopoly"), skyline);
+
+        List<String> filtered = planner.skyline("maxPlayers<=8", Dimension.high(GameData.RATING),
+                Dimension.low(GameData.DIFFICULTY)).stream().map(BoardGame::getName).toList();
+        assertEquals(List.of("Chess", "golang", "GoRami"), filtered);
+    }
+
+    @Test
+    public void testSimilarTo() {
+        IPlanner planner = new Planner(games);
+
+        List<BoardGame> similar = planner.similarTo(1, 3, "name~=go");
+        assertEquals(3, similar.size());
+        assertTrue(similar.stream().allMatch(game -> game.getName().toLowerCase().contains("go")));
+        assertTrue(similar.stream().noneMatch(game -> game.getId() == 1));
+
+        assertEquals(7, planner.similarTo(1, 10, "").size());
+        assertEquals(0, planner.similarTo(12345, 3, "").size());
+    }
+
+    @Test
+    public void testFilterFuzzyName() {
+        IPlanner planner = new Planner(games);
+
+        List<BoardGame> chess = planner.filter("name%=chss").toList();
+        assertEquals(1, chess.size());
+        assertEquals("Chess", chess.get(0).getName());
+        assertEquals(List.of("Go"), planner.filter("name%=GO, minplayers>1")
+                .map(BoardGame::getName).toList());
+        assertEquals(0, planner.filter("name%=xyzzy").count());
+        assertEquals(List.of("golang"), planner.closestNames("golng", 1).stream()
+                .map(BoardGame::getName).toList());
+        assertEquals(List.of("Go", "golang"), planner.closestNames("gong", 2).stream()
+                .map(BoardGame::getName).toList());
+    }
+
+    @Test
+    public void testComplete() {
+        IPlanner planner = new Planner(games);
+
+        assertEquals(List.of("Go", "Go Fish", "GoRami", "golang"), planner.complete("go", GameData.RANK, 10)
+                .stream().map(BoardGame::getName).toList());
+        assertEquals(List.of("golang", "GoRami"), planner.complete("GO", GameData.RATING, 2)
+                .stream().map(BoardGame::getName).toList());
+        assertEquals(0, planner.complete("x", GameData.RANK, 3).size());
+        assertThrows(IllegalArgumentException.class, () -> planner.complete("go", GameData.YEAR, 3));
+
+        assertEquals(List.of("Go", "Go Fish", "golang", "GoRami"),
+                planner.filter("name>=go, name<gp").map(BoardGame::getName).toList());
+        assertTrue(planner.explain("name>=go, name<gp").contains("name index"));
+    }
+
+    @Test
+    public void testNameIgnoresAccents() {
+        Set<BoardGame> accented = new HashSet<>(games);
+        accented.add(new BoardGame("Café International", 9, 2, 4, 30, 60, 2.0, 900, 6.0, 1989));
+        IPlanner planner = new Planner(accented);
+
+        assertEquals(1, planner.filter("name==cafe international").count());
+        assertEquals(1, planner.filter("name~=CAFE").count());
+        assertEquals(List.of("17 days", "Café International", "Chess"), planner.filter("name<d")
+                .map(BoardGame::getName).toList());
+        assertEquals(List.of("Café International"), planner.complete("cafe", GameData.RANK, 3)
+                .stream().map(BoardGame::getName).toList());
+    }
+
+    @Test
+    public void testExtraColumns() {
+        ColumnRegistry registry = new ColumnRegistry()
+                .declare("own", ColumnSpec.Type.NUMBER)
+                .declare("bggrecagerange", ColumnSpec.Type.NUMBER)
+                .declare("bgglanguagedependence", ColumnSpec.Type.TEXT);
+        Map<Integer, String[]> cells = Map.of(
+                1, new String[] {"1", "10+", "No necessary in-game text"},
+                2, new String[] {"1", "6+", "No necessary in-game text"},
+                3, new String[] {"0", "12+", "No necessary in-game text"},
+                4, new String[] {"1", "12+", "Moderate in-game text"},
+                7, new String[] {"1", "14+", "No necessary in-game text"});
+        GameCatalog catalog = new GameCatalog(games, registry, cells);
+        IPlanner planner = new Planner(catalog);
+
+        FilterExpression owned = FilterFactory.createExpression("own==1,!name~=fish");
+        assertEquals(List.of("Go", "golang", "Chess"), catalog.stream()
+                .filter(game -> owned.apply(catalog, catalog.rowOf(game))).map(BoardGame::getName).toList());
+        assertFalse(owned.apply(catalog.get(0)));
+        assertTrue(FilterFactory.createExpression("own!=1").apply(catalog.get(0)));
+        assertEquals(List.of("Chess", "Go"), planner.filter(
+                "own==1, bgglanguagedependence==nonecessaryin-gametext, bggrecagerange>=10")
+                .map(BoardGame::getName).toList());
+        assertEquals(List.of("Chess", "golang", "GoRami", "Go", "Go Fish", "17 days", "Monopoly", "Tucano"),
+                planner.filter("", "bggrecagerange", false).map(BoardGame::getName).toList());
+        assertEquals(0, planner.count("nosuchcolumn==1"));
+        assertEquals(0, planner.count("own==yes"));
+        assertThrows(IllegalArgumentException.class, () -> planner.filter("", "nosuchcolumn", true));
+        assertTrue(planner.explain("own==1", "bggrecagerange", false).contains("bggrecagerange desc"));
+        assertTrue(planner.explain("own==1", "rating", true).contains("RATING asc"));
+        assertThrows(IllegalArgumentException.class, () -> planner.explain("", "nosuchcolumn", true));
+        assertEquals(List.of("GoRami", "Tucano", "Monopoly"), planner.filter("minplayers>5", "YEAR", true)
+                .map(BoardGame::getName).toList());
+    }
+
+    @Test
+    public void testDictionaryColumn() {
+        ColumnRegistry registry = new ColumnRegistry().declare("itemtype", ColumnSpec.Type.DICTIONARY);
+        Map<Integer, String[]> cells = Map.of(
+                1, new String[] {"standalone"},
+                2, new String[] {"Expansion"},
+                3, new String[] {"standalone"},
+                4, new String[] {"promo"},
+                7, new String[] {"standalone"});
+        IPlanner planner = new Planner(new GameCatalog(games, registry, cells));
+
+        assertEquals(List.of("Chess", "Go", "GoRami"), planner.filter("itemtype==STANDALONE")
+                .map(BoardGame::getName).toList());
+        assertEquals(List.of("Go", "Go Fish", "golang"), planner.filter("itemtype==expansion;promo|name==go")
+                .map(BoardGame::getName).toList());
+        assertEquals(5, planner.count("itemtype!=standalone"));
+        assertEquals(List.of("Go Fish", "golang", "17 days"), planner.filter("itemtype!=standalone",
+                "itemtype", true).limit(3).map(BoardGame::getName).toList());
+    }
+
+    @Test
+    public void testPlayerCountColumns() {
+        ColumnRegistry registry = ColumnRegistry.bgg();
+        int columns = registry.specs().size();
+        Map<Integer, String[]> cells = new java.util.HashMap<>();
+        String[][] counts = {{"4", "3,4,5"}, {"2", "2"}, {"", ""}, {"3-4", "2-6"}, {"5+", "4,5"}};
+        int[] ids = {1, 2, 3, 4, 5};
+        for (int g = 0; g < ids.length; g++) {
+            String[] row = new String[columns];
+            row[columns - 2] = counts[g][0];
+            row[columns - 1] = counts[g][1];
+            cells.put(ids[g], row);
+        }
+        IPlanner planner = new Planner(new GameCatalog(games, registry, cells));
+
+        assertEquals(List.of("Go", "golang"), planner.filter("bestat==4").map(BoardGame::getName).toList());
+        assertEquals(List.of("Go", "golang", "Tucano"), planner.filter("recommendedat==5")
+                .map(BoardGame::getName).toList());
+        assertEquals(List.of("golang"), planner.filter("bestat==4,bggrecplayers>=6").map(BoardGame::getName).toList());
+        assertEquals(List.of("Go Fish", "golang", "Go", "Tucano"), planner.filter("", "bestat", true).limit(4)
+                .map(BoardGame::getName).toList());
+        assertEquals(0, planner.count("bestat==0"));
+    }
+}
@@ -0,0 +1,80 @@
+package student.catalog;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BkTreeTest {
+
+    /** Full Levenshtein distance, the answer the bounded one must match. */
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                } else {
+                    d[i][j] = Math.min(d[i - 1][j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1),
+                            Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String randomWord(Random random) {
+        char[] word = new char[1 + random.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(4));
+        }
+        return new String(word);
+    }
+
+    @Test
+    public void testBoundedDistance() {
+        assertEquals(3, EditDistance.bounded("kitten", "sitting", 5));
+        assertEquals(3, EditDistance.bounded("kitten", "sitting", 2));
+        assertEquals(0, EditDistance.bounded("", "", 0));
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            String a = randomWord(random);
+            String b = randomWord(random);
+            int limit = random.nextInt(4);
+            assertEquals(Math.min(distance(a, b), limit + 1), EditDistance.bounded(a, b, limit), a + " " + b);
+        }
+    }
+
+    @Test
+    public void testSearchMatchesBruteForce() {
+        Random random = new Random(7);
+        String[] names = new String[400];
+        BkTree tree = new BkTree();
+        for (int row = 0; row < names.length; row++) {
+            names[row] = randomWord(random);
+            tree.add(names[row].toUpperCase(), row);
+        }
+        for (int q = 0; q < 50; q++) {
+            String query = randomWord(random);
+            int limit = 1 + q % 3;
+            int[] expected = IntStream.range(0, names.length)
+                    .filter(row -> distance(names[row], query) <= limit).toArray();
+            List<int[]> found = tree.search(query, limit);
+            found.sort(Comparator.comparingInt(match -> match[0]));
+            assertArrayEquals(expected, found.stream().mapToInt(match -> match[0]).toArray(), query);
+            for (int[] match : found) {
+                assertEquals(distance(names[match[0]], query), match[1]);
+            }
+        }
+    }
+
+    @Test
+    public void testLimitFor() {
+        assertEquals(1, EditDistance.limitFor("go"));
+        assertEquals(2, EditDistance.limitFor("monopoly"));
+        assertEquals(3, EditDistance.limitFor("a very long game name"));
+        assertTrue(new BkTree().search("anything", 3).isEmpty());
+    }
+}
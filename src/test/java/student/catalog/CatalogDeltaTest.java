@@ -0,0 +1,144 @@
+package student.catalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import student.BoardGame;
+import student.GameData;
+import student.Operations;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogDeltaTest {
+
+    private static final Random RANDOM = new Random(46);
+
+    private static final String[] TYPES = {"standalone", "expansion", ""};
+
+    private static ColumnRegistry registry() {
+        return new ColumnRegistry()
+                .declare("own", ColumnSpec.Type.NUMBER)
+                .declare("numplays", ColumnSpec.Type.NUMBER)
+                .declare("language", ColumnSpec.Type.TEXT)
+                .declare("itemtype", ColumnSpec.Type.DICTIONARY)
+                .declare("bestat", "bggbestplayers", ColumnSpec.Type.PLAYER_COUNTS);
+    }
+
+    private static BoardGame randomGame(int id) {
+        String name = "g" + (char) ('a' + RANDOM.nextInt(6)) + RANDOM.nextInt(40);
+        int minPlayers = 1 + RANDOM.nextInt(4);
+        int minTime = 10 * (1 + RANDOM.nextInt(6));
+        return new BoardGame(name, id, minPlayers, minPlayers + RANDOM.nextInt(4), minTime,
+                minTime + 10 * RANDOM.nextInt(4), RANDOM.nextInt(50) / 10.0, 1 + RANDOM.nextInt(300),
+                RANDOM.nextInt(100) / 10.0, 1990 + RANDOM.nextInt(30));
+    }
+
+    private static String[] randomCells() {
+        return new String[] {String.valueOf(RANDOM.nextInt(2)), RANDOM.nextInt(5) + "+",
+            RANDOM.nextBoolean() ? "English" : "Deutsch", TYPES[RANDOM.nextInt(TYPES.length)],
+            (1 + RANDOM.nextInt(3)) + "-" + (3 + RANDOM.nextInt(3))};
+    }
+
+    @Test
+    public void testApplyMatchesRebuild() {
+        Map<Integer, BoardGame> games = new HashMap<>();
+        Map<Integer, String[]> cells = new HashMap<>();
+        for (int id = 1; id <= 400; id++) {
+            games.put(id, randomGame(id));
+            cells.put(id, randomCells());
+        }
+        GameCatalog base = new GameCatalog(new ArrayList<>(games.values()), registry(), cells);
+        // one column decoded, the rest still packed, before the delta
+        base.extraColumn("own").matcher(Operations.EQUALS, "1");
+        base.extraColumn("language").matcher(Operations.EQUALS, "english");
+
+        CatalogDelta delta = new CatalogDelta();
+        for (int i = 0; i < 30; i++) {
+            int id = 1 + RANDOM.nextInt(450);
+            if (RANDOM.nextInt(3) == 0) {
+                delta.delete(id);
+                games.remove(id);
+                cells.remove(id);
+            } else {
+                BoardGame game = randomGame(id);
+                String[] row = randomCells();
+                if (i == 0) {
+                    row[3] = "promo"; // a value the dictionary has not seen
+                }
+                delta.upsert(game, row);
+                games.put(id, game);
+                cells.put(id, row);
+            }
+        }
+        GameCatalog applied = base.apply(delta);
+        GameCatalog rebuilt = new GameCatalog(new ArrayList<>(games.values()), registry(), cells);
+
+        assertEquals(0, base.version());
+        assertEquals(400, base.size());
+        assertEquals(1, applied.version());
+        assertEquals(rebuilt.size(), applied.size());
+        for (int row = 0; row < rebuilt.size(); row++) {
+            assertSame(rebuilt.get(row), applied.get(row));
+        }
+        for (GameData col : GameData.values()) {
+            if (col.isInterval()) {
+                for (int v = 0; v < 100; v += 5) {
+                    assertEquals(rebuilt.intervalIndex(col).stab(v), applied.intervalIndex(col).stab(v));
+                }
+                continue;
+            }
+            assertEquals(rebuilt.stats(col).toString(), applied.stats(col).toString(), col.name());
+            if (col == GameData.NAME) {
+                continue;
+            }
+            for (int i = 0; i < rebuilt.size(); i++) {
+                assertEquals(rebuilt.index(col).rowAt(i), applied.index(col).rowAt(i), col.name());
+            }
+            for (double v : new double[] {2, 5.5, 30, 150, 2005}) {
+                assertEquals(rebuilt.stats(col).selectivity(Operations.LESS_THAN, v),
+                        applied.stats(col).selectivity(Operations.LESS_THAN, v));
+            }
+        }
+        for (String prefix : new String[] {"g", "ga", "gc1", "gf3"}) {
+            assertArrayEquals(rebuilt.nameIndex().complete(prefix, GameData.RANK, 10),
+                    applied.nameIndex().complete(prefix, GameData.RANK, 10));
+            assertEquals(rebuilt.nameIndex().matching(Operations.GREATER_THAN, prefix),
+                    applied.nameIndex().matching(Operations.GREATER_THAN, prefix));
+        }
+        for (String[] clause : new String[][] {{"own", "1"}, {"numplays", "3"}, {"language", "english"},
+            {"itemtype", "promo"}, {"itemtype", "standalone;expansion"}, {"bestat", "4"}}) {
+            for (Operations op : new Operations[] {Operations.EQUALS, Operations.NOT_EQUALS}) {
+                ExtraColumn want = rebuilt.extraColumn(clause[0]);
+                ExtraColumn got = applied.extraColumn(clause[0]);
+                for (int row = 0; row < rebuilt.size(); row++) {
+                    assertEquals(want.matcher(op, clause[1]).test(row), got.matcher(op, clause[1]).test(row),
+                            clause[0] + op + clause[1] + " row " + row);
+                }
+                if (want.bitmapIndex() != null) {
+                    assertEquals(want.matching(op, clause[1]), got.matching(op, clause[1]));
+                }
+            }
+        }
+        BitSet all = new BitSet();
+        all.set(0, rebuilt.size());
+        assertArrayEquals(rebuilt.similar(0, 5, all), applied.similar(0, 5, all));
+        assertArrayEquals(rebuilt.closestNames("ga1", 1), applied.closestNames("ga1", 1));
+        assertEquals(List.copyOf(games.keySet()).stream().sorted().toList(),
+                applied.stream().map(BoardGame::getId).toList());
+    }
+
+    @Test
+    public void testLastChangeToAnIdWins() {
+        GameCatalog base = new GameCatalog(List.of(new BoardGame("Go", 1, 2, 2, 30, 30, 8.0, 100, 7.5, 2000)));
+        BoardGame chess = new BoardGame("Chess", 7, 2, 2, 10, 20, 10.0, 700, 10.0, 2006);
+        CatalogDelta delta = new CatalogDelta().upsert(chess, null).delete(1).delete(7).upsert(chess, null);
+        assertEquals(2, delta.size());
+        GameCatalog next = base.apply(delta);
+        assertEquals(List.of(chess), next.stream().toList());
+        assertEquals(0, next.apply(new CatalogDelta().delete(7)).size());
+        assertEquals(2, next.apply(new CatalogDelta()).version());
+    }
+}
@@ -0,0 +1,120 @@
+package student.catalog;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import student.BoardGame;
+import student.GameData;
+import student.Operations;
+import student.Planner;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CatalogFileTest {
+
+    private static final Random RANDOM = new Random(47);
+
+    private static List<BoardGame> randomGames(int count) {
+        List<BoardGame> games = new ArrayList<>();
+        for (int id = 1; id <= count; id++) {
+            String name = (RANDOM.nextInt(10) == 0 ? "Café " : "g") + (char) ('a' + RANDOM.nextInt(6))
+                    + RANDOM.nextInt(40);
+            int minPlayers = 1 + RANDOM.nextInt(4);
+            int minTime = 10 * (1 + RANDOM.nextInt(6));
+            games.add(new BoardGame(name, id, minPlayers, minPlayers + RANDOM.nextInt(4), minTime,
+                    minTime + 10 * RANDOM.nextInt(4), RANDOM.nextInt(50) / 10.0, 1 + RANDOM.nextInt(300),
+                    RANDOM.nextInt(100) / 10.0, 1990 + RANDOM.nextInt(30)));
+        }
+        return games;
+    }
+
+    @Test
+    public void testOpenedCatalogMatchesHeap(@TempDir Path dir) throws IOException {
+        GameCatalog heap = new GameCatalog(randomGames(300));
+        Path file = dir.resolve("games.idx");
+        CatalogFile.write(heap, file);
+        GameCatalog mapped = CatalogFile.open(file);
+
+        assertEquals(heap.size(), mapped.size());
+        for (int row = 0; row < heap.size(); row++) {
+            assertEquals(heap.get(row), mapped.get(row));
+            assertEquals(heap.get(row).getMaxPlayTime(), mapped.get(row).getMaxPlayTime());
+            assertEquals(row, mapped.rowOf(heap.get(row)));
+        }
+        for (GameData col : GameData.values()) {
+            if (col.isInterval()) {
+                assertEquals(heap.intervalIndex(col).stab(30), mapped.intervalIndex(col).stab(30));
+                continue;
+            }
+            assertEquals(heap.stats(col).toString(), mapped.stats(col).toString(), col.name());
+            if (col != GameData.NAME) {
+                assertEquals(heap.index(col).matching(Operations.GREATER_THAN_EQUALS, 5),
+                        mapped.index(col).matching(Operations.GREATER_THAN_EQUALS, 5));
+            }
+        }
+        for (String prefix : new String[] {"g", "cafe", "gb1"}) {
+            assertArrayEquals(heap.nameIndex().complete(prefix, GameData.RATING, 10),
+                    mapped.nameIndex().complete(prefix, GameData.RATING, 10));
+            assertEquals(heap.nameIndex().matching(Operations.GREATER_THAN, prefix),
+                    mapped.nameIndex().matching(Operations.GREATER_THAN, prefix));
+        }
+        BitSet all = new BitSet();
+        all.set(0, heap.size());
+        assertArrayEquals(heap.similar(3, 5, all), mapped.similar(3, 5, all));
+        assertArrayEquals(heap.closestNames("gc1", 1), mapped.closestNames("gc1", 1));
+
+        for (String filter : new String[] {"name~=cafe", "players==4,time<40", "rating>8,year>=2010"}) {
+            assertEquals(names(new Planner(heap), filter), names(new Planner(mapped), filter), filter);
+        }
+        CatalogDelta delta = new CatalogDelta().delete(1).upsert(new BoardGame("Zz", 500, 2, 4, 30, 60,
+                2.0, 10, 7.0, 2020), null);
+        assertEquals(heap.apply(delta).stream().toList(), mapped.apply(delta).stream().toList());
+    }
+
+    @Test
+    public void testOffHeapMatchesHeap() {
+        GameCatalog heap = new GameCatalog(randomGames(200));
+        GameCatalog offHeap = CatalogFile.offHeap(heap);
+        Planner onHeap = new Planner(heap);
+        Planner direct = new Planner(offHeap);
+
+        assertEquals(heap.stream().toList(), offHeap.stream().toList());
+        for (String filter : new String[] {"", "name~=cafe", "players==3,difficulty<2", "name>=gd"}) {
+            assertEquals(names(onHeap, filter), names(direct, filter), filter);
+            assertEquals(onHeap.filter(filter, GameData.RATING, false).toList(),
+                    direct.filter(filter, GameData.RATING, false).toList(), filter);
+            assertEquals(onHeap.filter(filter, GameData.NAME, true).toList(),
+                    direct.filter(filter, GameData.NAME, true).toList(), filter);
+        }
+        assertArrayEquals(heap.nameIndex().complete("cafe", GameData.RANK, 5),
+                offHeap.nameIndex().complete("cafe", GameData.RANK, 5));
+        assertEquals(0, CatalogFile.offHeap(new GameCatalog(List.of())).size());
+    }
+
+    @Test
+    public void testRejectsOtherFiles(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("games.csv");
+        Files.writeString(file, "objectname,objectid\n".repeat(100));
+        assertThrows(IOException.class, () -> CatalogFile.open(file));
+
+        Path empty = dir.resolve("empty.idx");
+        CatalogFile.write(new GameCatalog(List.of()), empty);
+        assertEquals(0, CatalogFile.open(empty).size());
+        assertFalse(Files.exists(dir.resolve("empty.idx.tmp")));
+
+        Path taken = dir.resolve("taken.idx");
+        Files.createDirectories(taken.resolve("keep"));
+        assertThrows(IOException.class, () -> CatalogFile.write(new GameCatalog(List.of()), taken));
+        assertFalse(Files.exists(dir.resolve("taken.idx.tmp")));
+    }
+
+    private static List<String> names(Planner planner, String filter) {
+        return planner.filter(filter).map(BoardGame::getName).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,96 @@
+package student.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import student.BoardGame;
+import student.GameData;
+import student.Planner;
+
+/**
+ * JMH benchmark of a catalog held on the heap against the same catalog copied off it (see
+ * {@link CatalogFile#offHeap(GameCatalog)}): query throughput through the planner, and the time
+ * of a full collection, which grows with the live heap.
+ *
+ * Run after mvn test-compile with:
+ * java -cp target/test-classes:target/classes:(mvn dependency:build-classpath) org.openjdk.jmh.Main CatalogStorageBenchmark -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g", "-XX:MaxDirectMemorySize=4g"})
+public class CatalogStorageBenchmark {
+    /** Number of synthetic games. */
+    @Param({"1000000"})
+    public int games;
+
+    /** Where the catalog is held: heap or offheap. */
+    @Param({"heap", "offheap"})
+    public String storage;
+
+    /** The planner over the catalog. */
+    private Planner planner;
+
+    /** Builds the catalog, dropping the heap copy when it is moved off the heap. */
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        List<BoardGame> list = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            int minPlayers = 1 + random.nextInt(4);
+            int minTime = 10 * (1 + random.nextInt(12));
+            list.add(new BoardGame("game " + Integer.toString(i, 36), i, minPlayers,
+                    minPlayers + random.nextInt(5), minTime, minTime + 10 * random.nextInt(6),
+                    1 + random.nextDouble() * 4, i + 1, 1 + random.nextDouble() * 9,
+                    1980 + random.nextInt(45)));
+        }
+        GameCatalog catalog = new GameCatalog(list);
+        list = null;
+        planner = new Planner("offheap".equals(storage) ? CatalogFile.offHeap(catalog) : catalog);
+        planner.count("players==4,time<=60,rating>8");
+        planner.filter("year>=2020", GameData.RATING, false).limit(20).count();
+        System.gc();
+    }
+
+    /**
+     * A filter over range columns and an index probe.
+     *
+     * @return the number of matches
+     */
+    @Benchmark
+    public int filter() {
+        return planner.count("players==4,time<=60,rating>8");
+    }
+
+    /**
+     * The top 20 of a filter by rating, which builds the games returned.
+     *
+     * @return the games
+     */
+    @Benchmark
+    public List<BoardGame> topRated() {
+        return planner.filter("year>=2020", GameData.RATING, false).limit(20).toList();
+    }
+
+    /**
+     * A full collection with the catalog live.
+     */
+    @Benchmark
+    public void fullGc() {
+        System.gc();
+    }
+}
@@ -0,0 +1,36 @@
+package student.catalog;
+
+import org.junit.jupiter.api.Test;
+import student.Operations;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnStatsTest {
+
+    @Test
+    public void testNumericStats() {
+        double[] values = new double[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i % 50;
+        }
+        ColumnStats stats = ColumnStats.ofNumbers(values);
+
+        assertEquals(100, stats.rows());
+        assertEquals(50, stats.distinct());
+        assertEquals(0, stats.min());
+        assertEquals(49, stats.max());
+
+        assertEquals(0.02, stats.selectivity(Operations.EQUALS, 10), 0.0001);
+        assertEquals(0, stats.selectivity(Operations.EQUALS, 500));
+        assertEquals(0.5, stats.selectivity(Operations.LESS_THAN, 25), 0.05);
+        assertEquals(0.2, stats.selectivity(Operations.GREATER_THAN_EQUALS, 40), 0.05);
+        assertEquals(1, stats.selectivity(Operations.LESS_THAN_EQUALS, 1000));
+    }
+
+    @Test
+    public void testTextStats() {
+        ColumnStats stats = ColumnStats.ofText(new String[] {"Go", "go", "Chess", "Catan"});
+        assertEquals(3, stats.distinct());
+        assertEquals(1.0 / 3, stats.selectivity(Operations.EQUALS), 0.0001);
+        assertTrue(Double.isNaN(stats.min()));
+    }
+}
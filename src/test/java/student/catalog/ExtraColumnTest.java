@@ -0,0 +1,109 @@
+package student.catalog;
+
+import java.util.function.IntPredicate;
+import org.junit.jupiter.api.Test;
+import student.Operations;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExtraColumnTest {
+
+    @Test
+    public void testNumbersDecodeLazily() {
+        ExtraColumn ages = new ExtraColumn(new ColumnSpec("bggrecagerange", ColumnSpec.Type.NUMBER),
+                new String[] {"8+", "12+", "", null, "10+"});
+        assertFalse(ages.isDecoded());
+        IntPredicate tenPlus = ages.matcher(Operations.GREATER_THAN_EQUALS, "10");
+        assertTrue(ages.isDecoded());
+        assertFalse(tenPlus.test(0));
+        assertTrue(tenPlus.test(1));
+        assertFalse(tenPlus.test(2));
+        assertFalse(tenPlus.test(3));
+        assertTrue(tenPlus.test(4));
+        assertTrue(Double.isNaN(ages.number(2)));
+        assertTrue(ages.matcher(Operations.NOT_EQUALS, "8").test(3));
+        assertThrows(IllegalArgumentException.class, () -> ages.matcher(Operations.EQUALS, "ten"));
+        assertThrows(IllegalArgumentException.class, () -> ages.matcher(Operations.CONTAINS, "1"));
+    }
+
+    @Test
+    public void testTextIgnoresCaseAccentsAndSpaces() {
+        ExtraColumn language = new ExtraColumn(new ColumnSpec("bgglanguagedependence", ColumnSpec.Type.TEXT),
+                new String[] {"No necessary in-game text", "Extensive use of text", "", "NO NECESSARY IN-GAME TEXT"});
+        assertTrue(language.matcher(Operations.EQUALS, "nonecessaryin-gametext").test(0));
+        assertTrue(language.matcher(Operations.EQUALS, "nonecessaryin-gametext").test(3));
+        assertSame(language.text(0), language.text(3));
+        assertTrue(language.matcher(Operations.CONTAINS, "use of").test(1));
+        assertFalse(language.matcher(Operations.CONTAINS, "text").test(2));
+        assertTrue(language.compare(0, 2, true) < 0);
+        assertTrue(language.compare(0, 2, false) < 0);
+        assertTrue(language.compare(1, 0, true) < 0);
+    }
+
+    @Test
+    public void testDictionaryComparesCodes() {
+        ExtraColumn type = new ExtraColumn(new ColumnSpec("itemtype", ColumnSpec.Type.DICTIONARY),
+                new String[] {"standalone", "Expansion", null, "standalone", "Promo", "STANDALONE"});
+        assertTrue(type.isDecoded());
+        assertEquals(4, type.distinct());
+        assertSame(type.text(0), type.text(5));
+        assertEquals(java.util.BitSet.valueOf(new long[] {0b101001}), type.matching(Operations.EQUALS, "Standalone"));
+        assertEquals(java.util.BitSet.valueOf(new long[] {0b101011}), type.matching(Operations.EQUALS, "standalone;expansion"));
+        assertEquals(3, type.count(Operations.NOT_EQUALS, "standalone"));
+        assertEquals(0, type.count(Operations.EQUALS, ""));
+        assertEquals(3, type.count(Operations.CONTAINS, "and"));
+        IntPredicate in = type.matcher(Operations.EQUALS, "promo;expansion;nosuchtype");
+        for (int row = 0; row < 6; row++) {
+            assertEquals(type.matching(Operations.EQUALS, "promo;expansion;nosuchtype").get(row), in.test(row));
+        }
+        assertTrue(type.matcher(Operations.NOT_EQUALS, "promo").test(2));
+        assertTrue(type.compare(1, 4, true) < 0);
+        assertTrue(type.compare(4, 1, false) < 0);
+        assertTrue(type.compare(0, 2, false) < 0);
+        assertNull(new ExtraColumn(new ColumnSpec("own", ColumnSpec.Type.NUMBER), new String[] {"1"})
+                .matching(Operations.EQUALS, "1"));
+    }
+
+    @Test
+    public void testPlayerCounts() {
+        assertEquals(0b1110, PlayerCounts.parse("2,3,4"));
+        assertEquals(0b11100, PlayerCounts.parse("3–5"));
+        assertEquals(0b100010, PlayerCounts.parse("2, 6+"));
+        assertEquals(0, PlayerCounts.parse("none"));
+        assertEquals(1L << 63, PlayerCounts.parse("64,65"));
+        ExtraColumn best = new ExtraColumn(new ColumnSpec("bestat", "bggbestplayers", ColumnSpec.Type.PLAYER_COUNTS),
+                new String[] {"4", "2,3", null, "3-5", "6+"});
+        assertTrue(best.spec().matches("bggbestplayers"));
+        assertEquals("player count bitmap", best.bitmapIndex());
+        assertEquals(java.util.BitSet.valueOf(new long[] {0b01001}), best.matching(Operations.EQUALS, "4"));
+        assertEquals(java.util.BitSet.valueOf(new long[] {0b10110}), best.matching(Operations.NOT_EQUALS, "4"));
+        assertEquals(java.util.BitSet.valueOf(new long[] {0b11000}), best.matching(Operations.GREATER_THAN, "4"));
+        assertEquals(java.util.BitSet.valueOf(new long[] {0b01010}), best.matching(Operations.LESS_THAN_EQUALS, "3"));
+        for (Operations op : new Operations[] {Operations.EQUALS, Operations.NOT_EQUALS, Operations.LESS_THAN,
+            Operations.GREATER_THAN_EQUALS}) {
+            IntPredicate check = best.matcher(op, "3");
+            java.util.BitSet rows = best.matching(op, "3");
+            for (int row = 0; row < 5; row++) {
+                assertEquals(rows.get(row), check.test(row), op + " row " + row);
+            }
+        }
+        assertEquals(1, best.bitmapsRead(Operations.EQUALS, "4"));
+        assertThrows(IllegalArgumentException.class, () -> best.matcher(Operations.EQUALS, "0"));
+        assertThrows(IllegalArgumentException.class, () -> best.matcher(Operations.CONTAINS, "4"));
+        assertTrue(best.compare(1, 0, true) < 0);
+        assertTrue(best.compare(2, 1, false) > 0);
+    }
+
+    @Test
+    public void testRegistry() {
+        ColumnRegistry registry = ColumnRegistry.bgg();
+        assertEquals(ColumnSpec.Type.NUMBER, registry.find("numOwned").getType());
+        assertEquals(ColumnSpec.Type.DICTIONARY, registry.find("item_type").getType());
+        assertNull(registry.find("nosuchcolumn"));
+        assertThrows(IllegalArgumentException.class, () -> registry.declare("own", ColumnSpec.Type.TEXT));
+        assertThrows(IllegalArgumentException.class, () -> registry.declare("year", ColumnSpec.Type.NUMBER));
+        assertThrows(IllegalArgumentException.class, () -> registry.declare("average", ColumnSpec.Type.NUMBER));
+        assertSame(registry.find("bestat"), registry.find("bggbestplayers"));
+        assertThrows(IllegalArgumentException.class,
+                () -> registry.declare("recommended", "bggrecplayers", ColumnSpec.Type.PLAYER_COUNTS));
+    }
+}
@@ -0,0 +1,27 @@
+package student.catalog;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IdTableTest {
+
+    @Test
+    public void testMatchesHashMapAcrossGrowth() {
+        IdTable table = new IdTable(4);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(45);
+        for (int i = 0; i < 5000; i++) {
+            int id = random.nextInt(3000) - 100;
+            table.put(id, i);
+            expected.put(id, i);
+        }
+        assertEquals(expected.size(), table.size());
+        for (int id = -200; id < 3100; id++) {
+            assertEquals(expected.getOrDefault(id, -1), table.get(id));
+        }
+        assertThrows(IllegalArgumentException.class, () -> table.put(1, -1));
+    }
+}
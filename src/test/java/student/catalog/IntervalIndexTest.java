@@ -0,0 +1,41 @@
+package student.catalog;
+
+import java.util.BitSet;
+import org.junit.jupiter.api.Test;
+import student.Operations;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntervalIndexTest {
+
+    @Test
+    public void testStabMatchesEveryRange() {
+        double[] low = {1, 2, 4, 6, 3};
+        double[] high = {3, 2, 8, 5, 3};
+        IntervalIndex index = new IntervalIndex(low, high, new SortedIndex(low), new SortedIndex(high));
+
+        for (double v = 0; v <= 9; v += 0.5) {
+            BitSet expected = new BitSet();
+            for (int row = 0; row < low.length; row++) {
+                if (low[row] <= v && v <= high[row]) {
+                    expected.set(row);
+                }
+            }
+            assertEquals(expected, index.stab(v), "value " + v);
+            assertEquals(expected.cardinality(), index.count(v));
+            expected.flip(0, low.length);
+            assertEquals(expected, index.matching(Operations.NOT_EQUALS, v), "value " + v);
+        }
+    }
+
+    @Test
+    public void testComparisonsUseOneEnd() {
+        double[] low = {1, 2, 4};
+        double[] high = {3, 2, 8};
+        IntervalIndex index = new IntervalIndex(low, high, new SortedIndex(low), new SortedIndex(high));
+
+        assertEquals(BitSet.valueOf(new long[] {0b101}), index.matching(Operations.GREATER_THAN_EQUALS, 3));
+        assertEquals(BitSet.valueOf(new long[] {0b011}), index.matching(Operations.LESS_THAN, 4));
+        assertEquals(BitSet.valueOf(new long[] {0b100}), index.matching(Operations.NOT_EQUALS, 2));
+        assertEquals(BitSet.valueOf(new long[] {0b011}), index.matching(Operations.NOT_EQUALS, 5));
+    }
+}
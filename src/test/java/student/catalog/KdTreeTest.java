@@ -0,0 +1,54 @@
+package student.catalog;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KdTreeTest {
+
+    /** Checks every point, the answer the tree must match. */
+    private static int[] bruteForce(double[][] points, double[] query, int k, BitSet allowed, int exclude) {
+        return IntStream.range(0, points[0].length)
+                .filter(row -> row != exclude && (allowed == null || allowed.get(row)))
+                .boxed()
+                .sorted(Comparator.comparingDouble(row -> {
+                    double distance = 0;
+                    for (int d = 0; d < points.length; d++) {
+                        distance += (points[d][row] - query[d]) * (points[d][row] - query[d]);
+                    }
+                    return distance;
+                }))
+                .limit(k).mapToInt(Integer::intValue).toArray();
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(3);
+        double[][] points = new double[5][2000];
+        for (double[] dimension : points) {
+            for (int i = 0; i < dimension.length; i++) {
+                dimension[i] = random.nextDouble();
+            }
+        }
+        KdTree tree = new KdTree(points);
+        BitSet third = new BitSet();
+        for (int row = 0; row < 2000; row += 3) {
+            third.set(row);
+        }
+        for (int q = 0; q < 50; q++) {
+            double[] query = {random.nextDouble(), random.nextDouble(), random.nextDouble(),
+                random.nextDouble(), random.nextDouble()};
+            assertArrayEquals(bruteForce(points, query, 10, null, -1), tree.nearest(query, 10, null, -1));
+            assertArrayEquals(bruteForce(points, query, 7, third, 3), tree.nearest(query, 7, third, 3));
+        }
+    }
+
+    @Test
+    public void testFewerPointsThanK() {
+        double[][] points = {{0, 1, 2}, {0, 1, 2}};
+        assertArrayEquals(new int[] {1, 2}, new KdTree(points).nearest(new double[] {0, 0}, 5, null, 0));
+    }
+}
@@ -0,0 +1,98 @@
+package student.catalog;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import student.GameData;
+import student.Operations;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameIndexTest {
+
+    private static final Random RANDOM = new Random(11);
+
+    private static String randomName() {
+        char[] name = new char[1 + RANDOM.nextInt(5)];
+        for (int i = 0; i < name.length; i++) {
+            char c = (char) ('a' + RANDOM.nextInt(3));
+            name[i] = RANDOM.nextBoolean() ? Character.toUpperCase(c) : c;
+        }
+        return new String(name);
+    }
+
+    private static String[] keys(String[] names) {
+        return Arrays.stream(names).map(NameKey::of).toArray(String[]::new);
+    }
+
+    private static boolean compare(Operations op, String name, String value) {
+        int c = name.compareToIgnoreCase(value);
+        return switch (op) {
+            case EQUALS -> c == 0;
+            case NOT_EQUALS -> c != 0;
+            case LESS_THAN -> c < 0;
+            case LESS_THAN_EQUALS -> c <= 0;
+            case GREATER_THAN -> c > 0;
+            case GREATER_THAN_EQUALS -> c >= 0;
+            default -> throw new IllegalArgumentException();
+        };
+    }
+
+    @Test
+    public void testMatchingAgreesWithCompare() {
+        String[] names = IntStream.range(0, 300).mapToObj(i -> randomName()).toArray(String[]::new);
+        NameIndex index = new NameIndex(keys(names), Map.of());
+        Operations[] ops = {Operations.EQUALS, Operations.NOT_EQUALS, Operations.LESS_THAN,
+            Operations.LESS_THAN_EQUALS, Operations.GREATER_THAN, Operations.GREATER_THAN_EQUALS};
+        for (int q = 0; q < 50; q++) {
+            String value = randomName();
+            for (Operations op : ops) {
+                BitSet expected = new BitSet();
+                for (int row = 0; row < names.length; row++) {
+                    expected.set(row, compare(op, names[row], value));
+                }
+                assertEquals(expected, index.matching(op, value), op + " " + value);
+                assertEquals(expected.cardinality(), index.count(op, value));
+            }
+        }
+    }
+
+    @Test
+    public void testCompleteMatchesBruteForce() {
+        String[] names = IntStream.range(0, 500).mapToObj(i -> randomName()).toArray(String[]::new);
+        double[] score = IntStream.range(0, 500).mapToDouble(i -> RANDOM.nextInt(50)).toArray();
+        NameIndex index = new NameIndex(keys(names), Map.of(GameData.RATING, score));
+        for (int q = 0; q < 50; q++) {
+            String name = randomName();
+            String prefix = name.substring(0, Math.min(name.length(), 1 + RANDOM.nextInt(2)));
+            int n = 1 + RANDOM.nextInt(8);
+            int[] found = index.complete(prefix, GameData.RATING, n);
+            double[] expected = IntStream.range(0, names.length)
+                    .filter(row -> names[row].toLowerCase().startsWith(prefix.toLowerCase()))
+                    .mapToDouble(row -> score[row]).boxed()
+                    .sorted(Comparator.reverseOrder()).limit(n).mapToDouble(Double::doubleValue).toArray();
+            assertArrayEquals(expected, IntStream.of(found).mapToDouble(row -> score[row]).toArray(), prefix);
+            for (int row : found) {
+                assertTrue(names[row].toLowerCase().startsWith(prefix.toLowerCase()));
+            }
+        }
+        assertEquals(0, index.complete("zzz", GameData.RATING, 5).length);
+        assertThrows(IllegalArgumentException.class, () -> index.complete("a", GameData.YEAR, 5));
+    }
+
+    @Test
+    public void testKeysIgnoreAccentsAndCase() {
+        assertEquals("cafe", NameKey.of("Café"));
+        assertEquals(NameKey.of("CAFE"), NameKey.of("cafe\u0301"));
+        assertEquals("fish", NameKey.of("\ufb01sh"));
+        assertEquals("7 wonders: duel", NameKey.of("7 Wonders: Duel"));
+        assertEquals("uber", NameKey.of("Über"));
+
+        NameIndex index = new NameIndex(keys(new String[] {"Cafe", "Café", "Cafeteria", "Zoo"}), Map.of());
+        assertEquals(2, index.count(Operations.EQUALS, "CAFÉ"));
+        assertEquals(3, index.count(Operations.LESS_THAN, "d"));
+    }
+}
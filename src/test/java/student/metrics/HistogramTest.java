@@ -0,0 +1,38 @@
+package student.metrics;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+
+    @Test
+    public void testBucketsCoverEveryValue() {
+        long[] values = {0, 1, 15, 16, 17, 1000, 123_456_789L, Long.MAX_VALUE};
+        for (long v : values) {
+            int bucket = Histogram.bucketOf(v);
+            assertTrue(Histogram.upperBound(bucket) >= v, "upper bound below " + v);
+            if (bucket > 0) {
+                assertTrue(Histogram.upperBound(bucket - 1) < v, "previous bucket holds " + v);
+            }
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        Histogram histogram = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 0.001);
+        assertEquals(1000, histogram.getMax());
+
+        long p50 = histogram.percentile(50);
+        assertTrue(p50 >= 500 && p50 <= 500 * 1.125, "p50 was " + p50);
+        assertEquals(1000, histogram.percentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.percentile(99));
+    }
+}
@@ -0,0 +1,141 @@
+package student.persist;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import student.BoardGame;
+import student.GameList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListJournalTest {
+
+    private static final Map<Integer, BoardGame> GAMES = Map.of(
+            1, new BoardGame("Go", 1, 2, 2, 30, 30, 8.0, 100, 7.5, 2000),
+            2, new BoardGame("Go Fish", 2, 2, 10, 20, 120, 3.0, 200, 6.5, 2001),
+            7, new BoardGame("Chess", 7, 2, 2, 10, 20, 10.0, 700, 10.0, 2006));
+
+    @Test
+    public void testReplaysAfterReopen(@TempDir Path dir) throws IOException {
+        try (ListJournal journal = ListJournal.open(dir)) {
+            journal.add(1);
+            journal.add(7);
+            journal.add(2);
+            journal.commit();
+            journal.remove(7);
+            journal.commit();
+        }
+        try (ListJournal journal = ListJournal.open(dir)) {
+            assertEquals(List.of(1, 2), journal.ids());
+            assertEquals(4, journal.records());
+            journal.clear();
+            journal.add(7);
+            journal.commit();
+        }
+        try (ListJournal journal = ListJournal.open(dir)) {
+            assertEquals(List.of(7), journal.ids());
+        }
+    }
+
+    @Test
+    public void testDropsTornTail(@TempDir Path dir) throws IOException {
+        try (ListJournal journal = ListJournal.open(dir)) {
+            journal.add(1);
+            journal.commit();
+        }
+        Files.write(dir.resolve("list.journal"), new byte[] {0, 0, 1}, StandardOpenOption.APPEND);
+        try (ListJournal journal = ListJournal.open(dir)) {
+            assertEquals(List.of(1), journal.ids());
+            journal.add(2);
+            journal.commit();
+        }
+        try (ListJournal journal = ListJournal.open(dir)) {
+            assertEquals(List.of(1, 2), journal.ids());
+        }
+    }
+
+    @Test
+    public void testCompactsIntoSnapshot(@TempDir Path dir) throws IOException {
+        byte[] beforeCompaction;
+        try (ListJournal journal = ListJournal.open(dir)) {
+            for (int i = 0; i < ListJournal.MIN_COMPACT / 2 - 1; i++) {
+                journal.add(i % 10);
+                journal.remove(i % 10 + 5);
+            }
+            journal.commit();
+            beforeCompaction = Files.readAllBytes(dir.resolve("list.journal"));
+            assertFalse(Files.exists(dir.resolve("list.snapshot")));
+            journal.add(42);
+            journal.add(43);
+            journal.commit();
+            assertEquals(0, journal.records());
+            assertEquals(0, Files.size(dir.resolve("list.journal")));
+        }
+        // the last record for an id decides: 5 was removed last, 6 to 9 added last
+        List<Integer> expected = List.of(0, 1, 2, 3, 4, 6, 7, 8, 9, 42, 43);
+        try (ListJournal journal = ListJournal.open(dir)) {
+            assertEquals(expected, journal.ids().stream().sorted().toList());
+        }
+        // as if the process stopped after the snapshot was written but before the journal emptied
+        Files.write(dir.resolve("list.journal"), beforeCompaction);
+        try (ListJournal journal = ListJournal.open(dir)) {
+            assertEquals(expected, journal.ids().stream().sorted().toList());
+        }
+    }
+
+    @Test
+    public void testFailedCommitChangesNothing(@TempDir Path dir) throws IOException {
+        ListJournal journal = ListJournal.open(dir);
+        journal.add(1);
+        journal.commit();
+        journal.add(2);
+        journal.clear();
+        assertEquals(List.of(1), journal.ids());
+        journal.close();
+        assertThrows(IOException.class, journal::commit);
+        assertEquals(List.of(1), journal.ids());
+        assertEquals(1, journal.records());
+        try (ListJournal reopened = ListJournal.open(dir)) {
+            assertEquals(List.of(1), reopened.ids());
+            assertEquals(1, reopened.records());
+        }
+    }
+
+    @Test
+    public void testRejectsOtherSnapshot(@TempDir Path dir) throws IOException {
+        Files.writeString(dir.resolve("list.snapshot"), "Go\nChess\n");
+        assertThrows(IOException.class, () -> ListJournal.open(dir));
+    }
+
+    @Test
+    public void testGameListJournalsEditsAndUndo(@TempDir Path dir) throws IOException {
+        List<BoardGame> all = Stream.of(1, 2, 7).map(GAMES::get).toList();
+        try (ListJournal journal = ListJournal.open(dir)) {
+            GameList list = GameList.restore(journal, GAMES::get);
+            list.addToList("all", all.stream());
+            list.removeFromList("go");
+            assertEquals(List.of("Chess", "Go Fish"), list.getGameNames());
+            list.clear();
+            assertTrue(list.undo());
+            assertTrue(list.undo());
+            assertEquals(List.of("Chess", "Go", "Go Fish"), list.getGameNames());
+            assertTrue(list.redo());
+            assertEquals(List.of("Chess", "Go Fish"), list.getGameNames());
+        }
+        try (ListJournal journal = ListJournal.open(dir)) {
+            GameList list = GameList.restore(journal, id -> id == 2 ? null : GAMES.get(id));
+            assertEquals(List.of("Chess"), list.getGameNames());
+            assertFalse(list.undo());
+            list.addToList("1", all.stream());
+            list.removeFromList("all");
+        }
+        try (ListJournal journal = ListJournal.open(dir)) {
+            assertEquals(List.of(), journal.ids());
+        }
+    }
+}
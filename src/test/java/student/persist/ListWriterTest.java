@@ -0,0 +1,72 @@
+package student.persist;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import student.BoardGame;
+import student.GameList;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ListWriterTest {
+
+    @Test
+    public void testGroupsSavesToOneFile(@TempDir Path dir) throws IOException {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        ListWriter writer = new ListWriter(tasks::add);
+        Path file = dir.resolve("lists/mine.txt");
+
+        CompletableFuture<Path> first = writer.save(file, List.of("Go"));
+        CompletableFuture<Path> second = writer.save(file, List.of("Chess", "Go"));
+        CompletableFuture<Path> other = writer.save(dir.resolve("other.txt"), List.of("Tucano"));
+        assertEquals(2, tasks.size());
+        assertFalse(first.isDone());
+
+        tasks.poll().run();
+        assertSame(first.join(), second.join());
+        assertEquals(List.of("Chess", "Go"), Files.readAllLines(file));
+        assertFalse(other.isDone());
+
+        // a save after the write started is written again
+        CompletableFuture<Path> third = writer.save(file, List.of());
+        tasks.poll().run();
+        assertTrue(other.isDone());
+        assertEquals(1, tasks.size());
+        tasks.poll().run();
+        assertTrue(third.isDone());
+        assertEquals(List.of(), Files.readAllLines(file));
+        try (var files = Files.list(file.getParent())) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    public void testReportsFailure(@TempDir Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("taken"));
+        Files.writeString(dir.resolve("taken/keep.txt"), "Go");
+        CompletableFuture<Path> save = new ListWriter().save(dir.resolve("taken"), List.of("Go"));
+        CompletionException e = assertThrows(CompletionException.class, save::join);
+        assertInstanceOf(IOException.class, e.getCause());
+    }
+
+    @Test
+    public void testGameListSavesBareFilename() throws IOException {
+        GameList list = new GameList();
+        list.addGame(new BoardGame("Go", 1, 2, 2, 30, 30, 8.0, 100, 7.5, 2000));
+        list.addGame(new BoardGame("Chess", 7, 2, 2, 10, 20, 10.0, 700, 10.0, 2006));
+        Path file = Path.of("list-writer-test.txt");
+        try {
+            list.saveGame(file.toString());
+            assertEquals(List.of("Chess", "Go"), Files.readAllLines(file));
+            assertEquals(file.toAbsolutePath(), list.saveGameAsync(file.toString()).join());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
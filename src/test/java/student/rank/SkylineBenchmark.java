@@ -0,0 +1,72 @@
+package student.rank;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import student.BoardGame;
+import student.GameData;
+import student.catalog.GameCatalog;
+
+/**
+ * JMH benchmark of the skyline over rating, difficulty and play time on synthetic catalogs.
+ *
+ * Run after mvn test-compile with:
+ * java -cp target/test-classes:target/classes:(mvn dependency:build-classpath) org.openjdk.jmh.Main SkylineBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SkylineBenchmark {
+    /** Number of synthetic games. */
+    @Param({"100000", "1000000"})
+    public int games;
+
+    /** The synthetic catalog. */
+    private GameCatalog catalog;
+    /** Every row. */
+    private BitSet all;
+
+    /** Builds a catalog where better rated games tend to be heavier and longer. */
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        List<BoardGame> list = new ArrayList<>(games);
+        for (int i = 0; i < games; i++) {
+            double rating = 1 + random.nextDouble() * 9;
+            double difficulty = Math.max(1, Math.min(5, rating / 2 + random.nextGaussian()));
+            int time = (int) Math.max(5, rating * 15 + random.nextGaussian() * 30);
+            list.add(new BoardGame("game " + i, i, 2, 4, time / 2, time, difficulty, i + 1,
+                    rating, 2000 + random.nextInt(25)));
+        }
+        catalog = new GameCatalog(list);
+        all = new BitSet(catalog.size());
+        all.set(0, catalog.size());
+    }
+
+    /**
+     * The skyline of every game.
+     *
+     * @return the skyline rows
+     */
+    @Benchmark
+    public int[] skyline() {
+        return Skyline.of(catalog, all, Dimension.high(GameData.RATING),
+                Dimension.low(GameData.DIFFICULTY), Dimension.low(GameData.MAX_TIME));
+    }
+}
@@ -0,0 +1,52 @@
+package student.rank;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SkylineTest {
+
+    /** Compares every pair of points, the answer sort-filter-skyline must match. */
+    private static int[] bruteForce(double[][] values, int n) {
+        return IntStream.range(0, n).filter(p -> IntStream.range(0, n).noneMatch(q -> {
+            boolean better = false;
+            for (double[] dimension : values) {
+                if (dimension[q] < dimension[p]) {
+                    return false;
+                }
+                better |= dimension[q] > dimension[p];
+            }
+            return better;
+        })).toArray();
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(7);
+        for (int dims = 1; dims <= 4; dims++) {
+            int n = 400;
+            double[][] values = new double[dims][n];
+            for (double[] dimension : values) {
+                for (int i = 0; i < n; i++) {
+                    dimension[i] = random.nextInt(20); // small range, so plenty of ties
+                }
+            }
+            int[] skyline = Skyline.of(values, n);
+            Arrays.sort(skyline);
+            assertArrayEquals(bruteForce(values, n), skyline, "dimensions " + dims);
+        }
+    }
+
+    @Test
+    public void testAnticorrelatedPointsAreAllInTheSkyline() {
+        int n = 100;
+        double[][] values = new double[2][n];
+        for (int i = 0; i < n; i++) {
+            values[0][i] = i;
+            values[1][i] = n - i;
+        }
+        assertEquals(n, Skyline.of(values, n).length);
+    }
+}
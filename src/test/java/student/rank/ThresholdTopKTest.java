@@ -0,0 +1,83 @@
+package student.rank;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import student.BoardGame;
+import student.GameData;
+import student.catalog.GameCatalog;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThresholdTopKTest {
+    static GameCatalog catalog;
+    static BitSet all;
+
+    @BeforeAll
+    public static void setup() {
+        Random random = new Random(42);
+        List<BoardGame> games = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            double rating = 1 + random.nextDouble() * 9;
+            double difficulty = Math.max(1, Math.min(5, rating / 2 + random.nextGaussian() * 0.3));
+            games.add(new BoardGame("game " + i, i, 2, 4, 30, 60, difficulty, i + 1, rating,
+                    1990 + random.nextInt(35)));
+        }
+        catalog = new GameCatalog(games);
+        all = new BitSet();
+        all.set(0, catalog.size());
+    }
+
+    /** Scores every row, the answer the threshold algorithm must match. */
+    private static List<String> bruteForce(BitSet rows, Map<GameData, Double> weights, int k) {
+        List<ScoredGame> scored = new ArrayList<>();
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+            double score = 0;
+            for (Map.Entry<GameData, Double> weight : weights.entrySet()) {
+                double min = catalog.stats(weight.getKey()).min();
+                double max = catalog.stats(weight.getKey()).max();
+                score += weight.getValue() * (catalog.value(row, weight.getKey()) - min) / (max - min);
+            }
+            scored.add(new ScoredGame(catalog.get(row), score));
+        }
+        scored.sort(Comparator.comparingDouble(ScoredGame::getScore).reversed());
+        return scored.stream().limit(k).map(s -> s.getGame().getName()).toList();
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        List<Map<GameData, Double>> blends = List.of(
+                Map.of(GameData.RATING, 1.0),
+                Map.of(GameData.RATING, 0.6, GameData.DIFFICULTY, -0.3, GameData.YEAR, 0.1),
+                Map.of(GameData.DIFFICULTY, 0.5, GameData.RANK, -0.5));
+        BitSet even = new BitSet();
+        for (int row = 0; row < catalog.size(); row += 2) {
+            even.set(row);
+        }
+        for (Map<GameData, Double> weights : blends) {
+            for (BitSet rows : List.of(all, even)) {
+                List<String> top = new ThresholdTopK(catalog).top(rows, weights, 10).stream()
+                        .map(s -> s.getGame().getName()).toList();
+                assertEquals(bruteForce(rows, weights, 10), top, weights.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testStopsEarlyWhenColumnsAgree() {
+        ThresholdTopK query = new ThresholdTopK(catalog);
+        List<ScoredGame> top = query.top(all, Map.of(GameData.RATING, 0.7, GameData.DIFFICULTY, 0.3), 5);
+        assertEquals(5, top.size());
+        assertTrue(query.getRowsScored() < catalog.size() / 2, "scored " + query.getRowsScored());
+    }
+
+    @Test
+    public void testRejectsNameColumn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new ThresholdTopK(catalog).top(all, Map.of(GameData.NAME, 1.0), 3));
+    }
+}
@@ -0,0 +1,90 @@
+package student.session;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import student.BoardGame;
+import student.IGameList;
+import student.catalog.GameCatalog;
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionStoreTest {
+    private GameCatalog catalog;
+    private AtomicLong now;
+
+    @BeforeEach
+    public void setUp() {
+        catalog = new GameCatalog(List.of(
+                new BoardGame("Go", 1, 2, 5, 30, 30, 8.0, 100, 7.5, 2000),
+                new BoardGame("Chess", 7, 2, 2, 10, 20, 10.0, 700, 10.0, 2006),
+                new BoardGame("azul", 3, 2, 4, 30, 45, 1.8, 50, 7.8, 2017)));
+        now = new AtomicLong();
+    }
+
+    @Test
+    public void testSessionsAreIndependent() {
+        SessionStore store = new SessionStore(catalog, 1 << 20, Duration.ofMinutes(5), now::get);
+        IGameList first = store.session("a");
+        IGameList second = store.session("b");
+
+        first.addToList("all", catalog.stream());
+        second.addToList("chess", catalog.stream());
+
+        assertEquals(List.of("azul", "Chess", "Go"), first.getGameNames());
+        assertEquals(List.of("Chess"), second.getGameNames());
+
+        first.removeFromList("1-2");
+        assertEquals(List.of("Go"), first.getGameNames());
+        assertSame(first, store.session("a"));
+    }
+
+    @Test
+    public void testEvictIdle() {
+        SessionStore store = new SessionStore(catalog, 1 << 20, Duration.ofNanos(100), now::get);
+        store.session("a");
+        now.set(50);
+        store.session("b");
+        now.set(120);
+
+        assertEquals(1, store.evictIdle());
+        assertEquals(1, store.size());
+        assertEquals(SessionStore.SESSION_OVERHEAD, store.memoryUsed());
+    }
+
+    @Test
+    public void testMemoryBudgetEvictsLeastRecentlyUsed() {
+        long budget = 2 * SessionStore.SESSION_OVERHEAD + 64;
+        SessionStore store = new SessionStore(catalog, budget, Duration.ofHours(1), now::get);
+        IGameList first = store.session("a");
+        now.set(1);
+        store.session("b").addToList("all", catalog.stream());
+        now.set(2);
+        store.session("c");
+
+        assertEquals(2, store.size());
+        assertTrue(store.memoryUsed() <= budget);
+        assertThrows(IllegalStateException.class, () -> first.addToList("go", catalog.stream()));
+    }
+
+    @Test
+    public void testEvictionFollowsAccessOrder() {
+        SessionStore store = new SessionStore(catalog, 3 * SessionStore.SESSION_OVERHEAD, Duration.ofNanos(100),
+                now::get);
+        IGameList first = store.session("a");
+        IGameList second = store.session("b");
+        store.session("c");
+        now.set(90);
+        first.getGameNames();
+        store.session("d");
+
+        assertEquals(3, store.size());
+        assertSame(first, store.session("a"));
+        assertThrows(IllegalStateException.class, () -> second.addToList("go", catalog.stream()));
+        now.set(150);
+        assertEquals(1, store.evictIdle());
+        assertEquals(2, store.size());
+        store.close();
+    }
+}